@@ -28,6 +28,14 @@ public enum AclReportAffinity {
 	 */
 	POSITIVE("+");
 
+	private static final CaseInsensitiveLookup<AclReportAffinity> LOOKUP = new CaseInsensitiveLookup<AclReportAffinity>();
+	static {
+		for (AclReportAffinity value : values()) {
+			LOOKUP.put(value.name(), value);
+			LOOKUP.put(value.moabString, value);
+		}
+	}
+
 	private String moabString;
 
 	private AclReportAffinity(String moabString) {
@@ -39,12 +47,6 @@ public enum AclReportAffinity {
 	}
 
 	public static AclReportAffinity parse(String string) {
-		for (AclReportAffinity value : values()) {
-			if (value.name().equalsIgnoreCase(string) ||
-					value.moabString.equalsIgnoreCase(string)) {
-				return value;
-			}
-		}
-		return null;
+		return LOOKUP.get(string);
 	}
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.adaptc.mws.plugins;
 
+import java.util.Objects;
+
 /**
  * <p>
  * This class represents a rule that can be in Moab's access control list (ACL)
@@ -166,5 +168,31 @@ public class AclReportRule {
 	 */
 	public void setAffinity(AclReportAffinity affinity) { this.affinity = affinity; }
 
+	/**
+	 * Two rules are equal if all of their fields are equal.
+	 * @param o The object to compare against
+	 * @return True if the object is a rule with the same values
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof AclReportRule))
+			return false;
+		AclReportRule other = (AclReportRule)o;
+		return type == other.type && comparator == other.comparator && affinity == other.affinity &&
+				excludeFromAcl == other.excludeFromAcl && requireAll == other.requireAll &&
+				xorWithAcl == other.xorWithAcl && credentialLock == other.credentialLock &&
+				hardPolicyOnly == other.hardPolicyOnly && Objects.equals(value, other.value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, comparator, affinity, excludeFromAcl, requireAll, xorWithAcl, credentialLock,
+				hardPolicyOnly, value);
+	}
 
 }
\ No newline at end of file
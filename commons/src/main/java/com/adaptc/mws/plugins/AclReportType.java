@@ -85,6 +85,14 @@ public enum AclReportType {
 
 	XFACTOR("XFACTOR");
 
+	private static final CaseInsensitiveLookup<AclReportType> LOOKUP = new CaseInsensitiveLookup<AclReportType>();
+	static {
+		for (AclReportType type : values()) {
+			LOOKUP.put(type.name(), type);
+			LOOKUP.put(type.moabString, type);
+		}
+	}
+
 	private String moabString;
 
 	private AclReportType(String moabString) {
@@ -96,12 +104,6 @@ public enum AclReportType {
 	}
 
 	public static AclReportType parse(String string) {
-		for (AclReportType type : values()) {
-			if(type.name().equalsIgnoreCase(string) ||
-					type.moabString.equalsIgnoreCase(string)) {
-				return type;
-			}
-		}
-		return null;
+		return LOOKUP.get(string);
 	}
 }
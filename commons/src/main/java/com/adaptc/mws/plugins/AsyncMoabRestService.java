@@ -0,0 +1,150 @@
+package com.adaptc.mws.plugins;
+
+import groovy.lang.Closure;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Performs the requests of a {@link IMoabRestService} asynchronously on an executor, so that many independent
+ * requests may be in progress at once instead of each blocking the calling thread.  Each method is the
+ * counterpart of the method of {@link IMoabRestService} with the same arguments and returns a future which
+ * is completed with the response, or completed exceptionally with any exception thrown by the request.
+ * <pre>
+ * AsyncMoabRestService asyncMoabRestService = new AsyncMoabRestService(moabRestService, executor)
+ * def futures = nodeNames.collect { asyncMoabRestService.get("/rest/nodes/${it}") }
+ * CompletableFuture.allOf(futures as CompletableFuture[]).join()
+ * def responses = futures*.join()
+ * </pre>
+ * The executor determines how many requests run at once, so a bounded pool such as one created by
+ * {@link java.util.concurrent.Executors#newFixedThreadPool(int)} should normally be used, and shut down when
+ * the plugin is stopped.  Closures passed as request data are called on the executor threads.
+ */
+public class AsyncMoabRestService {
+	private final IMoabRestService moabRestService;
+	private final Executor executor;
+
+	/**
+	 * Creates a new asynchronous service.
+	 * @param moabRestService The service which performs the requests
+	 * @param executor Runs the requests
+	 * @throws IllegalArgumentException If either argument is null
+	 */
+	public AsyncMoabRestService(IMoabRestService moabRestService, Executor executor) {
+		if (moabRestService == null)
+			throw new IllegalArgumentException("Argument [moabRestService] must not be null");
+		if (executor == null)
+			throw new IllegalArgumentException("Argument [executor] must not be null");
+		this.moabRestService = moabRestService;
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns the service which performs the requests.
+	 * @return The service
+	 */
+	public IMoabRestService getMoabRestService() {
+		return moabRestService;
+	}
+
+	/**
+	 * @see IMoabRestService#get(String)
+	 */
+	public CompletableFuture<MoabRestResponse> get(final String url) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.get(url), executor);
+	}
+	/**
+	 * @see IMoabRestService#get(Map, String)
+	 */
+	public CompletableFuture<MoabRestResponse> get(final Map<String, ?> options, final String url) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.get(options, url), executor);
+	}
+	/**
+	 * @see IMoabRestService#get(String, Closure)
+	 */
+	public CompletableFuture<MoabRestResponse> get(final String url, final Closure<?> data) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.get(url, data), executor);
+	}
+	/**
+	 * @see IMoabRestService#get(Map, String, Closure)
+	 */
+	public CompletableFuture<MoabRestResponse> get(final Map<String, ?> options, final String url, final Closure<?> data) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.get(options, url, data), executor);
+	}
+
+	/**
+	 * @see IMoabRestService#put(String)
+	 */
+	public CompletableFuture<MoabRestResponse> put(final String url) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.put(url), executor);
+	}
+	/**
+	 * @see IMoabRestService#put(Map, String)
+	 */
+	public CompletableFuture<MoabRestResponse> put(final Map<String, ?> options, final String url) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.put(options, url), executor);
+	}
+	/**
+	 * @see IMoabRestService#put(String, Closure)
+	 */
+	public CompletableFuture<MoabRestResponse> put(final String url, final Closure<?> data) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.put(url, data), executor);
+	}
+	/**
+	 * @see IMoabRestService#put(Map, String, Closure)
+	 */
+	public CompletableFuture<MoabRestResponse> put(final Map<String, ?> options, final String url, final Closure<?> data) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.put(options, url, data), executor);
+	}
+
+	/**
+	 * @see IMoabRestService#post(String)
+	 */
+	public CompletableFuture<MoabRestResponse> post(final String url) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.post(url), executor);
+	}
+	/**
+	 * @see IMoabRestService#post(Map, String)
+	 */
+	public CompletableFuture<MoabRestResponse> post(final Map<String, ?> options, final String url) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.post(options, url), executor);
+	}
+	/**
+	 * @see IMoabRestService#post(String, Closure)
+	 */
+	public CompletableFuture<MoabRestResponse> post(final String url, final Closure<?> data) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.post(url, data), executor);
+	}
+	/**
+	 * @see IMoabRestService#post(Map, String, Closure)
+	 */
+	public CompletableFuture<MoabRestResponse> post(final Map<String, ?> options, final String url, final Closure<?> data) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.post(options, url, data), executor);
+	}
+
+	/**
+	 * @see IMoabRestService#delete(String)
+	 */
+	public CompletableFuture<MoabRestResponse> delete(final String url) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.delete(url), executor);
+	}
+	/**
+	 * @see IMoabRestService#delete(Map, String)
+	 */
+	public CompletableFuture<MoabRestResponse> delete(final Map<String, ?> options, final String url) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.delete(options, url), executor);
+	}
+	/**
+	 * @see IMoabRestService#delete(String, Closure)
+	 */
+	public CompletableFuture<MoabRestResponse> delete(final String url, final Closure<?> data) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.delete(url, data), executor);
+	}
+	/**
+	 * @see IMoabRestService#delete(Map, String, Closure)
+	 */
+	public CompletableFuture<MoabRestResponse> delete(final Map<String, ?> options, final String url, final Closure<?> data) {
+		return CompletableFuture.supplyAsync(() -> moabRestService.delete(options, url, data), executor);
+	}
+}
@@ -0,0 +1,369 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Submits reports asynchronously on a background thread, so that slow writes to MWS do not delay polling.
+ * Reports are held in a bounded queue until they are written in batches, either once enough reports are
+ * pending or once the oldest pending report has waited long enough.
+ * <p>
+ * Pending reports are coalesced by name, so offering a report for an object which already has a pending
+ * report replaces the pending report instead of using more of the queue.  Because of this, submitted reports
+ * should always be complete reports of the object, and are written using {@link INodeRMService#update(List)}
+ * or {@link IJobRMService#update(List)}, never using save.
+ * <pre>
+ * AsyncReportSubmitter&lt;NodeReport&gt; submitter = AsyncReportSubmitter.nodeReports(nodeRMService, 10000, 500, 1000)
+ * // During each poll
+ * int accepted = submitter.offerAll(nodeReports)
+ * if (accepted &lt; nodeReports.size())
+ * 	log.warn("MWS is not keeping up, dropped ${nodeReports.size()-accepted} node reports")
+ * // When the plugin is stopped
+ * submitter.close()
+ * </pre>
+ * When the queue is full, reports for objects without a pending report are rejected, which callers should
+ * treat as backpressure.  {@link #offer(Object, long, TimeUnit)} may be used to wait for space instead.
+ * <p>
+ * The writer is only ever called from the background thread of the submitter, one batch at a time.  Any
+ * exception thrown by the writer is passed to the failure handler, if any, and the batch is discarded.
+ * Plugins which rely on state of the polling thread when writing reports should not use this class.
+ * <p>
+ * This class is thread-safe.
+ * @param <T> The type of report
+ */
+public class AsyncReportSubmitter<T> implements AutoCloseable {
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+	private final Consumer<List<T>> writer;
+	private final Function<T, String> names;
+	private final int capacity;
+	private final int batchSize;
+	private final long flushIntervalNanos;
+	private final Thread thread;
+
+	private final Object lock = new Object();
+	private final LinkedHashMap<String, T> pending = new LinkedHashMap<String, T>();
+	private long oldestPendingNanos;
+	private boolean writing = false;
+	private boolean flushRequested = false;
+	private boolean closed = false;
+	private BiConsumer<List<T>, RuntimeException> failureHandler;
+
+	private long writtenCount = 0;
+	private long coalescedCount = 0;
+	private long rejectedCount = 0;
+	private long failedCount = 0;
+
+	/**
+	 * Creates a new submitter and starts its background thread.
+	 * @param writer Writes a batch of reports
+	 * @param names Returns the name of a report, used to coalesce reports
+	 * @param capacity The maximum number of pending reports
+	 * @param batchSize The maximum number of reports in each batch, a batch is written as soon as this many
+	 *                  reports are pending
+	 * @param flushIntervalMillis The time in milliseconds after which pending reports are written even if there
+	 *                            are fewer than a batch
+	 * @throws IllegalArgumentException If the writer or names function is null, or any number is not positive
+	 */
+	public AsyncReportSubmitter(Consumer<List<T>> writer, Function<T, String> names, int capacity, int batchSize,
+								long flushIntervalMillis) {
+		if (writer == null)
+			throw new IllegalArgumentException("Argument [writer] must not be null");
+		if (names == null)
+			throw new IllegalArgumentException("Argument [names] must not be null");
+		if (capacity < 1)
+			throw new IllegalArgumentException("Argument [capacity] must be greater than 0");
+		if (batchSize < 1)
+			throw new IllegalArgumentException("Argument [batchSize] must be greater than 0");
+		if (flushIntervalMillis < 1)
+			throw new IllegalArgumentException("Argument [flushIntervalMillis] must be greater than 0");
+		this.writer = writer;
+		this.names = names;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		thread = new Thread(this::run, "AsyncReportSubmitter-"+THREAD_NUMBER.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Creates a new submitter which writes node reports using {@link INodeRMService#update(List)}.
+	 * @see #AsyncReportSubmitter(Consumer, Function, int, int, long)
+	 */
+	public static AsyncReportSubmitter<NodeReport> nodeReports(INodeRMService nodeRMService, int capacity,
+																int batchSize, long flushIntervalMillis) {
+		if (nodeRMService == null)
+			throw new IllegalArgumentException("Argument [nodeRMService] must not be null");
+		return new AsyncReportSubmitter<NodeReport>(nodeRMService::update, NodeReport::getName, capacity,
+				batchSize, flushIntervalMillis);
+	}
+
+	/**
+	 * Creates a new submitter which writes job reports using {@link IJobRMService#update(List)}.
+	 * @see #AsyncReportSubmitter(Consumer, Function, int, int, long)
+	 */
+	public static AsyncReportSubmitter<JobReport> jobReports(IJobRMService jobRMService, int capacity,
+															  int batchSize, long flushIntervalMillis) {
+		if (jobRMService == null)
+			throw new IllegalArgumentException("Argument [jobRMService] must not be null");
+		return new AsyncReportSubmitter<JobReport>(jobRMService::update, JobReport::getName, capacity,
+				batchSize, flushIntervalMillis);
+	}
+
+	/**
+	 * Sets the handler called with each batch which could not be written and the exception thrown by the writer.
+	 * Checked exceptions and errors thrown by the writer are passed to the handler wrapped in a
+	 * {@link RuntimeException}.
+	 * @param failureHandler The handler, may be null
+	 */
+	public void setFailureHandler(BiConsumer<List<T>, RuntimeException> failureHandler) {
+		synchronized (lock) {
+			this.failureHandler = failureHandler;
+		}
+	}
+
+	/**
+	 * Queues a report, replacing any pending report with the same name.
+	 * @param report The report
+	 * @return True if the report was queued, false if the queue is full or the submitter is closed
+	 */
+	public boolean offer(T report) {
+		synchronized (lock) {
+			return enqueue(report);
+		}
+	}
+
+	/**
+	 * Queues a report, replacing any pending report with the same name, waiting for space if the queue is full.
+	 * @param report The report
+	 * @param timeout The longest time to wait
+	 * @param unit The unit of the timeout
+	 * @return True if the report was queued, false if the timeout elapsed or the submitter is closed
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public boolean offer(T report, long timeout, TimeUnit unit) throws InterruptedException {
+		if (report == null)
+			throw new IllegalArgumentException("Argument [report] must not be null");
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (lock) {
+			while (!closed && pending.size() >= capacity && !pending.containsKey(names.apply(report))) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0)
+					break;
+				TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+			}
+			return enqueue(report);
+		}
+	}
+
+	/**
+	 * Queues reports, replacing any pending reports with the same names.  Reports which do not fit into the
+	 * queue are rejected.
+	 * @param reports The reports
+	 * @return The number of reports queued
+	 */
+	public int offerAll(List<T> reports) {
+		int accepted = 0;
+		synchronized (lock) {
+			for (T report : reports) {
+				if (enqueue(report))
+					accepted++;
+			}
+		}
+		return accepted;
+	}
+
+	/**
+	 * Requests that all pending reports be written and waits until they have been.
+	 * @param timeout The longest time to wait
+	 * @param unit The unit of the timeout
+	 * @return True if no reports are pending or being written
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (lock) {
+			flushRequested = true;
+			lock.notifyAll();
+			while (!pending.isEmpty() || writing) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0 || !thread.isAlive())
+					return false;
+				TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Stops accepting reports and lets the background thread write all pending reports before it stops.
+	 * This does not wait for the pending reports to be written.
+	 */
+	@Override
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the number of pending reports, excluding the batch currently being written.
+	 * @return The number of pending reports
+	 */
+	public int getPendingCount() {
+		synchronized (lock) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * Returns the number of reports which may be queued before reports are rejected.
+	 * @return The remaining capacity
+	 */
+	public int getRemainingCapacity() {
+		synchronized (lock) {
+			return capacity - pending.size();
+		}
+	}
+
+	/**
+	 * Returns the number of reports written successfully.
+	 * @return The number of reports
+	 */
+	public long getWrittenCount() {
+		synchronized (lock) {
+			return writtenCount;
+		}
+	}
+
+	/**
+	 * Returns the number of pending reports which were replaced by newer reports with the same name.
+	 * @return The number of reports
+	 */
+	public long getCoalescedCount() {
+		synchronized (lock) {
+			return coalescedCount;
+		}
+	}
+
+	/**
+	 * Returns the number of reports rejected because the queue was full or the submitter was closed.
+	 * @return The number of reports
+	 */
+	public long getRejectedCount() {
+		synchronized (lock) {
+			return rejectedCount;
+		}
+	}
+
+	/**
+	 * Returns the number of reports in batches which could not be written.
+	 * @return The number of reports
+	 */
+	public long getFailedCount() {
+		synchronized (lock) {
+			return failedCount;
+		}
+	}
+
+	private boolean enqueue(T report) {
+		if (report == null)
+			throw new IllegalArgumentException("Argument [report] must not be null");
+		if (closed) {
+			rejectedCount++;
+			return false;
+		}
+		String name = names.apply(report);
+		if (pending.containsKey(name)) {
+			pending.put(name, report);
+			coalescedCount++;
+			return true;
+		}
+		if (pending.size() >= capacity) {
+			rejectedCount++;
+			return false;
+		}
+		boolean wasEmpty = pending.isEmpty();
+		if (wasEmpty)
+			oldestPendingNanos = System.nanoTime();
+		pending.put(name, report);
+		// The background thread waits without a timeout while nothing is pending
+		if (wasEmpty || pending.size() >= batchSize)
+			lock.notifyAll();
+		return true;
+	}
+
+	private void run() {
+		while (true) {
+			List<T> batch;
+			BiConsumer<List<T>, RuntimeException> handler;
+			synchronized (lock) {
+				try {
+					while (!isBatchReady()) {
+						if (pending.isEmpty())
+							lock.wait();
+						else
+							TimeUnit.NANOSECONDS.timedWait(lock, oldestPendingNanos + flushIntervalNanos - System.nanoTime());
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (pending.isEmpty()) {
+					flushRequested = false;
+					lock.notifyAll();
+					if (closed)
+						return;
+					continue;
+				}
+				batch = new ArrayList<T>(Math.min(batchSize, pending.size()));
+				Iterator<T> iterator = pending.values().iterator();
+				while (batch.size() < batchSize && iterator.hasNext()) {
+					batch.add(iterator.next());
+					iterator.remove();
+				}
+				// The times of the remaining reports are not tracked, so they wait for a whole interval again
+				oldestPendingNanos = System.nanoTime();
+				writing = true;
+				handler = failureHandler;
+				lock.notifyAll();
+			}
+
+			RuntimeException failure = null;
+			try {
+				writer.accept(batch);
+			} catch (RuntimeException e) {
+				failure = e;
+			} catch (Throwable t) {
+				// Checked exceptions thrown by Groovy closures and errors must not stop the submitter either
+				failure = new RuntimeException("Failed to write reports", t);
+			}
+			if (failure != null && handler != null) {
+				try {
+					handler.accept(batch, failure);
+				} catch (Throwable ignored) {
+					// The handler must not stop the submitter
+				}
+			}
+
+			synchronized (lock) {
+				writing = false;
+				if (failure == null)
+					writtenCount += batch.size();
+				else
+					failedCount += batch.size();
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private boolean isBatchReady() {
+		return closed || flushRequested || pending.size() >= batchSize ||
+				!pending.isEmpty() && System.nanoTime() - oldestPendingNanos >= flushIntervalNanos;
+	}
+}
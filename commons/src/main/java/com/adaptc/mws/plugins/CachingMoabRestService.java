@@ -0,0 +1,458 @@
+package com.adaptc.mws.plugins;
+
+import groovy.lang.Closure;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A {@link IMoabRestService} which caches the responses of GET requests made to another service, for use
+ * with read-mostly resources such as policies, credentials, or images which are requested every poll.
+ * Responses are cached by URL and options for a time to live which may be configured for each URL prefix,
+ * and the least recently used responses are evicted once the cache is full.  URL prefixes are matched on whole
+ * path segments, so /rest/jobs matches /rest/jobs and /rest/jobs/job.1, but not /rest/jobsfoo.
+ * <pre>
+ * CachingMoabRestService cachingMoabRestService = new CachingMoabRestService(moabRestService, 0, 500)
+ * cachingMoabRestService.setTimeToLive("/rest/policies", 60000)
+ * cachingMoabRestService.setTimeToLive("/rest/images", 300000)
+ * def policies = cachingMoabRestService.get("/rest/policies")
+ * </pre>
+ * Only successful responses of GET requests without data are cached.  Concurrent identical requests which
+ * miss the cache are combined into a single request to the underlying service, unless that request was
+ * started before a modification or invalidation.  Any PUT, POST, or DELETE made through this service
+ * invalidates the cached responses of URLs which are within or contain its URL, so changes made elsewhere are
+ * only seen once the time to live expires or {@link #invalidate(String)} is called.
+ * <p>
+ * When an expired response has an ETag or Last-Modified header, it is revalidated by repeating the request
+ * with If-None-Match or If-Modified-Since added to the headers option, and reused if the underlying service
+ * responds with 304 (Not Modified).  Services which ignore these headers simply return a full response.
+ * <p>
+ * Cached responses are shared between callers, so their data must not be modified.
+ * {@link MoabRestResponse#getDataView()} may be used to read them safely.  This class is thread-safe.
+ */
+public class CachingMoabRestService implements IMoabRestService {
+	static final int NOT_MODIFIED = 304;
+	private static final String HEADERS = "headers";
+
+	private final IMoabRestService moabRestService;
+	private final long defaultTimeToLive;
+	private final Map<String, Long> timesToLive = new ConcurrentHashMap<String, Long>();
+	private final LinkedHashMap<CacheKey, CacheEntry> cache;
+	private final Map<CacheKey, Load> loading = new ConcurrentHashMap<CacheKey, Load>();
+	/**
+	 * Incremented on each invalidation, so that responses requested before it are neither cached nor shared
+	 * with requests made after it.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private LongSupplier clock = System::currentTimeMillis;
+
+	/**
+	 * Creates a new caching service.
+	 * @param moabRestService The service used to perform requests
+	 * @param defaultTimeToLive The time in milliseconds for which responses are cached for URLs without a
+	 *                          time to live set by {@link #setTimeToLive(String, long)}, 0 to not cache them
+	 * @param maxEntries The maximum number of cached responses
+	 * @throws IllegalArgumentException If the service is null, the time to live is negative, or the maximum
+	 * number of entries is not positive
+	 */
+	public CachingMoabRestService(IMoabRestService moabRestService, long defaultTimeToLive, final int maxEntries) {
+		if (moabRestService == null)
+			throw new IllegalArgumentException("Argument [moabRestService] must not be null");
+		if (defaultTimeToLive < 0)
+			throw new IllegalArgumentException("Argument [defaultTimeToLive] must not be negative");
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("Argument [maxEntries] must be greater than 0");
+		this.moabRestService = moabRestService;
+		this.defaultTimeToLive = defaultTimeToLive;
+		this.cache = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Sets the time for which responses of URLs within a prefix are cached.  When several prefixes match a
+	 * URL, the longest is used.
+	 * @param urlPrefix The URL prefix, such as /rest/policies
+	 * @param timeToLive The time in milliseconds, 0 to not cache responses
+	 * @throws IllegalArgumentException If the prefix is null or the time to live is negative
+	 */
+	public void setTimeToLive(String urlPrefix, long timeToLive) {
+		if (urlPrefix == null)
+			throw new IllegalArgumentException("Argument [urlPrefix] must not be null");
+		if (timeToLive < 0)
+			throw new IllegalArgumentException("Argument [timeToLive] must not be negative");
+		timesToLive.put(getPath(urlPrefix), timeToLive);
+	}
+
+	/**
+	 * Removes all cached responses of URLs within a prefix.
+	 * @param urlPrefix The URL prefix
+	 */
+	public void invalidate(String urlPrefix) {
+		final String prefix = getPath(urlPrefix);
+		generation.incrementAndGet();
+		synchronized (cache) {
+			cache.keySet().removeIf(key -> isWithin(getPath(key.url), prefix));
+		}
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of cached responses, including expired responses which have not been evicted yet.
+	 * @return The number of responses
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Returns the number of GET requests answered from the cache without a request, including requests which
+	 * waited for an identical request in progress.
+	 * @return The number of requests
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of cacheable GET requests which required a request to the underlying service,
+	 * including revalidations.
+	 * @return The number of requests
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Replaces the source of the current time in milliseconds, used for tests.
+	 */
+	void setClock(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	public boolean isAPIVersionSupported(int apiVersion) {
+		return moabRestService.isAPIVersionSupported(apiVersion);
+	}
+
+	public Date convertDateString(String dateString) {
+		return moabRestService.convertDateString(dateString);
+	}
+
+	public MoabRestResponse get(String url) {
+		return get(Collections.<String, Object>emptyMap(), url);
+	}
+
+	public MoabRestResponse get(Map<String, ?> options, String url) {
+		long timeToLive = getTimeToLive(url);
+		if (timeToLive == 0)
+			return moabRestService.get(options, url);
+
+		CacheKey key = new CacheKey(url, options);
+		CacheEntry entry;
+		synchronized (cache) {
+			entry = cache.get(key);
+		}
+		if (entry != null && clock.getAsLong() < entry.expires) {
+			hitCount.incrementAndGet();
+			return entry.response;
+		}
+
+		Load load = new Load(generation.get());
+		while (true) {
+			Load existing = loading.putIfAbsent(key, load);
+			if (existing == null)
+				break;
+			if (existing.generation >= load.generation) {
+				hitCount.incrementAndGet();
+				try {
+					return existing.response.join();
+				} catch (CompletionException e) {
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException)e.getCause();
+					throw e;
+				}
+			}
+			// The request in progress was started before an invalidation, so its response may be stale
+			if (loading.replace(key, existing, load))
+				break;
+		}
+		try {
+			// A request which completed after the first check may have stored its response before finishing
+			synchronized (cache) {
+				entry = cache.get(key);
+			}
+			if (entry != null && clock.getAsLong() < entry.expires) {
+				hitCount.incrementAndGet();
+				load.response.complete(entry.response);
+				return entry.response;
+			}
+			missCount.incrementAndGet();
+			MoabRestResponse response = load(key, entry, timeToLive, load.generation);
+			load.response.complete(response);
+			return response;
+		} catch (RuntimeException | Error e) {
+			load.response.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(key, load);
+		}
+	}
+
+	/**
+	 * Shortcut for calling {@link #get(Map, String, Closure)} with
+	 * no options.  This is not cached unless the data is null.
+	 */
+	public MoabRestResponse get(String url, Closure<?> data) {
+		return data == null ? get(url) : moabRestService.get(url, data);
+	}
+
+	/**
+	 * Performs a GET request, which is not cached unless the data is null.
+	 */
+	public MoabRestResponse get(Map<String, ?> options, String url, Closure<?> data) {
+		return data == null ? get(options, url) : moabRestService.get(options, url, data);
+	}
+
+	public MoabRestResponse put(String url) {
+		return modify(url, () -> moabRestService.put(url));
+	}
+
+	public MoabRestResponse put(Map<String, ?> options, String url) {
+		return modify(url, () -> moabRestService.put(options, url));
+	}
+
+	public MoabRestResponse put(String url, Closure<?> data) {
+		return modify(url, () -> moabRestService.put(url, data));
+	}
+
+	public MoabRestResponse put(Map<String, ?> options, String url, Closure<?> data) {
+		return modify(url, () -> moabRestService.put(options, url, data));
+	}
+
+	public MoabRestResponse post(String url) {
+		return modify(url, () -> moabRestService.post(url));
+	}
+
+	public MoabRestResponse post(Map<String, ?> options, String url) {
+		return modify(url, () -> moabRestService.post(options, url));
+	}
+
+	public MoabRestResponse post(String url, Closure<?> data) {
+		return modify(url, () -> moabRestService.post(url, data));
+	}
+
+	public MoabRestResponse post(Map<String, ?> options, String url, Closure<?> data) {
+		return modify(url, () -> moabRestService.post(options, url, data));
+	}
+
+	public MoabRestResponse delete(String url) {
+		return modify(url, () -> moabRestService.delete(url));
+	}
+
+	public MoabRestResponse delete(Map<String, ?> options, String url) {
+		return modify(url, () -> moabRestService.delete(options, url));
+	}
+
+	public MoabRestResponse delete(String url, Closure<?> data) {
+		return modify(url, () -> moabRestService.delete(url, data));
+	}
+
+	public MoabRestResponse delete(Map<String, ?> options, String url, Closure<?> data) {
+		return modify(url, () -> moabRestService.delete(options, url, data));
+	}
+
+	private MoabRestResponse load(CacheKey key, CacheEntry expired, long timeToLive, long loadGeneration) {
+		MoabRestResponse response;
+		if (expired != null && (expired.etag != null || expired.lastModified != null)) {
+			response = moabRestService.get(withValidators(key.options, expired), key.url);
+			if (response != null && response.getStatus() == NOT_MODIFIED) {
+				store(key, expired.response, timeToLive, loadGeneration);
+				return expired.response;
+			}
+		} else {
+			response = moabRestService.get(key.options, key.url);
+		}
+		if (response != null && response.isSuccess())
+			store(key, response, timeToLive, loadGeneration);
+		return response;
+	}
+
+	private void store(CacheKey key, MoabRestResponse response, long timeToLive, long loadGeneration) {
+		CacheEntry entry = new CacheEntry(response, clock.getAsLong() + timeToLive);
+		synchronized (cache) {
+			if (generation.get() == loadGeneration)
+				cache.put(key, entry);
+		}
+	}
+
+	private static Map<String, Object> withValidators(Map<String, Object> options, CacheEntry expired) {
+		Map<String, Object> validatedOptions = new LinkedHashMap<String, Object>(options);
+		Map<Object, Object> headers = new LinkedHashMap<Object, Object>();
+		Object givenHeaders = options.get(HEADERS);
+		if (givenHeaders instanceof Map)
+			headers.putAll((Map<?, ?>)givenHeaders);
+		if (expired.etag != null)
+			headers.put("If-None-Match", expired.etag);
+		if (expired.lastModified != null)
+			headers.put("If-Modified-Since", expired.lastModified);
+		validatedOptions.put(HEADERS, headers);
+		return validatedOptions;
+	}
+
+	/**
+	 * Performs a modification, invalidating the cached responses of the modified URL even if the request fails,
+	 * since MWS may have applied the modification before the failure.
+	 */
+	private MoabRestResponse modify(String url, Supplier<MoabRestResponse> request) {
+		try {
+			return request.get();
+		} finally {
+			invalidateFor(url);
+		}
+	}
+
+	/**
+	 * Invalidates the cached responses of URLs within or containing a modified URL, such as /rest/jobs/job.1
+	 * and /rest/jobs for a modification of /rest/jobs/job.1.
+	 */
+	private void invalidateFor(String url) {
+		final String path = getPath(url);
+		generation.incrementAndGet();
+		synchronized (cache) {
+			cache.keySet().removeIf(key -> {
+				String keyPath = getPath(key.url);
+				return isWithin(keyPath, path) || isWithin(path, keyPath);
+			});
+		}
+	}
+
+	private long getTimeToLive(String url) {
+		String path = getPath(url);
+		long timeToLive = defaultTimeToLive;
+		int longest = -1;
+		for (Map.Entry<String, Long> entry : timesToLive.entrySet()) {
+			if (entry.getKey().length() > longest && isWithin(path, entry.getKey())) {
+				longest = entry.getKey().length();
+				timeToLive = entry.getValue();
+			}
+		}
+		return timeToLive;
+	}
+
+	/**
+	 * Returns true if a path equals a prefix or is below it, matching whole path segments only.  Both must
+	 * have been normalized by {@link #getPath(String)}.
+	 */
+	private static boolean isWithin(String path, String prefix) {
+		return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+	}
+
+	private static String getPath(String url) {
+		int query = url.indexOf('?');
+		String path = query < 0 ? url : url.substring(0, query);
+		return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+	}
+
+	private static final class CacheKey {
+		private final String url;
+		private final Map<String, Object> options;
+		private final int hashCode;
+
+		CacheKey(String url, Map<String, ?> options) {
+			this.url = url;
+			this.options = options == null || options.isEmpty() ? Collections.<String, Object>emptyMap() :
+					Collections.unmodifiableMap(copy(options));
+			this.hashCode = 31 * url.hashCode() + this.options.hashCode();
+		}
+
+		/**
+		 * Copies nested maps and lists as well, such as the params and headers options, so that callers
+		 * modifying them afterwards do not change the key.
+		 */
+		private static <K> Map<K, Object> copy(Map<K, ?> map) {
+			Map<K, Object> copy = new LinkedHashMap<K, Object>();
+			for (Map.Entry<K, ?> entry : map.entrySet())
+				copy.put(entry.getKey(), copyValue(entry.getValue()));
+			return copy;
+		}
+
+		private static Object copyValue(Object value) {
+			if (value instanceof Map)
+				return Collections.unmodifiableMap(copy((Map<?, ?>)value));
+			if (value instanceof List) {
+				List<Object> copy = new ArrayList<Object>(((List<?>)value).size());
+				for (Object element : (List<?>)value)
+					copy.add(copyValue(element));
+				return Collections.unmodifiableList(copy);
+			}
+			return value;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof CacheKey))
+				return false;
+			CacheKey other = (CacheKey)o;
+			return hashCode == other.hashCode && url.equals(other.url) && options.equals(other.options);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * A request to the underlying service in progress, which requests for the same key may wait for.
+	 */
+	private static final class Load {
+		private final CompletableFuture<MoabRestResponse> response = new CompletableFuture<MoabRestResponse>();
+		/**
+		 * The generation when the request was started.
+		 */
+		private final long generation;
+
+		Load(long generation) {
+			this.generation = generation;
+		}
+	}
+
+	private static final class CacheEntry {
+		private final MoabRestResponse response;
+		private final long expires;
+		private final String etag;
+		private final String lastModified;
+
+		CacheEntry(MoabRestResponse response, long expires) {
+			this.response = response;
+			this.expires = expires;
+			this.etag = response.getResponse() == null ? null : response.getResponse().getHeader("ETag");
+			this.lastModified = response.getResponse() == null ? null : response.getResponse().getHeader("Last-Modified");
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+
+/**
+ * Package-private lookup table which finds values by a case-insensitive alias, giving the same results
+ * as checking each alias in registration order with {@link String#equalsIgnoreCase(String)}.  This is used
+ * by the report enumerations to parse strings without scanning their values.
+ * <p>
+ * Aliases are stored with ASCII letters lower-cased.  Since non-ASCII characters may be equal ignoring case to
+ * ASCII characters, strings containing them fall back to a scan of the aliases.
+ */
+final class CaseInsensitiveLookup<T> {
+	private final Map<String, T> values = new HashMap<String, T>();
+	private final List<String> aliases = new ArrayList<String>();
+	private final List<T> aliasValues = new ArrayList<T>();
+
+	/**
+	 * Registers an alias for a value.  If the alias is already registered the first value is kept.
+	 * @param alias The alias, ignored if null
+	 * @param value The value to return for the alias
+	 */
+	void put(String alias, T value) {
+		if (alias == null)
+			return;
+		aliases.add(alias);
+		aliasValues.add(value);
+		String key = toLowerAscii(alias);
+		if (key != null && !values.containsKey(key))
+			values.put(key, value);
+	}
+
+	/**
+	 * Finds the value registered for an alias, ignoring case.
+	 * @param alias The alias to look up
+	 * @return The value of the first matching alias or null if none match
+	 */
+	T get(String alias) {
+		if (alias == null)
+			return null;
+		String key = toLowerAscii(alias);
+		if (key != null)
+			return values.get(key);
+		for (int i = 0; i < aliases.size(); i++) {
+			if (aliases.get(i).equalsIgnoreCase(alias))
+				return aliasValues.get(i);
+		}
+		return null;
+	}
+
+	/**
+	 * Lower-cases the ASCII letters of a string.
+	 * @return The lower-cased string or null if it contains non-ASCII characters
+	 */
+	private static String toLowerAscii(String string) {
+		char[] chars = null;
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c >= 0x80)
+				return null;
+			if (c >= 'A' && c <= 'Z') {
+				if (chars == null)
+					chars = string.toCharArray();
+				chars[i] = (char)(c + ('a' - 'A'));
+			}
+		}
+		return chars == null ? string : new String(chars);
+	}
+}
@@ -1,6 +1,6 @@
 package com.adaptc.mws.plugins;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * The job resource management service consists of methods to retrieve
@@ -16,10 +16,87 @@ public interface IJobRMService {
 	 * @return A list of all job reports made by this plugin.
 	 */
 	public List<JobReport> list();
+	/**
+	 * Retrieves a single page of the job reports which were given originally by this plugin and that
+	 * have one of the specified states.  This may be used with {@link JobReportState#activeStates} or
+	 * {@link JobReportState#completedStates} to only walk the jobs of interest.
+	 * <pre>
+	 * def page = jobRMService.list(JobReportState.activeStates, 0, 500)
+	 * while(true) {
+	 *     // process page.reports
+	 *     if (!page.hasMore())
+	 *         break
+	 *     page = jobRMService.list(JobReportState.activeStates, page.nextOffset, 500)
+	 * }
+	 * </pre>
+	 * The default implementation filters and splits the result of {@link #list()}, walking every job report
+	 * for each page.  Implementations which can page through their cache natively should override this method.
+	 * @param states The states of the job reports to return, may be null or empty to return job reports of any state
+	 * @param offset The offset of the first matching job report to return
+	 * @param max The maximum number of job reports to return, must be greater than 0
+	 * @return A page of matching job reports made by this plugin.
+	 * @throws IllegalArgumentException If the offset is negative or max is not greater than 0
+	 */
+	public default ReportPage<JobReport> list(Collection<JobReportState> states, int offset, int max) {
+		if (offset < 0)
+			throw new IllegalArgumentException("Argument [offset] must not be negative");
+		if (max < 1)
+			throw new IllegalArgumentException("Argument [max] must be greater than 0");
+		Set<JobReportState> stateSet = states == null || states.isEmpty() ? null : EnumSet.copyOf(states);
+		List<JobReport> reports = new ArrayList<JobReport>(Math.min(max, 1024));
+		List<JobReport> jobReports = list();
+		if (jobReports == null)
+			return new ReportPage<JobReport>(reports, offset, false);
+		int matched = 0;
+		for (JobReport jobReport : jobReports) {
+			if (stateSet != null && !stateSet.contains(jobReport.getState()))
+				continue;
+			if (matched++ < offset)
+				continue;
+			if (reports.size() == max)
+				return new ReportPage<JobReport>(reports, offset, true);
+			reports.add(jobReport);
+		}
+		return new ReportPage<JobReport>(reports, offset, false);
+	}
+	/**
+	 * Retrieves the job reports which were given originally by this plugin and that have one of the
+	 * specified states in consecutive chunks of at most the specified size.
+	 * <pre>
+	 * jobRMService.listChunks(JobReportState.activeStates, 500).each { List&lt;JobReport&gt; chunk -&gt;
+	 *     // process chunk
+	 * }
+	 * </pre>
+	 * The default implementation calls {@link #list()} once, then filters and splits that list, so it does
+	 * not reduce memory use.  Implementations which can page through their cache may override this method.
+	 * @param states The states of the job reports to return, may be null or empty to return job reports of any state
+	 * @param chunkSize The maximum number of job reports in each chunk, must be greater than 0
+	 * @return An iterator of chunks of matching job reports made by this plugin.
+	 * @throws IllegalArgumentException If the chunk size is not greater than 0
+	 */
+	public default Iterator<List<JobReport>> listChunks(Collection<JobReportState> states, int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Argument [chunkSize] must be greater than 0");
+		List<JobReport> jobReports = list();
+		if (jobReports != null && states != null && !states.isEmpty()) {
+			Set<JobReportState> stateSet = EnumSet.copyOf(states);
+			List<JobReport> matching = new ArrayList<JobReport>();
+			for (JobReport jobReport : jobReports) {
+				if (stateSet.contains(jobReport.getState()))
+					matching.add(jobReport);
+			}
+			jobReports = matching;
+		}
+		return new ReportChunkIterator<JobReport>(jobReports, chunkSize);
+	}
 	/**
 	 * Saves a list of job reports in the cache while at the same time clearing out any and all job
 	 * reports made previously by the calling plugin.  In effect, this replaces all job reports
 	 * made previously.  These will be reported to Moab through the Cluster Query.
+	 * <p>
+	 * The reports are consolidated into the cache before this method returns, and implementations must not
+	 * refer to the reports or their collections afterwards.  The caller may therefore reuse the reports or
+	 * release them to a {@link ReportPool} once this method returns.
 	 * @param jobReports The list of job reports to save.
 	 */
 	public void save(List<JobReport> jobReports);
@@ -27,7 +104,28 @@ public interface IJobRMService {
 	 * Adds a list of job reports to the cache without clearing out any job reports.  This should be
 	 * used to make incremental updates to the reports.  These will be reported to Moab through the
 	 * Cluster Query.
+	 * <p>
+	 * The reports are consolidated into the cache before this method returns, and implementations must not
+	 * refer to the reports or their collections afterwards.  The caller may therefore reuse the reports or
+	 * release them to a {@link ReportPool} once this method returns.
 	 * @param jobReports The list of job reports to add.
 	 */
 	public void update(List<JobReport> jobReports);
+	/**
+	 * Adds only the changed properties of job reports to the cache, as computed by
+	 * {@link JobReportDelta#diff(JobReport, JobReport)}.  Empty deltas are not submitted at all.  This
+	 * should be used to make incremental updates to large numbers of jobs of which few properties change
+	 * between polls.
+	 * <p>
+	 * Since updates merge map entries, deltas with entries removed from map properties cannot be submitted
+	 * this way, see {@link JobReportDelta#isSparse()}.  The current reports must be saved using
+	 * {@link #save(List)} instead.
+	 * @param jobReportDeltas The list of job report deltas to add.
+	 * @throws IllegalArgumentException If any delta is not sparse
+	 */
+	public default void updateDeltas(List<JobReportDelta> jobReportDeltas) {
+		List<JobReport> jobReports = JobReportDelta.toReports(jobReportDeltas);
+		if (!jobReports.isEmpty())
+			update(jobReports);
+	}
 }
@@ -1,5 +1,6 @@
 package com.adaptc.mws.plugins;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.Map;
 import groovy.lang.Closure;
@@ -87,6 +88,35 @@ public interface IMoabRestService {
 	 * @return The response result
 	 */
 	MoabRestResponse get(Map<String, ?> options, String url, Closure<?> data);
+
+	/**
+	 * Shortcut for calling {@link #getResults(Map, String)} with
+	 * no options.
+	 * @param url The URL to call
+	 * @return A reader over the results
+	 */
+	default MoabRestResultsReader getResults(String url) {
+		return getResults(Collections.<String, Object>emptyMap(), url);
+	}
+	/**
+	 * Performs an internal HTTP GET operation for a collection URL, such as
+	 * /rest/jobs, and returns a reader over the elements of the results array
+	 * of the response.
+	 * <p>
+	 * The default implementation does not stream: it calls {@link #get(Map, String)},
+	 * which builds the whole JSON response in memory, and wraps it using
+	 * {@link MoabRestResultsReader#of(MoabRestResponse)}, so memory use is the same
+	 * as calling get.  Only implementations which override this method to read the
+	 * response body with
+	 * {@link MoabRestResultsReader#MoabRestResultsReader(MoabRestResponse, java.io.Reader)}
+	 * avoid holding the whole response at once.
+	 * @param options Map of options to use for the request
+	 * @param url The URL to call
+	 * @return A reader over the results, which should be closed once it is no longer needed
+	 */
+	default MoabRestResultsReader getResults(Map<String, ?> options, String url) {
+		return MoabRestResultsReader.of(get(options, url));
+	}
 	
 	/**
 	 * Shortcut for calling {@link #put(Map, String, Closure)} with 
@@ -1,5 +1,6 @@
 package com.adaptc.mws.plugins;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -16,10 +17,33 @@ public interface INodeRMService {
 	 * @return A list of all node reports made by this plugin.
 	 */
 	public List<NodeReport> list();
+	/**
+	 * Retrieves all node reports which were given originally by this plugin in consecutive chunks of
+	 * at most the specified size.  Each chunk is only produced when requested from the iterator, so the
+	 * consumer controls the pace at which reports are processed.
+	 * <pre>
+	 * nodeRMService.listChunks(500).each { List&lt;NodeReport&gt; chunk -&gt;
+	 *     // process chunk
+	 * }
+	 * </pre>
+	 * The default implementation calls {@link #list()} once and splits the fully materialized list into
+	 * views, so it does not reduce memory use.  Only implementations which override this method to page
+	 * through their cache avoid holding all node reports at once.
+	 * @param chunkSize The maximum number of node reports in each chunk, must be greater than 0
+	 * @return An iterator of chunks of node reports made by this plugin.
+	 * @throws IllegalArgumentException If the chunk size is not greater than 0
+	 */
+	public default Iterator<List<NodeReport>> listChunks(int chunkSize) {
+		return new ReportChunkIterator<NodeReport>(list(), chunkSize);
+	}
 	/**
 	 * Saves a list of node reports in the cache while at the same time clearing out any and all node
 	 * reports made previously by the calling plugin.  In effect, this replaces all node reports
 	 * made previously.  These will be reported to Moab through the Cluster Query.
+	 * <p>
+	 * The reports are consolidated into the cache before this method returns, and implementations must not
+	 * refer to the reports or their collections afterwards.  The caller may therefore reuse the reports or
+	 * release them to a {@link ReportPool} once this method returns.
 	 * @param nodeReports The list of node reports to save.
 	 */
 	public void save(List<NodeReport> nodeReports);
@@ -27,7 +51,28 @@ public interface INodeRMService {
 	 * Adds a list of node reports to the cache without clearing out any node reports.  This should be
 	 * used to make incremental updates to the reports.  These will be reported to Moab through the
 	 * Cluster Query.
+	 * <p>
+	 * The reports are consolidated into the cache before this method returns, and implementations must not
+	 * refer to the reports or their collections afterwards.  The caller may therefore reuse the reports or
+	 * release them to a {@link ReportPool} once this method returns.
 	 * @param nodeReports The list of node reports to add.
 	 */
 	public void update(List<NodeReport> nodeReports);
+	/**
+	 * Adds only the changed properties of node reports to the cache, as computed by
+	 * {@link NodeReportDelta#diff(NodeReport, NodeReport)}.  Empty deltas are not submitted at all.  This
+	 * should be used to make incremental updates to large numbers of nodes of which few properties change
+	 * between polls.
+	 * <p>
+	 * Since updates merge map entries, deltas with entries removed from map properties cannot be submitted
+	 * this way, see {@link NodeReportDelta#isSparse()}.  The current reports must be saved using
+	 * {@link #save(List)} instead.
+	 * @param nodeReportDeltas The list of node report deltas to add.
+	 * @throws IllegalArgumentException If any delta is not sparse
+	 */
+	public default void updateDeltas(List<NodeReportDelta> nodeReportDeltas) {
+		List<NodeReport> nodeReports = NodeReportDelta.toReports(nodeReportDeltas);
+		if (!nodeReports.isEmpty())
+			update(nodeReports);
+	}
 }
@@ -0,0 +1,14 @@
+package com.adaptc.mws.plugins;
+
+/**
+ * Implemented by objects which may be reset to their initial state and reused, such as reports held in a
+ * {@link ReportPool}.
+ */
+public interface IRecyclable {
+	/**
+	 * Resets the object to the state of a newly created instance.  Nested collections may be cleared in place
+	 * rather than reallocated, so this must only be called once no other objects refer to the object or
+	 * any of its collections.
+	 */
+	public void reset();
+}
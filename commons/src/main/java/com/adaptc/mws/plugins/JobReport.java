@@ -8,11 +8,18 @@ import java.util.*;
  * poll and the current poll), but can also represent all known information concerning a resource
  * (ie the first time poll is run).
  * <p>
+ * All dates are stored as milliseconds since the epoch.  The date getters and setters create and read
+ * {@link Date} instances, while the accessors ending in "Millis" use the stored values directly,
+ * with {@link ReportDateParser#NO_DATE} representing an unset date.  Since the date getters return a new
+ * date on each call, modifying a returned date does not change the report.  The "Millis" accessors are not
+ * named as bean getters and setters, so they are not picked up as properties when the report is introspected
+ * or converted to JSON.
+ * <p>
  * For more information on reporting resources, see the Plugin Reporting section in the
  * MWS documentation.
  * @author bsaville
  */
-public class JobReport {
+public class JobReport implements IRecyclable {
 	/**
 	 * The job's name.
 	 */
@@ -28,9 +35,9 @@ public class JobReport {
 	/**
 	 * The date that the report was made or for which the report is current.  This will be
 	 * set to the current date and time if not provided.  This may also be set as a string
-	 * which will use {@link PluginConstants#STANDARD_DATE_TIME_FORMATTER} to parse into a date.
+	 * which will use {@link ReportDateParser} to parse into a date.
 	 */
-	private Date timestamp;
+	private long timestamp = ReportDateParser.NO_DATE;
 	/**
 	 * If true, this report will be considered a "slave" report.  If all reports for an object are only "slave" reports,
 	 * MWS will not report the object to Moab Workload Manager.  Otherwise (if at least one report has this value set
@@ -56,11 +63,11 @@ public class JobReport {
 	/**
 	 * The date that the job completed.
 	 */
-	private Date completedDate;
+	private long completedDate = ReportDateParser.NO_DATE;
 	/**
 	 * The latest date that the job should be completed.
 	 */
-	private Date deadlineDate;
+	private long deadlineDate = ReportDateParser.NO_DATE;
 	/**
 	 * The job's environment variables.
 	 */
@@ -78,9 +85,9 @@ public class JobReport {
 	 */
 	private Integer completionCode;
 	/**
-	 * The job's flags.
+	 * The job's flags.  By default this is a {@link JobReportFlags} list, which contains each flag at most once.
 	 */
-	private List<JobReportFlag> flags = new ArrayList<JobReportFlag>();
+	private List<JobReportFlag> flags = new JobReportFlags();
 	/**
 	 * The job's group.
 	 */
@@ -120,7 +127,7 @@ public class JobReport {
 	/**
 	 * The date at which the job was submitted.
 	 */
-	private Date submitDate;
+	private long submitDate = ReportDateParser.NO_DATE;
 	/**
 	 * The identifier of the reservation requested for the job.
 	 */
@@ -128,11 +135,11 @@ public class JobReport {
 	/**
 	 * The job's earliest start date.
 	 */
-	private Date earliestStartDate;
+	private long earliestStartDate = ReportDateParser.NO_DATE;
 	/**
 	 * The job's actual start date.
 	 */
-	private Date startDate;
+	private long startDate = ReportDateParser.NO_DATE;
 	/**
 	 * The job's suspend duration.
 	 */
@@ -206,25 +213,35 @@ public class JobReport {
 	 * @see #timestamp
 	 */
 	public Date getTimestamp() {
-		return timestamp;
+		return timestamp == ReportDateParser.NO_DATE ? null : new Date(timestamp);
 	}
 	/**
 	 * @see #timestamp
 	 */
 	public void setTimestamp(Date timestamp) {
-		this.timestamp = timestamp;
+		this.timestamp = timestamp == null ? ReportDateParser.NO_DATE : timestamp.getTime();
 	}
 	/**
 	 * @see #timestamp
 	 */
 	public void setTimestamp(String timestamp) {
-		try {
-			this.timestamp = PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseDateTime(timestamp).toDate();
-		} catch(IllegalArgumentException e) {
-			this.timestamp = null;
-		} catch(NullPointerException e) {
-			this.timestamp = null;
-		}
+		this.timestamp = ReportDateParser.parseMillis(timestamp);
+	}
+	/**
+	 * Retrieves the value as milliseconds since the epoch without creating a date.
+	 * @return The milliseconds or {@link ReportDateParser#NO_DATE} if not set
+	 * @see #timestamp
+	 */
+	public long timestampMillis() {
+		return timestamp;
+	}
+	/**
+	 * Sets the value as milliseconds since the epoch.
+	 * @param timestamp The milliseconds or {@link ReportDateParser#NO_DATE} to unset the value
+	 * @see #timestamp
+	 */
+	public void timestampMillis(long timestamp) {
+		this.timestamp = timestamp;
 	}
 	/**
 	 * @see #slaveReport
@@ -248,7 +265,7 @@ public class JobReport {
 	 * @see #account
 	 */
 	public void setAccount(String account) {
-		this.account = account;
+		this.account = ReportStringPool.SHARED.intern(account);
 	}
 	/**
 	 * @see #commandLineArguments
@@ -278,49 +295,69 @@ public class JobReport {
 	 * @see #completedDate
 	 */
 	public Date getCompletedDate() {
-		return completedDate;
+		return completedDate == ReportDateParser.NO_DATE ? null : new Date(completedDate);
 	}
 	/**
 	 * @see #completedDate
 	 */
 	public void setCompletedDate(Date completedDate) {
-		this.completedDate = completedDate;
+		this.completedDate = completedDate == null ? ReportDateParser.NO_DATE : completedDate.getTime();
 	}
 	/**
 	 * @see #completedDate
 	 */
 	public void setCompletedDate(String completionDate) {
-		try {
-			this.completedDate = PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseDateTime(completionDate).toDate();
-		} catch(IllegalArgumentException e) {
-			this.completedDate = null;
-		} catch(NullPointerException e) {
-			this.completedDate = null;
-		}
+		this.completedDate = ReportDateParser.parseMillis(completionDate);
+	}
+	/**
+	 * Retrieves the value as milliseconds since the epoch without creating a date.
+	 * @return The milliseconds or {@link ReportDateParser#NO_DATE} if not set
+	 * @see #completedDate
+	 */
+	public long completedDateMillis() {
+		return completedDate;
+	}
+	/**
+	 * Sets the value as milliseconds since the epoch.
+	 * @param completedDate The milliseconds or {@link ReportDateParser#NO_DATE} to unset the value
+	 * @see #completedDate
+	 */
+	public void completedDateMillis(long completedDate) {
+		this.completedDate = completedDate;
 	}
 	/**
 	 * @see #deadlineDate
 	 */
 	public Date getDeadlineDate() {
-		return deadlineDate;
+		return deadlineDate == ReportDateParser.NO_DATE ? null : new Date(deadlineDate);
 	}
 	/**
 	 * @see #deadlineDate
 	 */
 	public void setDeadlineDate(Date deadlineDate) {
-		this.deadlineDate = deadlineDate;
+		this.deadlineDate = deadlineDate == null ? ReportDateParser.NO_DATE : deadlineDate.getTime();
 	}
 	/**
 	 * @see #deadlineDate
 	 */
 	public void setDeadlineDate(String latestCompletedDateRequested) {
-		try {
-			this.deadlineDate = PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseDateTime(latestCompletedDateRequested).toDate();
-		} catch(IllegalArgumentException e) {
-			this.deadlineDate = null;
-		} catch(NullPointerException e) {
-			this.deadlineDate = null;
-		}
+		this.deadlineDate = ReportDateParser.parseMillis(latestCompletedDateRequested);
+	}
+	/**
+	 * Retrieves the value as milliseconds since the epoch without creating a date.
+	 * @return The milliseconds or {@link ReportDateParser#NO_DATE} if not set
+	 * @see #deadlineDate
+	 */
+	public long deadlineDateMillis() {
+		return deadlineDate;
+	}
+	/**
+	 * Sets the value as milliseconds since the epoch.
+	 * @param deadlineDate The milliseconds or {@link ReportDateParser#NO_DATE} to unset the value
+	 * @see #deadlineDate
+	 */
+	public void deadlineDateMillis(long deadlineDate) {
+		this.deadlineDate = deadlineDate;
 	}
 	/**
 	 * @see #environmentVariables
@@ -377,10 +414,12 @@ public class JobReport {
 		return flags;
 	}
 	/**
+	 * Sets the job's flags.  Unless null or already a {@link JobReportFlags} instance, the flags are copied
+	 * into a new {@link JobReportFlags} list, removing any duplicates.
 	 * @see #flags
 	 */
 	public void setFlags(List<JobReportFlag> flags) {
-		this.flags = flags;
+		this.flags = flags == null || flags instanceof JobReportFlags ? flags : new JobReportFlags(flags);
 	}
 	/**
 	 * @see #group
@@ -392,7 +431,7 @@ public class JobReport {
 	 * @see #group
 	 */
 	public void setGroup(String group) {
-		this.group = group;
+		this.group = ReportStringPool.SHARED.intern(group);
 	}
 	/**
 	 * @see #nodesRequested
@@ -490,31 +529,41 @@ public class JobReport {
 	 * @see #qos
 	 */
 	public void setQos(String qos) {
-		this.qos = qos;
+		this.qos = ReportStringPool.SHARED.intern(qos);
 	}
 	/**
 	 * @see #submitDate
 	 */
 	public Date getSubmitDate() {
-		return submitDate;
+		return submitDate == ReportDateParser.NO_DATE ? null : new Date(submitDate);
 	}
 	/**
 	 * @see #submitDate
 	 */
 	public void setSubmitDate(Date submitDate) {
-		this.submitDate = submitDate;
+		this.submitDate = submitDate == null ? ReportDateParser.NO_DATE : submitDate.getTime();
 	}
 	/**
 	 * @see #submitDate
 	 */
 	public void setSubmitDate(String submitDate) {
-		try {
-			this.submitDate = PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseDateTime(submitDate).toDate();
-		} catch(IllegalArgumentException e) {
-			this.submitDate = null;
-		} catch(NullPointerException e) {
-			this.submitDate = null;
-		}
+		this.submitDate = ReportDateParser.parseMillis(submitDate);
+	}
+	/**
+	 * Retrieves the value as milliseconds since the epoch without creating a date.
+	 * @return The milliseconds or {@link ReportDateParser#NO_DATE} if not set
+	 * @see #submitDate
+	 */
+	public long submitDateMillis() {
+		return submitDate;
+	}
+	/**
+	 * Sets the value as milliseconds since the epoch.
+	 * @param submitDate The milliseconds or {@link ReportDateParser#NO_DATE} to unset the value
+	 * @see #submitDate
+	 */
+	public void submitDateMillis(long submitDate) {
+		this.submitDate = submitDate;
 	}
 	/**
 	 * @see #reservationRequested
@@ -532,49 +581,69 @@ public class JobReport {
 	 * @see #earliestStartDate
 	 */
 	public Date getEarliestStartDate() {
-		return earliestStartDate;
+		return earliestStartDate == ReportDateParser.NO_DATE ? null : new Date(earliestStartDate);
 	}
 	/**
 	 * @see #earliestStartDate
 	 */
 	public void setEarliestStartDate(Date earliestStartDate) {
-		this.earliestStartDate = earliestStartDate;
+		this.earliestStartDate = earliestStartDate == null ? ReportDateParser.NO_DATE : earliestStartDate.getTime();
 	}
 	/**
 	 * @see #earliestStartDate
 	 */
 	public void setEarliestStartDate(String earliestStartDate) {
-		try {
-			this.earliestStartDate = PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseDateTime(earliestStartDate).toDate();
-		} catch(IllegalArgumentException e) {
-			this.earliestStartDate = null;
-		} catch(NullPointerException e) {
-			this.earliestStartDate = null;
-		}
+		this.earliestStartDate = ReportDateParser.parseMillis(earliestStartDate);
+	}
+	/**
+	 * Retrieves the value as milliseconds since the epoch without creating a date.
+	 * @return The milliseconds or {@link ReportDateParser#NO_DATE} if not set
+	 * @see #earliestStartDate
+	 */
+	public long earliestStartDateMillis() {
+		return earliestStartDate;
+	}
+	/**
+	 * Sets the value as milliseconds since the epoch.
+	 * @param earliestStartDate The milliseconds or {@link ReportDateParser#NO_DATE} to unset the value
+	 * @see #earliestStartDate
+	 */
+	public void earliestStartDateMillis(long earliestStartDate) {
+		this.earliestStartDate = earliestStartDate;
 	}
 	/**
 	 * @see #startDate
 	 */
 	public Date getStartDate() {
-		return startDate;
+		return startDate == ReportDateParser.NO_DATE ? null : new Date(startDate);
 	}
 	/**
 	 * @see #startDate
 	 */
 	public void setStartDate(Date startDate) {
-		this.startDate = startDate;
+		this.startDate = startDate == null ? ReportDateParser.NO_DATE : startDate.getTime();
 	}
 	/**
 	 * @see #startDate
 	 */
 	public void setStartDate(String startDate) {
-		try {
-			this.startDate = PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseDateTime(startDate).toDate();
-		} catch(IllegalArgumentException e) {
-			this.startDate = null;
-		} catch(NullPointerException e) {
-			this.startDate = null;
-		}
+		this.startDate = ReportDateParser.parseMillis(startDate);
+	}
+	/**
+	 * Retrieves the value as milliseconds since the epoch without creating a date.
+	 * @return The milliseconds or {@link ReportDateParser#NO_DATE} if not set
+	 * @see #startDate
+	 */
+	public long startDateMillis() {
+		return startDate;
+	}
+	/**
+	 * Sets the value as milliseconds since the epoch.
+	 * @param startDate The milliseconds or {@link ReportDateParser#NO_DATE} to unset the value
+	 * @see #startDate
+	 */
+	public void startDateMillis(long startDate) {
+		this.startDate = startDate;
 	}
 	/**
 	 * @see #durationSuspended
@@ -598,7 +667,7 @@ public class JobReport {
 	 * @see #user
 	 */
 	public void setUser(String user) {
-		this.user = user;
+		this.user = ReportStringPool.SHARED.intern(user);
 	}
 	/**
 	 * @see #duration
@@ -641,6 +710,63 @@ public class JobReport {
 		this.precedence = precedence;
 	}
 
+	/**
+	 * Resets all properties to their initial values so that the report may be reused, such as by a
+	 * {@link ReportPool}.  The environment variables, flags, requirements, and lists are cleared in place
+	 * rather than reallocated, so this must only be called once no other objects refer to the report or its
+	 * collections.  Reports passed to the RM services may be reset once the call to the service returns.
+	 */
+	public void reset() {
+		name = null;
+		customName = null;
+		state = null;
+		timestamp = ReportDateParser.NO_DATE;
+		slaveReport = false;
+		account = null;
+		commandLineArguments = null;
+		extension = null;
+		completedDate = ReportDateParser.NO_DATE;
+		deadlineDate = ReportDateParser.NO_DATE;
+		if (environmentVariables == null)
+			environmentVariables = new HashMap<String, String>();
+		else
+			environmentVariables.clear();
+		standardErrorFilePath = null;
+		commandFile = null;
+		completionCode = null;
+		if (flags == null)
+			flags = new JobReportFlags();
+		else
+			flags.clear();
+		group = null;
+		if (nodesRequested == null)
+			nodesRequested = new ArrayList<String>();
+		else
+			nodesRequested.clear();
+		standardInputFilePath = null;
+		initialWorkingDirectory = null;
+		if (requirements == null)
+			requirements = new JobReportRequirementsList();
+		else
+			requirements.clear();
+		standardOutputFilePath = null;
+		if (partitionAccessList == null)
+			partitionAccessList = new ArrayList<String>();
+		else
+			partitionAccessList.clear();
+		systemPriority = null;
+		qos = null;
+		submitDate = ReportDateParser.NO_DATE;
+		reservationRequested = null;
+		earliestStartDate = ReportDateParser.NO_DATE;
+		startDate = ReportDateParser.NO_DATE;
+		durationSuspended = null;
+		user = null;
+		duration = null;
+		pluginId = null;
+		precedence = null;
+	}
+
 	/**
 	 * Creates a new, empty job report.
 	 */
@@ -0,0 +1,531 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * A columnar representation of many job reports, which stores each property in its own array instead of
+ * in separate report objects.  This makes scans over all jobs, such as computing usage per user or counting
+ * jobs by state, read contiguous memory.
+ * <p>
+ * The batch holds the following properties of each job:
+ * <ul>
+ *     <li>The name and state.</li>
+ *     <li>The system priority, duration, suspended duration, and completion code, with {@link #NO_VALUE}
+ *     for values which are not set.</li>
+ *     <li>The submit, start, earliest start, completed, and deadline dates as milliseconds since the epoch,
+ *     with {@link ReportDateParser#NO_DATE} (equal to {@link #NO_VALUE}) for dates which are not set.</li>
+ *     <li>The flags, as in {@link JobReportFlags#toBits()}.</li>
+ *     <li>The credentials (user, group, account, and QoS), each encoded as an index into a dictionary of the
+ *     distinct values of the batch.</li>
+ * </ul>
+ * All other properties are not kept, so converting reports to a batch and back only retains the above.
+ * <pre>
+ * JobReportBatch batch = JobReportBatch.of(jobRMService.list())
+ * Map&lt;String, Long&gt; usage = batch.filterByState(JobReportState.RUNNING).sumDurationBy(JobReportBatch.Credential.USER)
+ * </pre>
+ * This class is not thread-safe.
+ */
+public class JobReportBatch {
+	/**
+	 * The value of numbers and dates which are not set.
+	 */
+	public static final long NO_VALUE = Long.MIN_VALUE;
+
+	/**
+	 * The credentials of a job, which are stored using dictionaries.
+	 */
+	public enum Credential {
+		USER,
+		GROUP,
+		ACCOUNT,
+		QOS
+	}
+
+	private static final JobReportState[] STATES = JobReportState.values();
+	private static final int CREDENTIAL_COUNT = Credential.values().length;
+
+	private int size = 0;
+	private String[] names;
+	/**
+	 * The state ordinals, or -1 for null states.
+	 */
+	private byte[] states;
+	private long[] systemPriorities;
+	private long[] durations;
+	private long[] durationsSuspended;
+	private long[] completionCodes;
+	private long[] submitDates;
+	private long[] startDates;
+	private long[] earliestStartDates;
+	private long[] completedDates;
+	private long[] deadlineDates;
+	private long[] flags;
+	/**
+	 * The dictionary codes of each credential, or -1 for null values.
+	 */
+	private final int[][] credentials = new int[CREDENTIAL_COUNT][];
+	private final StringDictionary[] dictionaries = new StringDictionary[CREDENTIAL_COUNT];
+
+	/**
+	 * Creates an empty batch.
+	 * @param capacity The number of jobs to allocate space for
+	 * @throws IllegalArgumentException If the capacity is negative
+	 */
+	public JobReportBatch(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Argument [capacity] must not be negative");
+		for (int c = 0; c < CREDENTIAL_COUNT; c++)
+			dictionaries[c] = new StringDictionary();
+		allocate(capacity);
+	}
+
+	/**
+	 * Creates a batch containing the given reports.
+	 * @param reports The reports to add
+	 * @return A new batch
+	 */
+	public static JobReportBatch of(List<JobReport> reports) {
+		JobReportBatch batch = new JobReportBatch(reports.size());
+		for (JobReport report : reports)
+			batch.add(report);
+		return batch;
+	}
+
+	/**
+	 * Adds the columnar properties of a report to the end of the batch.
+	 * @param report The report to add
+	 */
+	public void add(JobReport report) {
+		int index = nextIndex();
+		names[index] = report.getName();
+		states[index] = report.getState() == null ? -1 : (byte)report.getState().ordinal();
+		systemPriorities[index] = toValue(report.getSystemPriority());
+		durations[index] = toValue(report.getDuration());
+		durationsSuspended[index] = toValue(report.getDurationSuspended());
+		completionCodes[index] = toValue(report.getCompletionCode());
+		submitDates[index] = report.submitDateMillis();
+		startDates[index] = report.startDateMillis();
+		earliestStartDates[index] = report.earliestStartDateMillis();
+		completedDates[index] = report.completedDateMillis();
+		deadlineDates[index] = report.deadlineDateMillis();
+		flags[index] = toBits(report.getFlags());
+		setCredential(Credential.USER, index, report.getUser());
+		setCredential(Credential.GROUP, index, report.getGroup());
+		setCredential(Credential.ACCOUNT, index, report.getAccount());
+		setCredential(Credential.QOS, index, report.getQos());
+	}
+
+	/**
+	 * Creates a job report from the columnar properties of a job.
+	 * @param index The index of the job
+	 * @return A new report
+	 */
+	public JobReport toReport(int index) {
+		checkIndex(index);
+		JobReport report = new JobReport(names[index]);
+		report.setState(getState(index));
+		report.setSystemPriority(toLong(systemPriorities[index]));
+		report.setDuration(toLong(durations[index]));
+		report.setDurationSuspended(toLong(durationsSuspended[index]));
+		report.setCompletionCode(completionCodes[index] == NO_VALUE ? null : (int)completionCodes[index]);
+		report.submitDateMillis(submitDates[index]);
+		report.startDateMillis(startDates[index]);
+		report.earliestStartDateMillis(earliestStartDates[index]);
+		report.completedDateMillis(completedDates[index]);
+		report.deadlineDateMillis(deadlineDates[index]);
+		report.setFlags(JobReportFlags.fromBits(flags[index]));
+		report.setUser(getCredential(Credential.USER, index));
+		report.setGroup(getCredential(Credential.GROUP, index));
+		report.setAccount(getCredential(Credential.ACCOUNT, index));
+		report.setQos(getCredential(Credential.QOS, index));
+		return report;
+	}
+
+	/**
+	 * Creates job reports from all jobs in the batch.
+	 * @return New reports, in batch order
+	 */
+	public List<JobReport> toReports() {
+		List<JobReport> reports = new ArrayList<JobReport>(size);
+		for (int i = 0; i < size; i++)
+			reports.add(toReport(i));
+		return reports;
+	}
+
+	/**
+	 * Returns the number of jobs in the batch.
+	 * @return The number of jobs
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @see JobReport#getName()
+	 */
+	public String getName(int index) {
+		checkIndex(index);
+		return names[index];
+	}
+	/**
+	 * @see JobReport#getState()
+	 */
+	public JobReportState getState(int index) {
+		checkIndex(index);
+		return states[index] < 0 ? null : STATES[states[index]];
+	}
+	/**
+	 * @return The system priority or {@link #NO_VALUE} if not set
+	 * @see JobReport#getSystemPriority()
+	 */
+	public long getSystemPriority(int index) {
+		checkIndex(index);
+		return systemPriorities[index];
+	}
+	/**
+	 * @return The duration or {@link #NO_VALUE} if not set
+	 * @see JobReport#getDuration()
+	 */
+	public long getDuration(int index) {
+		checkIndex(index);
+		return durations[index];
+	}
+	/**
+	 * @return The suspended duration or {@link #NO_VALUE} if not set
+	 * @see JobReport#getDurationSuspended()
+	 */
+	public long getDurationSuspended(int index) {
+		checkIndex(index);
+		return durationsSuspended[index];
+	}
+	/**
+	 * @return The completion code or {@link #NO_VALUE} if not set
+	 * @see JobReport#getCompletionCode()
+	 */
+	public long getCompletionCode(int index) {
+		checkIndex(index);
+		return completionCodes[index];
+	}
+	/**
+	 * @see JobReport#submitDateMillis()
+	 */
+	public long getSubmitDateMillis(int index) {
+		checkIndex(index);
+		return submitDates[index];
+	}
+	/**
+	 * @see JobReport#startDateMillis()
+	 */
+	public long getStartDateMillis(int index) {
+		checkIndex(index);
+		return startDates[index];
+	}
+	/**
+	 * @see JobReport#earliestStartDateMillis()
+	 */
+	public long getEarliestStartDateMillis(int index) {
+		checkIndex(index);
+		return earliestStartDates[index];
+	}
+	/**
+	 * @see JobReport#completedDateMillis()
+	 */
+	public long getCompletedDateMillis(int index) {
+		checkIndex(index);
+		return completedDates[index];
+	}
+	/**
+	 * @see JobReport#deadlineDateMillis()
+	 */
+	public long getDeadlineDateMillis(int index) {
+		checkIndex(index);
+		return deadlineDates[index];
+	}
+	/**
+	 * Returns the flags of a job in the form of {@link JobReportFlags#toBits()}.
+	 * @param index The index of the job
+	 * @return The flag bits
+	 */
+	public long getFlagBits(int index) {
+		checkIndex(index);
+		return flags[index];
+	}
+	/**
+	 * Returns true if a job has a flag.
+	 * @param index The index of the job
+	 * @param flag The flag
+	 * @return True if the job has the flag
+	 */
+	public boolean hasFlag(int index, JobReportFlag flag) {
+		checkIndex(index);
+		return (flags[index] & 1L << flag.ordinal()) != 0;
+	}
+	/**
+	 * Retrieves a credential of a job.
+	 * @param credential The credential
+	 * @param index The index of the job
+	 * @return The value of the credential, may be null
+	 */
+	public String getCredential(Credential credential, int index) {
+		checkIndex(index);
+		return dictionaries[credential.ordinal()].value(credentials[credential.ordinal()][index]);
+	}
+	/**
+	 * Returns the distinct values of a credential in the batch, in the order they were first added.
+	 * @param credential The credential
+	 * @return The distinct non-null values
+	 */
+	public List<String> getCredentialValues(Credential credential) {
+		return Collections.unmodifiableList(dictionaries[credential.ordinal()].values);
+	}
+
+	/**
+	 * Counts the jobs in each state.
+	 * @return The number of jobs in each state, indexed by {@link JobReportState#ordinal()}
+	 */
+	public int[] countStates() {
+		int[] counts = new int[STATES.length];
+		byte[] column = states;
+		for (int i = 0; i < size; i++) {
+			if (column[i] >= 0)
+				counts[column[i]]++;
+		}
+		return counts;
+	}
+
+	/**
+	 * Counts the jobs which have a flag.
+	 * @param flag The flag
+	 * @return The number of jobs with the flag
+	 */
+	public int countWithFlag(JobReportFlag flag) {
+		long bit = 1L << flag.ordinal();
+		long[] column = flags;
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if ((column[i] & bit) != 0)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Sums the durations of all jobs, ignoring jobs without a duration.
+	 * @return The total duration
+	 */
+	public long sumDuration() {
+		long[] column = durations;
+		long sum = 0;
+		for (int i = 0; i < size; i++) {
+			if (column[i] != NO_VALUE)
+				sum += column[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Counts the jobs for each value of a credential, ignoring jobs without a value.
+	 * @param credential The credential to group by
+	 * @return The number of jobs for each value, in the order of {@link #getCredentialValues(Credential)}
+	 */
+	public Map<String, Integer> countBy(Credential credential) {
+		int c = credential.ordinal();
+		int[] column = credentials[c];
+		int[] counts = new int[dictionaries[c].size()];
+		for (int i = 0; i < size; i++) {
+			if (column[i] >= 0)
+				counts[column[i]]++;
+		}
+		Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+		for (int code = 0; code < counts.length; code++) {
+			if (counts[code] > 0)
+				result.put(dictionaries[c].value(code), counts[code]);
+		}
+		return result;
+	}
+
+	/**
+	 * Sums the durations of the jobs for each value of a credential, ignoring jobs without a value or duration.
+	 * @param credential The credential to group by
+	 * @return The total duration for each value, in the order of {@link #getCredentialValues(Credential)}
+	 */
+	public Map<String, Long> sumDurationBy(Credential credential) {
+		int c = credential.ordinal();
+		int[] column = credentials[c];
+		long[] values = durations;
+		long[] sums = new long[dictionaries[c].size()];
+		boolean[] present = new boolean[sums.length];
+		for (int i = 0; i < size; i++) {
+			int code = column[i];
+			if (code >= 0 && values[i] != NO_VALUE) {
+				sums[code] += values[i];
+				present[code] = true;
+			}
+		}
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		for (int code = 0; code < sums.length; code++) {
+			if (present[code])
+				result.put(dictionaries[c].value(code), sums[code]);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a new batch containing the jobs for which the predicate is true.
+	 * @param predicate Tests the index of each job
+	 * @return A new batch
+	 */
+	public JobReportBatch filter(IntPredicate predicate) {
+		JobReportBatch batch = new JobReportBatch(0);
+		for (int i = 0; i < size; i++) {
+			if (predicate.test(i))
+				batch.copy(this, i);
+		}
+		return batch;
+	}
+
+	/**
+	 * Creates a new batch containing the jobs in any of the given states.
+	 * @param states The states to include
+	 * @return A new batch
+	 */
+	public JobReportBatch filterByState(JobReportState... states) {
+		final boolean[] included = new boolean[STATES.length];
+		for (JobReportState state : states)
+			included[state.ordinal()] = true;
+		final byte[] column = this.states;
+		return filter(i -> column[i] >= 0 && included[column[i]]);
+	}
+
+	/**
+	 * Creates a new batch containing the jobs which have a flag.
+	 * @param flag The flag
+	 * @return A new batch
+	 */
+	public JobReportBatch filterByFlag(JobReportFlag flag) {
+		final long bit = 1L << flag.ordinal();
+		final long[] column = flags;
+		return filter(i -> (column[i] & bit) != 0);
+	}
+
+	/**
+	 * Creates a new batch containing the jobs with the given value of a credential.
+	 * @param credential The credential
+	 * @param value The value, may be null to include jobs without a value
+	 * @return A new batch
+	 */
+	public JobReportBatch filterBy(Credential credential, String value) {
+		final int[] column = credentials[credential.ordinal()];
+		final int code = value == null ? -1 : dictionaries[credential.ordinal()].find(value);
+		if (value != null && code < 0)
+			return new JobReportBatch(0);
+		return filter(i -> column[i] == code);
+	}
+
+	private void setCredential(Credential credential, int index, String value) {
+		credentials[credential.ordinal()][index] = value == null ? -1 : dictionaries[credential.ordinal()].code(value);
+	}
+
+	private void copy(JobReportBatch source, int sourceIndex) {
+		int index = nextIndex();
+		names[index] = source.names[sourceIndex];
+		states[index] = source.states[sourceIndex];
+		systemPriorities[index] = source.systemPriorities[sourceIndex];
+		durations[index] = source.durations[sourceIndex];
+		durationsSuspended[index] = source.durationsSuspended[sourceIndex];
+		completionCodes[index] = source.completionCodes[sourceIndex];
+		submitDates[index] = source.submitDates[sourceIndex];
+		startDates[index] = source.startDates[sourceIndex];
+		earliestStartDates[index] = source.earliestStartDates[sourceIndex];
+		completedDates[index] = source.completedDates[sourceIndex];
+		deadlineDates[index] = source.deadlineDates[sourceIndex];
+		flags[index] = source.flags[sourceIndex];
+		for (Credential credential : Credential.values())
+			setCredential(credential, index, source.getCredential(credential, sourceIndex));
+	}
+
+	private int nextIndex() {
+		if (size == names.length)
+			allocate(Math.max(16, size * 2));
+		return size++;
+	}
+
+	private void allocate(int capacity) {
+		names = names == null ? new String[capacity] : Arrays.copyOf(names, capacity);
+		states = states == null ? new byte[capacity] : Arrays.copyOf(states, capacity);
+		systemPriorities = grow(systemPriorities, capacity);
+		durations = grow(durations, capacity);
+		durationsSuspended = grow(durationsSuspended, capacity);
+		completionCodes = grow(completionCodes, capacity);
+		submitDates = grow(submitDates, capacity);
+		startDates = grow(startDates, capacity);
+		earliestStartDates = grow(earliestStartDates, capacity);
+		completedDates = grow(completedDates, capacity);
+		deadlineDates = grow(deadlineDates, capacity);
+		flags = grow(flags, capacity);
+		for (int c = 0; c < CREDENTIAL_COUNT; c++)
+			credentials[c] = credentials[c] == null ? new int[capacity] : Arrays.copyOf(credentials[c], capacity);
+	}
+
+	private static long[] grow(long[] column, int capacity) {
+		return column == null ? new long[capacity] : Arrays.copyOf(column, capacity);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+	}
+
+	private static long toValue(Number number) {
+		return number == null ? NO_VALUE : number.longValue();
+	}
+
+	private static Long toLong(long value) {
+		return value == NO_VALUE ? null : value;
+	}
+
+	private static long toBits(List<JobReportFlag> flags) {
+		if (flags instanceof JobReportFlags)
+			return ((JobReportFlags)flags).toBits();
+		long bits = 0;
+		if (flags != null) {
+			for (JobReportFlag flag : flags) {
+				if (flag != null)
+					bits |= 1L << flag.ordinal();
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Assigns consecutive codes to distinct strings.
+	 */
+	private static final class StringDictionary {
+		private final List<String> values = new ArrayList<String>();
+		private final Map<String, Integer> codes = new HashMap<String, Integer>();
+
+		int code(String value) {
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = values.size();
+				values.add(value);
+				codes.put(value, code);
+			}
+			return code;
+		}
+
+		int find(String value) {
+			Integer code = codes.get(value);
+			return code == null ? -1 : code;
+		}
+
+		String value(int code) {
+			return code < 0 ? null : values.get(code);
+		}
+
+		int size() {
+			return values.size();
+		}
+	}
+}
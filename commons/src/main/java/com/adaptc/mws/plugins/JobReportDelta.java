@@ -0,0 +1,221 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+
+/**
+ * Represents the field-level difference between two {@link JobReport} instances for the same job.
+ * Since a job report is only required to contain the changed properties of a job, the difference is
+ * itself represented as a sparse job report (see {@link #getReport()}) containing only the properties
+ * that changed, which may be submitted using {@link IJobRMService#updateDeltas(List)}.
+ * <p>
+ * The following rules are used when computing a delta:
+ * <ul>
+ *     <li>The name, timestamp, and slave report flag are always copied from the current report.</li>
+ *     <li>The plugin ID and precedence are ignored since they are overridden by the RM services.</li>
+ *     <li>The environment variables are compared entry by entry and only new or modified entries are
+ *     included.  If any entry was removed, all current entries are included and the delta is not sparse.</li>
+ *     <li>The flags, requested nodes, requirements, and partition access list are compared as a whole and
+ *     included in full if changed.</li>
+ *     <li>All other properties are included only if changed.</li>
+ * </ul>
+ * Values in the sparse report are shared with the current report and are not copied.
+ * <p>
+ * Since updates merge map entries into the cached report, removing an entry from a map property cannot be
+ * expressed by a sparse report.  Such deltas are not sparse (see {@link #isSparse()}), and the current reports
+ * must be submitted using {@link IJobRMService#save(List)} instead.
+ * <pre>
+ * def deltas = JobReportDelta.diff(previousReports, currentReports)
+ * if (deltas.every { it.sparse })
+ *     jobRMService.updateDeltas(deltas)
+ * else
+ *     jobRMService.save(currentReports)
+ * </pre>
+ */
+public class JobReportDelta {
+	/**
+	 * The sparse job report containing only the changed properties.
+	 */
+	private final JobReport report;
+	/**
+	 * The names of the job report properties that changed, such as "state" or "duration".
+	 */
+	private final Set<String> changedProperties = new LinkedHashSet<String>();
+	/**
+	 * The names of the map properties of the job report from which entries were removed, such as "environmentVariables".
+	 */
+	private final Set<String> removedProperties = new LinkedHashSet<String>();
+
+	private JobReportDelta(JobReport report) {
+		this.report = report;
+	}
+
+	/**
+	 * @see JobReport#getName()
+	 */
+	public String getName() {
+		return report.getName();
+	}
+	/**
+	 * @see #report
+	 */
+	public JobReport getReport() {
+		return report;
+	}
+	/**
+	 * @see #changedProperties
+	 */
+	public Set<String> getChangedProperties() {
+		return Collections.unmodifiableSet(changedProperties);
+	}
+	/**
+	 * Returns true if the specified job report property changed.
+	 * @param property The name of the property, such as "state"
+	 * @return True if the property changed
+	 */
+	public boolean isChanged(String property) {
+		return changedProperties.contains(property);
+	}
+	/**
+	 * Returns true if no properties changed, meaning that the delta does not need to be submitted.
+	 * @return True if nothing changed
+	 */
+	public boolean isEmpty() {
+		return changedProperties.isEmpty();
+	}
+	/**
+	 * @see #removedProperties
+	 */
+	public Set<String> getRemovedProperties() {
+		return Collections.unmodifiableSet(removedProperties);
+	}
+	/**
+	 * Returns true if the changes may be submitted as a sparse report using an update, which is the case unless
+	 * entries were removed from a map property.
+	 * @return True if no entries were removed
+	 */
+	public boolean isSparse() {
+		return removedProperties.isEmpty();
+	}
+
+	/**
+	 * Computes the difference between two reports for the same job.
+	 * @param previous The previously submitted report, may be null to treat every property of the current report as changed
+	 * @param current The current report
+	 * @return The difference between the reports, never null
+	 * @throws IllegalArgumentException If the current report is null or the names of the reports do not match
+	 */
+	public static JobReportDelta diff(JobReport previous, JobReport current) {
+		if (current == null)
+			throw new IllegalArgumentException("Argument [current] must not be null");
+		if (previous == null)
+			previous = new JobReport(current.getName());
+		else if (previous.getName() == null ? current.getName() != null : !previous.getName().equals(current.getName()))
+			throw new IllegalArgumentException("Argument [previous] is not a report for job "+current.getName());
+
+		JobReport report = new JobReport(current.getName());
+		report.timestampMillis(current.timestampMillis());
+		report.setSlaveReport(current.getSlaveReport());
+		JobReportDelta delta = new JobReportDelta(report);
+		Set<String> changed = delta.changedProperties;
+
+		if (ReportDiffs.compare(changed, "customName", previous.getCustomName(), current.getCustomName()))
+			report.setCustomName(current.getCustomName());
+		if (ReportDiffs.compare(changed, "state", previous.getState(), current.getState()))
+			report.setState(current.getState());
+		if (ReportDiffs.compare(changed, "account", previous.getAccount(), current.getAccount()))
+			report.setAccount(current.getAccount());
+		if (ReportDiffs.compare(changed, "commandLineArguments", previous.getCommandLineArguments(), current.getCommandLineArguments()))
+			report.setCommandLineArguments(current.getCommandLineArguments());
+		if (ReportDiffs.compare(changed, "extension", previous.getExtension(), current.getExtension()))
+			report.setExtension(current.getExtension());
+		if (ReportDiffs.compare(changed, "completedDate", previous.completedDateMillis(), current.completedDateMillis()))
+			report.completedDateMillis(current.completedDateMillis());
+		if (ReportDiffs.compare(changed, "deadlineDate", previous.deadlineDateMillis(), current.deadlineDateMillis()))
+			report.deadlineDateMillis(current.deadlineDateMillis());
+		if (ReportDiffs.compare(changed, "standardErrorFilePath", previous.getStandardErrorFilePath(), current.getStandardErrorFilePath()))
+			report.setStandardErrorFilePath(current.getStandardErrorFilePath());
+		if (ReportDiffs.compare(changed, "commandFile", previous.getCommandFile(), current.getCommandFile()))
+			report.setCommandFile(current.getCommandFile());
+		if (ReportDiffs.compare(changed, "completionCode", previous.getCompletionCode(), current.getCompletionCode()))
+			report.setCompletionCode(current.getCompletionCode());
+		if (ReportDiffs.compare(changed, "group", previous.getGroup(), current.getGroup()))
+			report.setGroup(current.getGroup());
+		if (ReportDiffs.compare(changed, "standardInputFilePath", previous.getStandardInputFilePath(), current.getStandardInputFilePath()))
+			report.setStandardInputFilePath(current.getStandardInputFilePath());
+		if (ReportDiffs.compare(changed, "initialWorkingDirectory", previous.getInitialWorkingDirectory(), current.getInitialWorkingDirectory()))
+			report.setInitialWorkingDirectory(current.getInitialWorkingDirectory());
+		if (ReportDiffs.compare(changed, "standardOutputFilePath", previous.getStandardOutputFilePath(), current.getStandardOutputFilePath()))
+			report.setStandardOutputFilePath(current.getStandardOutputFilePath());
+		if (ReportDiffs.compare(changed, "systemPriority", previous.getSystemPriority(), current.getSystemPriority()))
+			report.setSystemPriority(current.getSystemPriority());
+		if (ReportDiffs.compare(changed, "qos", previous.getQos(), current.getQos()))
+			report.setQos(current.getQos());
+		if (ReportDiffs.compare(changed, "submitDate", previous.submitDateMillis(), current.submitDateMillis()))
+			report.submitDateMillis(current.submitDateMillis());
+		if (ReportDiffs.compare(changed, "reservationRequested", previous.getReservationRequested(), current.getReservationRequested()))
+			report.setReservationRequested(current.getReservationRequested());
+		if (ReportDiffs.compare(changed, "earliestStartDate", previous.earliestStartDateMillis(), current.earliestStartDateMillis()))
+			report.earliestStartDateMillis(current.earliestStartDateMillis());
+		if (ReportDiffs.compare(changed, "startDate", previous.startDateMillis(), current.startDateMillis()))
+			report.startDateMillis(current.startDateMillis());
+		if (ReportDiffs.compare(changed, "durationSuspended", previous.getDurationSuspended(), current.getDurationSuspended()))
+			report.setDurationSuspended(current.getDurationSuspended());
+		if (ReportDiffs.compare(changed, "user", previous.getUser(), current.getUser()))
+			report.setUser(current.getUser());
+		if (ReportDiffs.compare(changed, "duration", previous.getDuration(), current.getDuration()))
+			report.setDuration(current.getDuration());
+
+		ReportDiffs.compareEntries(changed, delta.removedProperties, "environmentVariables",
+				previous.getEnvironmentVariables(), current.getEnvironmentVariables(),
+				report.getEnvironmentVariables());
+
+		if (ReportDiffs.compareList(changed, "flags", previous.getFlags(), current.getFlags()))
+			report.setFlags(current.getFlags());
+		if (ReportDiffs.compareList(changed, "nodesRequested", previous.getNodesRequested(), current.getNodesRequested()))
+			report.setNodesRequested(current.getNodesRequested());
+		if (ReportDiffs.compareList(changed, "requirements", previous.getRequirements(), current.getRequirements()))
+			report.setRequirements(current.getRequirements());
+		if (ReportDiffs.compareList(changed, "partitionAccessList", previous.getPartitionAccessList(), current.getPartitionAccessList()))
+			report.setPartitionAccessList(current.getPartitionAccessList());
+		return delta;
+	}
+
+	/**
+	 * Computes the differences between two lists of job reports, matching reports by job name.  Jobs
+	 * which are only present in the current list are treated as completely changed, while jobs only
+	 * present in the previous list are ignored.
+	 * @param previous The previously submitted reports, may be null
+	 * @param current The current reports
+	 * @return A delta for each current report, in the same order
+	 */
+	public static List<JobReportDelta> diff(List<JobReport> previous, List<JobReport> current) {
+		Map<String, JobReport> previousByName = new HashMap<String, JobReport>();
+		if (previous != null) {
+			for (JobReport report : previous)
+				previousByName.put(report.getName(), report);
+		}
+		List<JobReportDelta> deltas = new ArrayList<JobReportDelta>(current.size());
+		for (JobReport report : current)
+			deltas.add(diff(previousByName.get(report.getName()), report));
+		return deltas;
+	}
+
+	/**
+	 * Converts deltas into the sparse job reports to submit, skipping any empty deltas.
+	 * @param deltas The deltas to convert
+	 * @return The sparse reports of all non-empty deltas
+	 * @throws IllegalArgumentException If any delta is not sparse
+	 */
+	public static List<JobReport> toReports(List<JobReportDelta> deltas) {
+		List<JobReport> reports = new ArrayList<JobReport>(deltas.size());
+		for (JobReportDelta delta : deltas) {
+			if (delta.isEmpty())
+				continue;
+			if (!delta.isSparse())
+				throw new IllegalArgumentException("Argument [deltas] contains removed entries of "+
+						delta.getRemovedProperties()+" for job "+delta.getName()+", which must be submitted using save");
+			reports.add(delta.getReport());
+		}
+		return reports;
+	}
+}
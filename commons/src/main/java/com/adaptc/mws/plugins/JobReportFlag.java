@@ -230,6 +230,12 @@ public enum JobReportFlag {
 	 */
 	COALLOC;
 
+	private static final CaseInsensitiveLookup<JobReportFlag> LOOKUP = new CaseInsensitiveLookup<JobReportFlag>();
+	static {
+		for (JobReportFlag flag : values())
+			LOOKUP.put(flag.toString(), flag);
+	}
+
 	/**
 	 * Attempts to parse a string and convert it into a corresponding
 	 * JobReportFlag enum value.
@@ -241,9 +247,7 @@ public enum JobReportFlag {
 		// A job flag can look like "ADVRES:alice.1"
 		if (string.startsWith("ADVRES:"))
 			return ADVRES;
-		for(JobReportFlag flag : values())
-			if (flag.toString().equalsIgnoreCase(string))
-				return flag;
-		return NONE;
+		JobReportFlag flag = LOOKUP.get(string);
+		return flag == null ? NONE : flag;
 	}
 }
@@ -0,0 +1,187 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+
+/**
+ * A list of {@link JobReportFlag} values backed by a single 64-bit word, one bit per flag ordinal.
+ * Adding, removing, and checking for a flag are constant-time operations, and the whole list may be
+ * converted to and from a compact form using {@link #toBits()} and {@link #fromBits(long)}.
+ * <p>
+ * Although this is a list, it behaves as a set: each flag is contained at most once, adding a flag which
+ * is already present has no effect, and the flags are always ordered by their ordinal regardless of the
+ * order in which they were added.  Null values are not permitted.  Since a flag cannot be placed at a
+ * specific index, the positional mutators {@link #add(int, JobReportFlag)} and
+ * {@link #set(int, JobReportFlag)} are not supported, and sorting only succeeds if it would not change
+ * the order.  Use {@link #add(JobReportFlag)} and {@link #remove(Object)} instead.
+ */
+public class JobReportFlags extends AbstractList<JobReportFlag> {
+	private static final JobReportFlag[] FLAGS = JobReportFlag.values();
+
+	static {
+		// All flags must fit in the single word
+		if (FLAGS.length > Long.SIZE)
+			throw new IllegalStateException("Too many job report flags for a "+Long.SIZE+"-bit word");
+	}
+
+	private long bits = 0;
+
+	/**
+	 * Creates an empty list of flags.
+	 */
+	public JobReportFlags() {}
+
+	/**
+	 * Creates a list containing each of the given flags once.
+	 * @param flags The flags to add
+	 */
+	public JobReportFlags(Collection<JobReportFlag> flags) {
+		addAll(flags);
+	}
+
+	/**
+	 * Creates a list of flags from the value returned by {@link #toBits()}.
+	 * @param bits A word with the bit of each flag ordinal set
+	 * @return A new list of flags
+	 */
+	public static JobReportFlags fromBits(long bits) {
+		JobReportFlags flags = new JobReportFlags();
+		flags.bits = bits & (FLAGS.length == Long.SIZE ? -1L : (1L << FLAGS.length) - 1);
+		return flags;
+	}
+
+	/**
+	 * Returns the compact form of the flags, which has the bit of each contained flag's ordinal set.
+	 * @return The flags as a single word
+	 */
+	public long toBits() {
+		return bits;
+	}
+
+	private static long bit(JobReportFlag flag) {
+		return 1L << flag.ordinal();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof JobReportFlag && (bits & bit((JobReportFlag)o)) != 0;
+	}
+
+	/**
+	 * Adds a flag if it is not already present.
+	 * @param flag The flag to add
+	 * @return True if the flag was not already present
+	 */
+	@Override
+	public boolean add(JobReportFlag flag) {
+		long previous = bits;
+		bits |= bit(flag);
+		return bits != previous;
+	}
+
+	/**
+	 * Not supported, since flags are ordered by ordinal.
+	 * @throws UnsupportedOperationException Always
+	 */
+	@Override
+	public void add(int index, JobReportFlag flag) {
+		throw new UnsupportedOperationException("Job report flags are ordered by ordinal and cannot be added at an index");
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!contains(o))
+			return false;
+		bits &= ~bit((JobReportFlag)o);
+		return true;
+	}
+
+	@Override
+	public JobReportFlag get(int index) {
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size());
+		long remaining = bits;
+		for (int i = 0; i < index; i++)
+			remaining &= remaining - 1;
+		return FLAGS[Long.numberOfTrailingZeros(remaining)];
+	}
+
+	/**
+	 * Not supported, since flags are ordered by ordinal and contained at most once.
+	 * @throws UnsupportedOperationException Always
+	 */
+	@Override
+	public JobReportFlag set(int index, JobReportFlag flag) {
+		throw new UnsupportedOperationException("Job report flags are ordered by ordinal and cannot be set at an index");
+	}
+
+	/**
+	 * Checks that the flags are already in the order of the comparator, since they are always ordered by
+	 * ordinal.  Sorting by the natural order therefore always succeeds without changing the list.
+	 * @param c The comparator, or null for the natural order
+	 * @throws UnsupportedOperationException If the comparator would change the order of the flags
+	 */
+	@Override
+	public void sort(Comparator<? super JobReportFlag> c) {
+		if (c == null)
+			return;
+		JobReportFlag previous = null;
+		for (JobReportFlag flag : this) {
+			if (previous != null && c.compare(previous, flag) > 0)
+				throw new UnsupportedOperationException("Job report flags are ordered by ordinal and cannot be reordered");
+			previous = flag;
+		}
+	}
+
+	@Override
+	public JobReportFlag remove(int index) {
+		JobReportFlag previous = get(index);
+		bits &= ~bit(previous);
+		return previous;
+	}
+
+	@Override
+	public int size() {
+		return Long.bitCount(bits);
+	}
+
+	@Override
+	public void clear() {
+		bits = 0;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		if (c instanceof JobReportFlags) {
+			long other = ((JobReportFlags)c).bits;
+			return (bits & other) == other;
+		}
+		return super.containsAll(c);
+	}
+
+	@Override
+	public Iterator<JobReportFlag> iterator() {
+		return new Iterator<JobReportFlag>() {
+			private long remaining = bits;
+			private JobReportFlag last;
+
+			public boolean hasNext() {
+				return remaining != 0;
+			}
+
+			public JobReportFlag next() {
+				if (remaining == 0)
+					throw new NoSuchElementException();
+				last = FLAGS[Long.numberOfTrailingZeros(remaining)];
+				remaining &= remaining - 1;
+				return last;
+			}
+
+			public void remove() {
+				if (last == null)
+					throw new IllegalStateException();
+				bits &= ~bit(last);
+				last = null;
+			}
+		};
+	}
+}
@@ -2,6 +2,7 @@ package com.adaptc.mws.plugins;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * A single requirement for a job definition.
@@ -137,4 +138,35 @@ public class JobReportRequirement implements IJobReportRequirement {
 	public void setResourcesPerTask(ReportResourceMap resourcesPerTask) {
 		this.resourcesPerTask = resourcesPerTask;
 	}
+
+	/**
+	 * Two requirements are equal if all of their fields are equal.
+	 * @param o The object to compare against
+	 * @return True if the object is a requirement with the same values
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof JobReportRequirement))
+			return false;
+		JobReportRequirement other = (JobReportRequirement)o;
+		return Objects.equals(operatingSystem, other.operatingSystem) &&
+				Objects.equals(architecture, other.architecture) &&
+				Objects.equals(nodeCount, other.nodeCount) &&
+				Objects.equals(taskCount, other.taskCount) &&
+				Objects.equals(tasksPerNode, other.tasksPerNode) &&
+				Objects.equals(features, other.features) &&
+				Objects.equals(nodes, other.nodes) &&
+				ReportDiffs.entriesEqual(resourcesPerTask, other.resourcesPerTask);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(operatingSystem, architecture, nodeCount, taskCount, tasksPerNode, features, nodes,
+				resourcesPerTask);
+	}
 }
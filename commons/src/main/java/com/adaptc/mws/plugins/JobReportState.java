@@ -62,6 +62,14 @@ public enum JobReportState {
 	 */
 	public static final List<JobReportState> activeStates = Arrays.asList(IDLE, STARTING, RUNNING, HOLD, DEFERRED);
 
+	private static final CaseInsensitiveLookup<JobReportState> LOOKUP = new CaseInsensitiveLookup<JobReportState>();
+	static {
+		for (JobReportState state : values()) {
+			LOOKUP.put(state.name(), state);
+			LOOKUP.put(state.moabLabel, state);
+		}
+	}
+
 	private String moabLabel;
 
 	private JobReportState(String moabLabel) {
@@ -76,9 +84,6 @@ public enum JobReportState {
 	 * @return The corresponding JobReportState value or null if not found.
 	 */
 	public static JobReportState parse(String string) {
-		for(JobReportState state : values())
-			if (state.name().equalsIgnoreCase(string) || state.moabLabel.equalsIgnoreCase(string))
-				return state;
-		return null;
+		return LOOKUP.get(string);
 	}
 }
@@ -0,0 +1,242 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over all results of a paged MWS collection, such as /rest/jobs, by requesting one page at a
+ * time using {@link IMoabRestService#get(Map, String)}.  The offset and max query parameters of each
+ * request are added to the params option, so any other options and parameters given are passed unchanged.
+ * <p>
+ * Following pages may be requested on an executor while the current page is consumed, which overlaps the
+ * time spent waiting for MWS with the time spent handling results.  The prefetch depth is the number of
+ * pages which are requested ahead of time.  Once the totalCount of the collection is known, no pages past
+ * it are requested.
+ * <pre>
+ * MoabRestPager pager = new MoabRestPager(moabRestService, [params: [query: '{"flags": "GRESONLY"}']], "/rest/jobs",
+ * 		500, 2, executor)
+ * try {
+ * 	pager.each { Map job -&gt;
+ * 		// Handle a single job
+ * 	}
+ * } finally {
+ * 	pager.close()
+ * }
+ * </pre>
+ * Each result is a read-only map as returned by {@link MoabRestResponse#getDataView()}.  A request which
+ * fails, or returns an error response, is thrown as an {@link IllegalStateException} once its page is
+ * reached.  Results which are added or removed while paging may cause results to be skipped or repeated.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class MoabRestPager implements Iterator<Map<String, Object>>, AutoCloseable {
+	private static final String PARAMS = "params";
+	private static final String OFFSET = "offset";
+	private static final String MAX = "max";
+
+	private final IMoabRestService moabRestService;
+	private final Map<String, ?> options;
+	private final String url;
+	private final int pageSize;
+	private final int prefetchDepth;
+	private final Executor executor;
+
+	/**
+	 * The requests of the following pages in offset order.
+	 */
+	private final ArrayDeque<CompletableFuture<Page>> requests = new ArrayDeque<CompletableFuture<Page>>();
+	private int nextOffset = 0;
+	private boolean lastRequested = false;
+	private Integer totalCount;
+	private Iterator<?> results;
+
+	/**
+	 * Creates a new pager which requests each page when it is reached on the calling thread.
+	 * @param moabRestService The service used to request pages
+	 * @param options The options of each request, may be null
+	 * @param url The URL of the collection
+	 * @param pageSize The number of results to request for each page
+	 * @throws IllegalArgumentException If the service or URL is null, or the page size is not positive
+	 */
+	public MoabRestPager(IMoabRestService moabRestService, Map<String, ?> options, String url, int pageSize) {
+		this(moabRestService, options, url, pageSize, 0, null);
+	}
+
+	/**
+	 * Creates a new pager which requests pages ahead of time.
+	 * @param moabRestService The service used to request pages
+	 * @param options The options of each request, may be null
+	 * @param url The URL of the collection
+	 * @param pageSize The number of results to request for each page
+	 * @param prefetchDepth The number of pages to request ahead of time, or 0 to request each page on the
+	 *                      calling thread when it is reached
+	 * @param executor The executor used to request pages ahead of time, may be null if the prefetch depth is 0
+	 * @throws IllegalArgumentException If the service or URL is null, the page size is not positive, the
+	 * prefetch depth is negative, or the executor is null while the prefetch depth is not 0
+	 */
+	public MoabRestPager(IMoabRestService moabRestService, Map<String, ?> options, String url, int pageSize,
+						 int prefetchDepth, Executor executor) {
+		if (moabRestService == null)
+			throw new IllegalArgumentException("Argument [moabRestService] must not be null");
+		if (url == null)
+			throw new IllegalArgumentException("Argument [url] must not be null");
+		if (pageSize < 1)
+			throw new IllegalArgumentException("Argument [pageSize] must be greater than 0");
+		if (prefetchDepth < 0)
+			throw new IllegalArgumentException("Argument [prefetchDepth] must not be negative");
+		if (prefetchDepth > 0 && executor == null)
+			throw new IllegalArgumentException("Argument [executor] must not be null if prefetching");
+		this.moabRestService = moabRestService;
+		this.options = options == null ? Collections.<String, Object>emptyMap() : options;
+		this.url = url;
+		this.pageSize = pageSize;
+		this.prefetchDepth = prefetchDepth;
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns the total number of results in the collection, as reported by the most recent page.
+	 * @return The total count, or null before the first page is received or if MWS did not report it
+	 */
+	public Integer getTotalCount() {
+		return totalCount;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (results == null || !results.hasNext()) {
+			if (requests.isEmpty()) {
+				if (lastRequested)
+					return false;
+				request();
+			}
+			Page page;
+			try {
+				page = join(requests.poll());
+			} catch (RuntimeException e) {
+				close();
+				throw e;
+			}
+			if (page.totalCount != null)
+				totalCount = page.totalCount;
+			if (page.results.size() < pageSize || totalCount != null && page.offset + page.results.size() >= totalCount) {
+				// Any pages requested after the last one are not needed
+				lastRequested = true;
+				cancelRequests();
+			}
+			results = page.results.iterator();
+			prefetch();
+		}
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<String, Object> next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		return (Map<String, Object>)results.next();
+	}
+
+	/**
+	 * Returns a sequential stream of the remaining results, which closes this pager when it is closed.
+	 * @return A new stream
+	 */
+	public Stream<Map<String, Object>> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+				.onClose(this::close);
+	}
+
+	/**
+	 * Stops paging and cancels the requests of pages not yet reached.  Requests which are already in
+	 * progress are not interrupted, but their responses are discarded.
+	 */
+	@Override
+	public void close() {
+		lastRequested = true;
+		cancelRequests();
+		results = null;
+	}
+
+	private void prefetch() {
+		while (!lastRequested && requests.size() < prefetchDepth) {
+			if (totalCount != null && nextOffset >= totalCount) {
+				lastRequested = true;
+				return;
+			}
+			request();
+		}
+	}
+
+	private void request() {
+		final int offset = nextOffset;
+		nextOffset += pageSize;
+		if (prefetchDepth == 0) {
+			CompletableFuture<Page> request = new CompletableFuture<Page>();
+			try {
+				request.complete(fetch(offset));
+			} catch (RuntimeException e) {
+				request.completeExceptionally(e);
+			}
+			requests.add(request);
+		} else {
+			requests.add(CompletableFuture.supplyAsync(() -> fetch(offset), executor));
+		}
+	}
+
+	private Page fetch(int offset) {
+		Map<String, Object> requestOptions = new LinkedHashMap<String, Object>(options);
+		Map<Object, Object> params = new LinkedHashMap<Object, Object>();
+		Object givenParams = options.get(PARAMS);
+		if (givenParams instanceof Map)
+			params.putAll((Map<?, ?>)givenParams);
+		params.put(OFFSET, offset);
+		params.put(MAX, pageSize);
+		requestOptions.put(PARAMS, params);
+
+		MoabRestResponse response = moabRestService.get(requestOptions, url);
+		if (response == null || response.hasError())
+			throw new IllegalStateException("Request for the page of "+url+" at offset "+offset+" failed"+
+					(response == null ? "" : " with status "+response.getStatus()));
+		Object data = response.getDataView();
+		Object pageResults = data instanceof Map ? ((Map<?, ?>)data).get("results") : data;
+		Object pageTotalCount = data instanceof Map ? ((Map<?, ?>)data).get("totalCount") : null;
+		return new Page(offset, pageResults instanceof List ? (List<?>)pageResults : Collections.emptyList(),
+				pageTotalCount instanceof Number ? ((Number)pageTotalCount).intValue() : null);
+	}
+
+	private void cancelRequests() {
+		for (CompletableFuture<Page> request : requests)
+			request.cancel(false);
+		requests.clear();
+	}
+
+	private static Page join(CompletableFuture<Page> request) {
+		try {
+			return request.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * A single page of results.
+	 */
+	private static final class Page {
+		private final int offset;
+		private final List<?> results;
+		private final Integer totalCount;
+
+		Page(int offset, List<?> results, Integer totalCount) {
+			this.offset = offset;
+			this.results = results;
+			this.totalCount = totalCount;
+		}
+	}
+}
@@ -6,10 +6,20 @@ import net.sf.json.JSONNull;
 import net.sf.json.JSONObject;
 import org.springframework.mock.web.MockHttpServletResponse;
 
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * This class is used in the {@link IMoabRestService} to represent a response from MWS.
@@ -20,6 +30,7 @@ public class MoabRestResponse {
 	private final MockHttpServletResponse response;
 	private final JSON data;
 	private final boolean success;
+	private volatile Object dataView;
 
 	/**
 	 * Constructs a new response from MWS.
@@ -93,6 +104,40 @@ public class MoabRestResponse {
 		return convert(data);
 	}
 
+	/**
+	 * Returns a read-only view of the data as a Map or List (or null) instead of a {@link JSON} instance.
+	 * Unlike {@link #getConvertedData()}, the data is not copied.  Nested objects and arrays are wrapped in
+	 * views only when they are accessed, and each view is kept so that repeated calls and accesses return
+	 * the same instances.  {@link JSONNull} values are returned as null.
+	 * <p>
+	 * This should be preferred over {@link #getConvertedData()} for large responses which are only read.
+	 * The view reads the data directly, so {@link #getData()} must not be modified once the view is used.
+	 * @return A read-only view of {@link #getData()}
+	 */
+	public Object getDataView() {
+		Object view = dataView;
+		if (view == null && data != null) {
+			view = view(data);
+			dataView = view;
+		}
+		return view;
+	}
+
+	/**
+	 * Wraps a value of the data in a view if it is a {@link JSON} instance.
+	 * @param value
+	 * @return A view, null for {@link JSONNull} and null objects, or the value itself
+	 */
+	private static Object view(Object value) {
+		if (value instanceof JSONObject)
+			return ((JSONObject)value).isNullObject() ? null : new JsonObjectView((JSONObject)value);
+		else if (value instanceof JSONArray)
+			return new JsonArrayView((JSONArray)value);
+		else if (value instanceof JSONNull)
+			return null;
+		return value;
+	}
+
 	/**
 	 * Utility method for converting {@link #data} from a {@link JSON} instance.
 	 * @param json
@@ -148,4 +193,110 @@ public class MoabRestResponse {
 	private Object convert(JSONNull jsonNull) {
 		return null;
 	}
+
+	/**
+	 * A read-only map view of a {@link JSONObject} used by {@link #getDataView()}.
+	 */
+	private static final class JsonObjectView extends AbstractMap<Object, Object> {
+		private final JSONObject json;
+		/**
+		 * The views of nested objects and arrays, which are never null.
+		 */
+		private final ConcurrentMap<Object, Object> nested = new ConcurrentHashMap<Object, Object>();
+		private Set<Entry<Object, Object>> entrySet;
+
+		JsonObjectView(JSONObject json) {
+			this.json = json;
+		}
+
+		@Override
+		public Object get(Object key) {
+			Object value = json.get(key);
+			if (!(value instanceof JSONObject || value instanceof JSONArray))
+				return view(value);
+			Object view = nested.get(key);
+			if (view == null) {
+				view = view(value);
+				Object existing = nested.putIfAbsent(key, view);
+				if (existing != null)
+					view = existing;
+			}
+			return view;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return json.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return json.size();
+		}
+
+		@Override
+		public Set<Entry<Object, Object>> entrySet() {
+			if (entrySet == null) {
+				entrySet = new AbstractSet<Entry<Object, Object>>() {
+					public Iterator<Entry<Object, Object>> iterator() {
+						final Iterator<?> keys = json.keySet().iterator();
+						return new Iterator<Entry<Object, Object>>() {
+							public boolean hasNext() {
+								return keys.hasNext();
+							}
+							public Entry<Object, Object> next() {
+								Object key = keys.next();
+								return new SimpleImmutableEntry<Object, Object>(key, get(key));
+							}
+						};
+					}
+					public int size() {
+						return json.size();
+					}
+				};
+			}
+			return entrySet;
+		}
+	}
+
+	/**
+	 * A read-only list view of a {@link JSONArray} used by {@link #getDataView()}.
+	 */
+	private static final class JsonArrayView extends AbstractList<Object> implements RandomAccess {
+		private final JSONArray json;
+		/**
+		 * The views of nested objects and arrays by index, only allocated once one is accessed.
+		 */
+		private final AtomicReference<AtomicReferenceArray<Object>> nested =
+				new AtomicReference<AtomicReferenceArray<Object>>();
+
+		JsonArrayView(JSONArray json) {
+			this.json = json;
+		}
+
+		@Override
+		public Object get(int index) {
+			Object value = json.get(index);
+			if (!(value instanceof JSONObject || value instanceof JSONArray))
+				return view(value);
+			AtomicReferenceArray<Object> views = nested.get();
+			if (views == null) {
+				nested.compareAndSet(null, new AtomicReferenceArray<Object>(json.size()));
+				views = nested.get();
+			}
+			Object view = views.get(index);
+			if (view == null) {
+				view = view(value);
+				// Keep the view created first if another thread created one concurrently
+				if (!views.compareAndSet(index, null, view))
+					view = views.get(index);
+			}
+			return view;
+		}
+
+		@Override
+		public int size() {
+			return json.size();
+		}
+	}
 }
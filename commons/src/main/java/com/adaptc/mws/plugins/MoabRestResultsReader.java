@@ -0,0 +1,456 @@
+package com.adaptc.mws.plugins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Reads the elements of the results array of a JSON collection response from MWS one at a time, such as the
+ * response of a GET of /rest/jobs or /rest/nodes.  Each element is parsed into a Map of Strings, Numbers,
+ * Booleans, nulls, Lists, and Maps when it is read.
+ * <p>
+ * Only a reader created with {@link #MoabRestResultsReader(MoabRestResponse, Reader)} streams the response,
+ * so that the whole response is never held in memory at once.  A reader created with
+ * {@link #of(MoabRestResponse)}, which is what the default {@link IMoabRestService#getResults(Map, String)}
+ * returns, iterates over a response which has already been fully parsed, and does not reduce memory use.
+ * <pre>
+ * MoabRestResultsReader reader = moabRestService.getResults("/rest/jobs", fields: "name,states.state")
+ * try {
+ * 	log.debug("Reading ${reader.totalCount} jobs")
+ * 	reader.each { Map job -&gt;
+ * 		// Handle a single job
+ * 	}
+ * } finally {
+ * 	reader.close()
+ * }
+ * </pre>
+ * The totalCount and resultCount properties of the response are available as soon as they have been read,
+ * which is before the first result when they precede the results array.  All other properties of the response
+ * are skipped.  If the response is a JSON array instead of an object, its elements are read as the results.
+ * <p>
+ * Errors reading the response are thrown as {@link UncheckedIOException}, and malformed JSON as
+ * {@link IllegalArgumentException}.  This class is not thread-safe.
+ */
+public class MoabRestResultsReader implements Iterator<Map<String, Object>>, Closeable {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final MoabRestResponse response;
+	private final Reader reader;
+	private final Iterator<?> results;
+	private final char[] buffer;
+	private int position = 0;
+	private int limit = 0;
+	private long offset = 0;
+
+	/**
+	 * True while positioned inside the results array.
+	 */
+	private boolean inResults = false;
+	/**
+	 * True once a result has been read, so the next result must follow a comma.
+	 */
+	private boolean commaNeeded = false;
+	private boolean topLevelArray = false;
+	/**
+	 * True once a member of the top-level object has been read, so the next member must follow a comma.
+	 */
+	private boolean memberRead = false;
+	private Integer totalCount;
+	private Integer resultCount;
+
+	/**
+	 * Creates a reader which parses the results from a stream of JSON.
+	 * @param response The response without data, used to check the status of the request, may be null
+	 * @param body The JSON body of the response, which is closed by {@link #close()}
+	 * @throws IllegalArgumentException If the body is null
+	 * @throws UncheckedIOException If the start of the body could not be read
+	 */
+	public MoabRestResultsReader(MoabRestResponse response, Reader body) {
+		if (body == null)
+			throw new IllegalArgumentException("Argument [body] must not be null");
+		this.response = response;
+		this.reader = body;
+		this.results = null;
+		this.buffer = new char[BUFFER_SIZE];
+		start();
+	}
+
+	private MoabRestResultsReader(MoabRestResponse response, Iterator<?> results, Integer totalCount, Integer resultCount) {
+		this.response = response;
+		this.reader = null;
+		this.results = results;
+		this.buffer = null;
+		this.totalCount = totalCount;
+		this.resultCount = resultCount;
+	}
+
+	/**
+	 * Creates a reader over the results of a response which has already been parsed, using
+	 * {@link MoabRestResponse#getDataView()}.  This does not reduce memory use, but allows the same code to
+	 * handle both parsed and streamed responses.
+	 * @param response The response
+	 * @return A new reader, which has no results if the response has no results array
+	 * @throws IllegalArgumentException If the response is null
+	 */
+	public static MoabRestResultsReader of(MoabRestResponse response) {
+		if (response == null)
+			throw new IllegalArgumentException("Argument [response] must not be null");
+		Object data = response.getDataView();
+		if (data instanceof List)
+			return new MoabRestResultsReader(response, ((List<?>)data).iterator(), null, null);
+		if (!(data instanceof Map))
+			return new MoabRestResultsReader(response, Collections.emptyIterator(), null, null);
+		Map<?, ?> map = (Map<?, ?>)data;
+		Object results = map.get("results");
+		return new MoabRestResultsReader(response,
+				results instanceof List ? ((List<?>)results).iterator() : Collections.emptyIterator(),
+				toInteger(map.get("totalCount")), toInteger(map.get("resultCount")));
+	}
+
+	/**
+	 * Returns the response of the request, which may be used to check whether the request succeeded.
+	 * @return The response, may be null
+	 */
+	public MoabRestResponse getResponse() {
+		return response;
+	}
+
+	/**
+	 * Returns the total number of results matching the request, regardless of paging.
+	 * @return The total count, or null if it has not been read or is not in the response
+	 */
+	public Integer getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Returns the number of results in the response.
+	 * @return The result count, or null if it has not been read or is not in the response
+	 */
+	public Integer getResultCount() {
+		return resultCount;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (results != null)
+			return results.hasNext();
+		if (!inResults)
+			return false;
+		int c = peek();
+		if (c == ']') {
+			position++;
+			inResults = false;
+			if (!topLevelArray)
+				readMembers();
+			return false;
+		}
+		if (commaNeeded) {
+			expect(',');
+			commaNeeded = false;
+		}
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<String, Object> next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		Object result;
+		if (results != null) {
+			result = results.next();
+		} else {
+			result = readValue();
+			commaNeeded = true;
+		}
+		if (result != null && !(result instanceof Map))
+			throw new IllegalArgumentException("Invalid JSON: results must be objects");
+		return (Map<String, Object>)result;
+	}
+
+	/**
+	 * Closes the underlying body, if any.  Any results not yet read are discarded.
+	 */
+	@Override
+	public void close() throws IOException {
+		inResults = false;
+		if (reader != null)
+			reader.close();
+	}
+
+	private void start() {
+		if (peek() == '[') {
+			position++;
+			topLevelArray = true;
+			inResults = true;
+		} else {
+			expect('{');
+			readMembers();
+		}
+	}
+
+	/**
+	 * Reads members of the top-level object until the start of the results array or the end of the object.
+	 */
+	private void readMembers() {
+		while (true) {
+			if (peek() == '}') {
+				position++;
+				return;
+			}
+			if (memberRead)
+				expect(',');
+			memberRead = true;
+			if (peek() != '"')
+				throw invalid("expected a property name");
+			String key = readString();
+			expect(':');
+			if ("results".equals(key) && peek() == '[') {
+				position++;
+				inResults = true;
+				return;
+			}
+			if ("totalCount".equals(key))
+				totalCount = toInteger(readValue());
+			else if ("resultCount".equals(key))
+				resultCount = toInteger(readValue());
+			else
+				skipValue();
+		}
+	}
+
+	private Object readValue() {
+		switch (peek()) {
+			case '{':
+				position++;
+				Map<String, Object> map = new LinkedHashMap<String, Object>();
+				if (peek() == '}') {
+					position++;
+					return map;
+				}
+				do {
+					if (peek() != '"')
+						throw invalid("expected a property name");
+					String key = readString();
+					expect(':');
+					map.put(key, readValue());
+				} while (readSeparator('}'));
+				return map;
+			case '[':
+				position++;
+				List<Object> list = new ArrayList<Object>();
+				if (peek() == ']') {
+					position++;
+					return list;
+				}
+				do {
+					list.add(readValue());
+				} while (readSeparator(']'));
+				return list;
+			case '"':
+				return readString();
+			case 't':
+				readLiteral("true");
+				return Boolean.TRUE;
+			case 'f':
+				readLiteral("false");
+				return Boolean.FALSE;
+			case 'n':
+				readLiteral("null");
+				return null;
+			default:
+				return readNumber();
+		}
+	}
+
+	/**
+	 * Skips a value without creating any objects for it.
+	 */
+	private void skipValue() {
+		int c = peek();
+		if (c != '{' && c != '[') {
+			if (c == '"')
+				skipString();
+			else
+				readValue();
+			return;
+		}
+		int depth = 0;
+		do {
+			c = peek();
+			if (c == '"') {
+				skipString();
+				continue;
+			}
+			if (c < 0)
+				throw invalid("unexpected end of input");
+			position++;
+			if (c == '{' || c == '[')
+				depth++;
+			else if (c == '}' || c == ']')
+				depth--;
+		} while (depth > 0);
+	}
+
+	/**
+	 * Reads a comma or the closing character of an object or array.
+	 * @return True if a comma was read
+	 */
+	private boolean readSeparator(char close) {
+		int c = peek();
+		if (c == ',' || c == close) {
+			position++;
+			return c == ',';
+		}
+		throw invalid("expected ',' or '"+close+"'");
+	}
+
+	private String readString() {
+		expect('"');
+		StringBuilder builder = new StringBuilder();
+		while (true) {
+			int c = read();
+			if (c == '"')
+				return builder.toString();
+			if (c < 0)
+				throw invalid("unterminated string");
+			if (c != '\\') {
+				builder.append((char)c);
+				continue;
+			}
+			c = read();
+			switch (c) {
+				case '"': case '\\': case '/': builder.append((char)c); break;
+				case 'b': builder.append('\b'); break;
+				case 'f': builder.append('\f'); break;
+				case 'n': builder.append('\n'); break;
+				case 'r': builder.append('\r'); break;
+				case 't': builder.append('\t'); break;
+				case 'u':
+					int code = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(read(), 16);
+						if (digit < 0)
+							throw invalid("invalid unicode escape");
+						code = code * 16 + digit;
+					}
+					builder.append((char)code);
+					break;
+				default:
+					throw invalid("invalid escape");
+			}
+		}
+	}
+
+	private void skipString() {
+		expect('"');
+		while (true) {
+			int c = read();
+			if (c == '"')
+				return;
+			if (c < 0)
+				throw invalid("unterminated string");
+			if (c == '\\')
+				read();
+		}
+	}
+
+	private void readLiteral(String literal) {
+		for (int i = 0; i < literal.length(); i++) {
+			if (read() != literal.charAt(i))
+				throw invalid("expected "+literal);
+		}
+	}
+
+	private Number readNumber() {
+		StringBuilder builder = new StringBuilder();
+		boolean decimal = false;
+		while (true) {
+			int c = fill() ? buffer[position] : -1;
+			if (c >= '0' && c <= '9' || c == '-' || c == '+') {
+				builder.append((char)c);
+			} else if (c == '.' || c == 'e' || c == 'E') {
+				builder.append((char)c);
+				decimal = true;
+			} else {
+				break;
+			}
+			position++;
+		}
+		if (builder.length() == 0)
+			throw invalid("unexpected "+(fill() ? "character '"+buffer[position]+"'" : "end of input"));
+		String number = builder.toString();
+		try {
+			if (decimal)
+				return Double.valueOf(number);
+			long value = Long.parseLong(number);
+			if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+				return (int)value;
+			return value;
+		} catch (NumberFormatException e) {
+			if (!decimal && number.matches("-?[0-9]+"))
+				return new BigInteger(number);
+			throw invalid("invalid number "+number);
+		}
+	}
+
+	private void expect(char expected) {
+		if (peek() != expected)
+			throw invalid("expected '"+expected+"'");
+		position++;
+	}
+
+	/**
+	 * Skips whitespace and returns the next character without consuming it.
+	 * @return The next character or -1 at the end of input
+	 */
+	private int peek() {
+		while (fill()) {
+			char c = buffer[position];
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+				return c;
+			position++;
+		}
+		return -1;
+	}
+
+	private int read() {
+		return fill() ? buffer[position++] : -1;
+	}
+
+	/**
+	 * Ensures at least one character is buffered.
+	 * @return False at the end of input
+	 */
+	private boolean fill() {
+		if (position < limit)
+			return true;
+		try {
+			offset += limit;
+			position = 0;
+			limit = 0;
+			int count;
+			do {
+				count = reader.read(buffer, 0, buffer.length);
+			} while (count == 0);
+			if (count < 0)
+				return false;
+			limit = count;
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private IllegalArgumentException invalid(String message) {
+		return new IllegalArgumentException("Invalid JSON at character "+(offset + position)+": "+message);
+	}
+
+	private static Integer toInteger(Object value) {
+		return value instanceof Number ? ((Number)value).intValue() : null;
+	}
+}
@@ -20,6 +20,14 @@ public enum ModifyMode {
 	 */
 	REMOVE("decr");
 
+	private static final CaseInsensitiveLookup<ModifyMode> LOOKUP = new CaseInsensitiveLookup<ModifyMode>();
+	static {
+		for (ModifyMode mode : values()) {
+			LOOKUP.put(mode.moabString, mode);
+			LOOKUP.put(mode.name(), mode);
+		}
+	}
+
 	private String moabString;
 
 	private ModifyMode(String moabString) {
@@ -42,10 +50,6 @@ public enum ModifyMode {
 	public static ModifyMode parse(String str) {
 		if (str==null || str.isEmpty())
 			return null;
-		for(ModifyMode mode : values()) {
-			if (mode.getMoabString().equalsIgnoreCase(str) || mode.name().equalsIgnoreCase(str))
-				return mode;
-		}
-		return null;
+		return LOOKUP.get(str);
 	}
 }
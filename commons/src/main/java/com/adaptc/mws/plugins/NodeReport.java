@@ -8,11 +8,18 @@ import java.util.*;
  * poll and the current poll), but can also represent all known information concerning a resource
  * (ie the first time poll is run).
  * <p>
+ * All dates are stored as milliseconds since the epoch.  The date getters and setters create and read
+ * {@link Date} instances, while the accessors ending in "Millis" use the stored values directly,
+ * with {@link ReportDateParser#NO_DATE} representing an unset date.  Since the date getters return a new
+ * date on each call, modifying a returned date does not change the report.  The "Millis" accessors are not
+ * named as bean getters and setters, so they are not picked up as properties when the report is introspected
+ * or converted to JSON.
+ * <p>
  * For more information on reporting resources, see the Plugin Reporting section in the
  * MWS documentation.
  * @author bsaville
  */
-public class NodeReport {
+public class NodeReport implements IRecyclable {
 	/**
 	 * The node's name.
 	 */
@@ -20,9 +27,9 @@ public class NodeReport {
 	/**
 	 * The date that the report was made or for which the report is current.  This will be
 	 * set to the current date and time if not provided.  This may also be set as a string
-	 * which will use {@link PluginConstants#STANDARD_DATE_TIME_FORMATTER} to parse into a date.
+	 * which will use {@link ReportDateParser} to parse into a date.
 	 */
-	private Date timestamp;
+	private long timestamp = ReportDateParser.NO_DATE;
 	/**
 	 * If true, this report will be considered a "slave" report.  If all reports for an object are only "slave" reports,
 	 * MWS will not report the object to Moab Workload Manager.  Otherwise (if at least one report has this value set
@@ -38,9 +45,10 @@ public class NodeReport {
 	 */
 	private ReportResourceMap resources = new ReportResourceMap();
 	/**
-	 * The node's reported metrics.
+	 * The node's reported metrics.  By default this is a {@link ReportMetricMap}, which stores the values
+	 * without boxing.
 	 */
-	private Map<String, Double> metrics = new HashMap<String, Double>();
+	private Map<String, Double> metrics = new ReportMetricMap();
 	/**
 	 * The list of the node's features.
 	 */
@@ -97,7 +105,7 @@ public class NodeReport {
 	 * Specifies the time that the node is supposed to be retired by Moab.
 	 * Moab will not schedule any jobs on a node after its time to live has passed.
 	 */
-	private Date timeToLive;
+	private long timeToLive = ReportDateParser.NO_DATE;
 	/**
 	 * An ID that can be used to track the request that created the node.
 	 */
@@ -126,25 +134,35 @@ public class NodeReport {
 	 * @see #timestamp
 	 */
 	public Date getTimestamp() {
-		return timestamp;
+		return timestamp == ReportDateParser.NO_DATE ? null : new Date(timestamp);
 	}
 	/**
 	 * @see #timestamp
 	 */
 	public void setTimestamp(Date timestamp) {
-		this.timestamp = timestamp;
+		this.timestamp = timestamp == null ? ReportDateParser.NO_DATE : timestamp.getTime();
 	}
 	/**
 	 * @see #timestamp
 	 */
 	public void setTimestamp(String timestamp) {
-		try {
-			this.timestamp = PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseDateTime(timestamp).toDate();
-		} catch(IllegalArgumentException e) {
-			this.timestamp = null;
-		} catch(NullPointerException e) {
-			this.timestamp = null;
-		}
+		this.timestamp = ReportDateParser.parseMillis(timestamp);
+	}
+	/**
+	 * Retrieves the value as milliseconds since the epoch without creating a date.
+	 * @return The milliseconds or {@link ReportDateParser#NO_DATE} if not set
+	 * @see #timestamp
+	 */
+	public long timestampMillis() {
+		return timestamp;
+	}
+	/**
+	 * Sets the value as milliseconds since the epoch.
+	 * @param timestamp The milliseconds or {@link ReportDateParser#NO_DATE} to unset the value
+	 * @see #timestamp
+	 */
+	public void timestampMillis(long timestamp) {
+		this.timestamp = timestamp;
 	}
 	/**
 	 * @see #slaveReport
@@ -205,7 +223,7 @@ public class NodeReport {
 	 * @see #operatingSystem
 	 */
 	public void setOperatingSystem(String operatingSystem) {
-		this.operatingSystem = operatingSystem;
+		this.operatingSystem = ReportStringPool.SHARED.intern(operatingSystem);
 	}
 	/**
 	 * @see #partition
@@ -217,7 +235,7 @@ public class NodeReport {
 	 * @see #partition
 	 */
 	public void setPartition(String partition) {
-		this.partition = partition;
+		this.partition = ReportStringPool.SHARED.intern(partition);
 	}
 	/**
 	 * @see #variables
@@ -291,7 +309,7 @@ public class NodeReport {
 	 * @see #subState
 	 */
 	public void setSubState(String subState) {
-		this.subState = subState;
+		this.subState = ReportStringPool.SHARED.intern(subState);
 	}
 	/**
 	 * @see #architecture
@@ -303,7 +321,7 @@ public class NodeReport {
 	 * @see #architecture
 	 */
 	public void setArchitecture(String architecture) {
-		this.architecture = architecture;
+		this.architecture = ReportStringPool.SHARED.intern(architecture);
 	}
 	/**
 	 * @see #messages
@@ -361,12 +379,28 @@ public class NodeReport {
 	 * @see #timeToLive
 	 */
 	public Date getTimeToLive() {
-		return timeToLive;
+		return timeToLive == ReportDateParser.NO_DATE ? null : new Date(timeToLive);
 	}
 	/**
 	 * @see #timeToLive
 	 */
 	public void setTimeToLive(Date timeToLive) {
+		this.timeToLive = timeToLive == null ? ReportDateParser.NO_DATE : timeToLive.getTime();
+	}
+	/**
+	 * Retrieves the value as milliseconds since the epoch without creating a date.
+	 * @return The milliseconds or {@link ReportDateParser#NO_DATE} if not set
+	 * @see #timeToLive
+	 */
+	public long timeToLiveMillis() {
+		return timeToLive;
+	}
+	/**
+	 * Sets the value as milliseconds since the epoch.
+	 * @param timeToLive The milliseconds or {@link ReportDateParser#NO_DATE} to unset the value
+	 * @see #timeToLive
+	 */
+	public void timeToLiveMillis(long timeToLive) {
 		this.timeToLive = timeToLive;
 	}
 	/**
@@ -392,6 +426,57 @@ public class NodeReport {
 	 */
 	public void setAclRules(List<AclReportRule> aclRules) { this.aclRules = aclRules; }
 
+	/**
+	 * Resets all properties to their initial values so that the report may be reused, such as by a
+	 * {@link ReportPool}.  The resources, metrics, attributes, variables, and lists are cleared in place
+	 * rather than reallocated, so this must only be called once no other objects refer to the report or its
+	 * collections.  Reports passed to the RM services may be reset once the call to the service returns.
+	 */
+	public void reset() {
+		name = null;
+		timestamp = ReportDateParser.NO_DATE;
+		slaveReport = false;
+		if (resources == null)
+			resources = new ReportResourceMap();
+		else
+			resources.clear();
+		if (metrics == null)
+			metrics = new ReportMetricMap();
+		else
+			metrics.clear();
+		if (features == null)
+			features = new ArrayList<String>();
+		else
+			features.clear();
+		if (messages == null)
+			messages = new ArrayList<String>();
+		else
+			messages.clear();
+		operatingSystem = null;
+		partition = null;
+		if (variables == null)
+			variables = new HashMap<String, String>();
+		else
+			variables.clear();
+		ipAddress = null;
+		power = null;
+		state = null;
+		subState = null;
+		architecture = null;
+		if (attributes == null)
+			attributes = new ReportAttributeMap();
+		else
+			attributes.clear();
+		pluginId = null;
+		precedence = null;
+		timeToLive = ReportDateParser.NO_DATE;
+		requestId = null;
+		if (aclRules == null)
+			aclRules = new ArrayList<AclReportRule>();
+		else
+			aclRules.clear();
+	}
+
 	/**
 	 * Creates a new, empty node report.
 	 */
@@ -0,0 +1,389 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * A columnar representation of many node reports, which stores each property in its own array instead of
+ * in separate report objects.  This makes scans over a whole cluster, such as summing processors or
+ * counting nodes by state, read contiguous memory.
+ * <p>
+ * The batch holds the following properties of each node:
+ * <ul>
+ *     <li>The name, partition, state, and power.</li>
+ *     <li>The total and available amounts of each resource in {@link PluginConstants#KNOWN_RESOURCES}, with
+ *     {@link #NO_VALUE} for amounts which are not set.</li>
+ *     <li>The values of the {@link PluginConstants#METRIC_CPULOAD}, {@link PluginConstants#METRIC_SPEED},
+ *     {@link PluginConstants#METRIC_CPU_UTILIZATION}, and {@link PluginConstants#METRIC_VM_COUNT} metrics, with
+ *     {@link Double#NaN} for metrics which are not set.</li>
+ * </ul>
+ * All other properties are not kept, so converting reports to a batch and back only retains the above.
+ * <pre>
+ * NodeReportBatch batch = NodeReportBatch.of(nodeReports)
+ * long processors = batch.sumTotal(PluginConstants.RESOURCE_PROCESSORS)
+ * NodeReportBatch idle = batch.filterByState(NodeReportState.IDLE)
+ * </pre>
+ * This class is not thread-safe.
+ */
+public class NodeReportBatch {
+	/**
+	 * The value of resource amounts which are not set.
+	 */
+	public static final int NO_VALUE = Integer.MIN_VALUE;
+	/**
+	 * The metrics stored by the batch, in column order.
+	 */
+	public static final List<String> METRICS = ReportMetricMap.SLOT_METRICS;
+
+	private static final NodeReportState[] STATES = NodeReportState.values();
+	private static final NodeReportPower[] POWERS = NodeReportPower.values();
+	private static final int RESOURCE_COUNT = PluginConstants.KNOWN_RESOURCES.size();
+
+	private int size = 0;
+	private String[] names;
+	private String[] partitions;
+	/**
+	 * The state ordinals, or -1 for null states.
+	 */
+	private byte[] states;
+	/**
+	 * The power ordinals, or -1 for null power states.
+	 */
+	private byte[] powers;
+	private final int[][] totals = new int[RESOURCE_COUNT][];
+	private final int[][] available = new int[RESOURCE_COUNT][];
+	private final double[][] metrics = new double[METRICS.size()][];
+
+	/**
+	 * Creates an empty batch.
+	 * @param capacity The number of nodes to allocate space for
+	 * @throws IllegalArgumentException If the capacity is negative
+	 */
+	public NodeReportBatch(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Argument [capacity] must not be negative");
+		allocate(capacity);
+	}
+
+	/**
+	 * Creates a batch containing the given reports.
+	 * @param reports The reports to add
+	 * @return A new batch
+	 */
+	public static NodeReportBatch of(List<NodeReport> reports) {
+		NodeReportBatch batch = new NodeReportBatch(reports.size());
+		for (NodeReport report : reports)
+			batch.add(report);
+		return batch;
+	}
+
+	/**
+	 * Adds the columnar properties of a report to the end of the batch.
+	 * @param report The report to add
+	 */
+	public void add(NodeReport report) {
+		int index = nextIndex();
+		names[index] = report.getName();
+		partitions[index] = report.getPartition();
+		states[index] = report.getState() == null ? -1 : (byte)report.getState().ordinal();
+		powers[index] = report.getPower() == null ? -1 : (byte)report.getPower().ordinal();
+		ReportResourceMap resources = report.getResources();
+		for (int r = 0; r < RESOURCE_COUNT; r++) {
+			ReportResource resource = resources == null ? null : resources.getIfPresent(PluginConstants.KNOWN_RESOURCES.get(r));
+			totals[r][index] = resource == null ? NO_VALUE : resource.getTotal(NO_VALUE);
+			available[r][index] = resource == null ? NO_VALUE : resource.getAvailable(NO_VALUE);
+		}
+		Map<String, Double> reportMetrics = report.getMetrics();
+		for (int m = 0; m < metrics.length; m++) {
+			String metric = METRICS.get(m);
+			if (reportMetrics instanceof ReportMetricMap) {
+				metrics[m][index] = ((ReportMetricMap)reportMetrics).getValue(metric, Double.NaN);
+			} else {
+				Double value = reportMetrics == null ? null : reportMetrics.get(metric);
+				metrics[m][index] = value == null ? Double.NaN : value;
+			}
+		}
+	}
+
+	/**
+	 * Creates a node report from the columnar properties of a node.
+	 * @param index The index of the node
+	 * @return A new report
+	 */
+	public NodeReport toReport(int index) {
+		checkIndex(index);
+		NodeReport report = new NodeReport(names[index]);
+		report.setPartition(partitions[index]);
+		report.setState(getState(index));
+		report.setPower(getPower(index));
+		for (int r = 0; r < RESOURCE_COUNT; r++) {
+			int total = totals[r][index];
+			int avail = available[r][index];
+			if (total == NO_VALUE && avail == NO_VALUE)
+				continue;
+			ReportResource resource = report.getResources().get(PluginConstants.KNOWN_RESOURCES.get(r));
+			if (total != NO_VALUE)
+				resource.setTotal(total);
+			if (avail != NO_VALUE)
+				resource.setAvailable(avail);
+		}
+		ReportMetricMap reportMetrics = (ReportMetricMap)report.getMetrics();
+		for (int m = 0; m < metrics.length; m++) {
+			if (!Double.isNaN(metrics[m][index]))
+				reportMetrics.putValue(METRICS.get(m), metrics[m][index]);
+		}
+		return report;
+	}
+
+	/**
+	 * Creates node reports from all nodes in the batch.
+	 * @return New reports, in batch order
+	 */
+	public List<NodeReport> toReports() {
+		List<NodeReport> reports = new ArrayList<NodeReport>(size);
+		for (int i = 0; i < size; i++)
+			reports.add(toReport(i));
+		return reports;
+	}
+
+	/**
+	 * Returns the number of nodes in the batch.
+	 * @return The number of nodes
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @see NodeReport#getName()
+	 */
+	public String getName(int index) {
+		checkIndex(index);
+		return names[index];
+	}
+	/**
+	 * @see NodeReport#getPartition()
+	 */
+	public String getPartition(int index) {
+		checkIndex(index);
+		return partitions[index];
+	}
+	/**
+	 * @see NodeReport#getState()
+	 */
+	public NodeReportState getState(int index) {
+		checkIndex(index);
+		return states[index] < 0 ? null : STATES[states[index]];
+	}
+	/**
+	 * @see NodeReport#getPower()
+	 */
+	public NodeReportPower getPower(int index) {
+		checkIndex(index);
+		return powers[index] < 0 ? null : POWERS[powers[index]];
+	}
+	/**
+	 * Retrieves the total amount of a known resource.
+	 * @param resource The name of a resource in {@link PluginConstants#KNOWN_RESOURCES}
+	 * @param index The index of the node
+	 * @return The total amount or {@link #NO_VALUE} if not set
+	 */
+	public int getTotal(String resource, int index) {
+		int r = resourceIndex(resource);
+		checkIndex(index);
+		return totals[r][index];
+	}
+	/**
+	 * Retrieves the available amount of a known resource.
+	 * @param resource The name of a resource in {@link PluginConstants#KNOWN_RESOURCES}
+	 * @param index The index of the node
+	 * @return The available amount or {@link #NO_VALUE} if not set
+	 */
+	public int getAvailable(String resource, int index) {
+		int r = resourceIndex(resource);
+		checkIndex(index);
+		return available[r][index];
+	}
+	/**
+	 * Retrieves the value of a metric.
+	 * @param metric The name of a metric in {@link #METRICS}
+	 * @param index The index of the node
+	 * @return The value or {@link Double#NaN} if not set
+	 */
+	public double getMetric(String metric, int index) {
+		int m = metricIndex(metric);
+		checkIndex(index);
+		return metrics[m][index];
+	}
+
+	/**
+	 * Sums the total amounts of a known resource over all nodes, ignoring nodes where it is not set.
+	 * @param resource The name of a resource in {@link PluginConstants#KNOWN_RESOURCES}
+	 * @return The sum
+	 */
+	public long sumTotal(String resource) {
+		return sum(totals[resourceIndex(resource)]);
+	}
+
+	/**
+	 * Sums the available amounts of a known resource over all nodes, ignoring nodes where it is not set.
+	 * @param resource The name of a resource in {@link PluginConstants#KNOWN_RESOURCES}
+	 * @return The sum
+	 */
+	public long sumAvailable(String resource) {
+		return sum(available[resourceIndex(resource)]);
+	}
+
+	/**
+	 * Counts the nodes in each state.
+	 * @return The number of nodes in each state, indexed by {@link NodeReportState#ordinal()}
+	 */
+	public int[] countStates() {
+		int[] counts = new int[STATES.length];
+		byte[] column = states;
+		for (int i = 0; i < size; i++) {
+			if (column[i] >= 0)
+				counts[column[i]]++;
+		}
+		return counts;
+	}
+
+	/**
+	 * Creates a new batch containing the nodes for which the predicate is true.
+	 * @param predicate Tests the index of each node
+	 * @return A new batch
+	 */
+	public NodeReportBatch filter(IntPredicate predicate) {
+		NodeReportBatch batch = new NodeReportBatch(0);
+		for (int i = 0; i < size; i++) {
+			if (predicate.test(i))
+				batch.copy(this, i);
+		}
+		return batch;
+	}
+
+	/**
+	 * Creates a new batch containing the nodes in any of the given states.
+	 * @param states The states to include
+	 * @return A new batch
+	 */
+	public NodeReportBatch filterByState(NodeReportState... states) {
+		final boolean[] included = new boolean[STATES.length];
+		for (NodeReportState state : states)
+			included[state.ordinal()] = true;
+		final byte[] column = this.states;
+		return filter(i -> column[i] >= 0 && included[column[i]]);
+	}
+
+	/**
+	 * Creates a new batch containing the nodes in the given partition.
+	 * @param partition The partition, may be null to include nodes without a partition
+	 * @return A new batch
+	 */
+	public NodeReportBatch filterByPartition(final String partition) {
+		final String[] column = partitions;
+		return filter(i -> Objects.equals(column[i], partition));
+	}
+
+	// Direct column access for NodeReportStatistics, only the first size() elements are valid
+
+	byte[] stateColumn() {
+		return states;
+	}
+
+	int[] totalColumn(int resourceIndex) {
+		return totals[resourceIndex];
+	}
+
+	int[] availableColumn(int resourceIndex) {
+		return available[resourceIndex];
+	}
+
+	double[] metricColumn(int metricIndex) {
+		return metrics[metricIndex];
+	}
+
+	private long sum(int[] column) {
+		long sum = 0;
+		for (int i = 0; i < size; i++) {
+			int value = column[i];
+			if (value != NO_VALUE)
+				sum += value;
+		}
+		return sum;
+	}
+
+	private void copy(NodeReportBatch source, int sourceIndex) {
+		int index = nextIndex();
+		names[index] = source.names[sourceIndex];
+		partitions[index] = source.partitions[sourceIndex];
+		states[index] = source.states[sourceIndex];
+		powers[index] = source.powers[sourceIndex];
+		for (int r = 0; r < RESOURCE_COUNT; r++) {
+			totals[r][index] = source.totals[r][sourceIndex];
+			available[r][index] = source.available[r][sourceIndex];
+		}
+		for (int m = 0; m < metrics.length; m++)
+			metrics[m][index] = source.metrics[m][sourceIndex];
+	}
+
+	private int nextIndex() {
+		if (size == names.length)
+			allocate(Math.max(16, size * 2));
+		return size++;
+	}
+
+	private void allocate(int capacity) {
+		names = names == null ? new String[capacity] : Arrays.copyOf(names, capacity);
+		partitions = partitions == null ? new String[capacity] : Arrays.copyOf(partitions, capacity);
+		states = states == null ? new byte[capacity] : Arrays.copyOf(states, capacity);
+		powers = powers == null ? new byte[capacity] : Arrays.copyOf(powers, capacity);
+		for (int r = 0; r < RESOURCE_COUNT; r++) {
+			totals[r] = totals[r] == null ? new int[capacity] : Arrays.copyOf(totals[r], capacity);
+			available[r] = available[r] == null ? new int[capacity] : Arrays.copyOf(available[r], capacity);
+		}
+		for (int m = 0; m < metrics.length; m++)
+			metrics[m] = metrics[m] == null ? new double[capacity] : Arrays.copyOf(metrics[m], capacity);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+	}
+
+	/**
+	 * Returns the index of a resource name in {@link PluginConstants#KNOWN_RESOURCES}.
+	 * @param key The resource name
+	 * @return The index or -1 if the name is not a known resource
+	 */
+	static int knownResourceIndex(Object key) {
+		if (!(key instanceof String))
+			return -1;
+		switch ((String)key) {
+			case PluginConstants.RESOURCE_PROCESSORS:
+				return 0;
+			case PluginConstants.RESOURCE_MEMORY:
+				return 1;
+			case PluginConstants.RESOURCE_DISK:
+				return 2;
+			case PluginConstants.RESOURCE_SWAP:
+				return 3;
+			default:
+				return -1;
+		}
+	}
+
+	private static int resourceIndex(String resource) {
+		int index = knownResourceIndex(resource);
+		if (index < 0)
+			throw new IllegalArgumentException("Argument [resource] must be one of "+PluginConstants.KNOWN_RESOURCES);
+		return index;
+	}
+
+	private static int metricIndex(String metric) {
+		int index = ReportMetricMap.slotIndex(metric);
+		if (index < 0)
+			throw new IllegalArgumentException("Argument [metric] must be one of "+METRICS);
+		return index;
+	}
+}
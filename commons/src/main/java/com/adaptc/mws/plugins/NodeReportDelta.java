@@ -0,0 +1,196 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+
+/**
+ * Represents the field-level difference between two {@link NodeReport} instances for the same node.
+ * Since a node report is only required to contain the changed properties of a node, the difference is
+ * itself represented as a sparse node report (see {@link #getReport()}) containing only the properties
+ * that changed, which may be submitted using {@link INodeRMService#updateDeltas(List)}.
+ * <p>
+ * The following rules are used when computing a delta:
+ * <ul>
+ *     <li>The name, timestamp, and slave report flag are always copied from the current report.</li>
+ *     <li>The plugin ID and precedence are ignored since they are overridden by the RM services.</li>
+ *     <li>The resources, metrics, variables, and attributes are compared entry by entry and only new or
+ *     modified entries are included.  If any entry was removed, all current entries are included and the
+ *     delta is not sparse.</li>
+ *     <li>The features, messages, and ACL rules are compared as a whole and included in full if changed.</li>
+ *     <li>All other properties are included only if changed.</li>
+ * </ul>
+ * Values in the sparse report are shared with the current report and are not copied.
+ * <p>
+ * Since updates merge map entries into the cached report, removing an entry from a map property cannot be
+ * expressed by a sparse report.  Such deltas are not sparse (see {@link #isSparse()}), and the current reports
+ * must be submitted using {@link INodeRMService#save(List)} instead.
+ * <pre>
+ * def deltas = NodeReportDelta.diff(previousReports, currentReports)
+ * if (deltas.every { it.sparse })
+ *     nodeRMService.updateDeltas(deltas)
+ * else
+ *     nodeRMService.save(currentReports)
+ * </pre>
+ */
+public class NodeReportDelta {
+	/**
+	 * The sparse node report containing only the changed properties.
+	 */
+	private final NodeReport report;
+	/**
+	 * The names of the node report properties that changed, such as "state" or "resources".
+	 */
+	private final Set<String> changedProperties = new LinkedHashSet<String>();
+	/**
+	 * The names of the map properties of the node report from which entries were removed, such as "variables".
+	 */
+	private final Set<String> removedProperties = new LinkedHashSet<String>();
+
+	private NodeReportDelta(NodeReport report) {
+		this.report = report;
+	}
+
+	/**
+	 * @see NodeReport#getName()
+	 */
+	public String getName() {
+		return report.getName();
+	}
+	/**
+	 * @see #report
+	 */
+	public NodeReport getReport() {
+		return report;
+	}
+	/**
+	 * @see #changedProperties
+	 */
+	public Set<String> getChangedProperties() {
+		return Collections.unmodifiableSet(changedProperties);
+	}
+	/**
+	 * Returns true if the specified node report property changed.
+	 * @param property The name of the property, such as "state"
+	 * @return True if the property changed
+	 */
+	public boolean isChanged(String property) {
+		return changedProperties.contains(property);
+	}
+	/**
+	 * Returns true if no properties changed, meaning that the delta does not need to be submitted.
+	 * @return True if nothing changed
+	 */
+	public boolean isEmpty() {
+		return changedProperties.isEmpty();
+	}
+	/**
+	 * @see #removedProperties
+	 */
+	public Set<String> getRemovedProperties() {
+		return Collections.unmodifiableSet(removedProperties);
+	}
+	/**
+	 * Returns true if the changes may be submitted as a sparse report using an update, which is the case unless
+	 * entries were removed from a map property.
+	 * @return True if no entries were removed
+	 */
+	public boolean isSparse() {
+		return removedProperties.isEmpty();
+	}
+
+	/**
+	 * Computes the difference between two reports for the same node.
+	 * @param previous The previously submitted report, may be null to treat every property of the current report as changed
+	 * @param current The current report
+	 * @return The difference between the reports, never null
+	 * @throws IllegalArgumentException If the current report is null or the names of the reports do not match
+	 */
+	public static NodeReportDelta diff(NodeReport previous, NodeReport current) {
+		if (current == null)
+			throw new IllegalArgumentException("Argument [current] must not be null");
+		if (previous == null)
+			previous = new NodeReport(current.getName());
+		else if (previous.getName() == null ? current.getName() != null : !previous.getName().equals(current.getName()))
+			throw new IllegalArgumentException("Argument [previous] is not a report for node "+current.getName());
+
+		NodeReport report = new NodeReport(current.getName());
+		report.timestampMillis(current.timestampMillis());
+		report.setSlaveReport(current.getSlaveReport());
+		NodeReportDelta delta = new NodeReportDelta(report);
+		Set<String> changed = delta.changedProperties;
+
+		if (ReportDiffs.compare(changed, "state", previous.getState(), current.getState()))
+			report.setState(current.getState());
+		if (ReportDiffs.compare(changed, "subState", previous.getSubState(), current.getSubState()))
+			report.setSubState(current.getSubState());
+		if (ReportDiffs.compare(changed, "power", previous.getPower(), current.getPower()))
+			report.setPower(current.getPower());
+		if (ReportDiffs.compare(changed, "operatingSystem", previous.getOperatingSystem(), current.getOperatingSystem()))
+			report.setOperatingSystem(current.getOperatingSystem());
+		if (ReportDiffs.compare(changed, "partition", previous.getPartition(), current.getPartition()))
+			report.setPartition(current.getPartition());
+		if (ReportDiffs.compare(changed, "ipAddress", previous.getIpAddress(), current.getIpAddress()))
+			report.setIpAddress(current.getIpAddress());
+		if (ReportDiffs.compare(changed, "architecture", previous.getArchitecture(), current.getArchitecture()))
+			report.setArchitecture(current.getArchitecture());
+		if (ReportDiffs.compare(changed, "timeToLive", previous.timeToLiveMillis(), current.timeToLiveMillis()))
+			report.timeToLiveMillis(current.timeToLiveMillis());
+		if (ReportDiffs.compare(changed, "requestId", previous.getRequestId(), current.getRequestId()))
+			report.setRequestId(current.getRequestId());
+
+		ReportDiffs.compareEntries(changed, delta.removedProperties, "resources",
+				previous.getResources(), current.getResources(), report.getResources());
+		ReportDiffs.compareEntries(changed, delta.removedProperties, "metrics",
+				previous.getMetrics(), current.getMetrics(), report.getMetrics());
+		ReportDiffs.compareEntries(changed, delta.removedProperties, "variables",
+				previous.getVariables(), current.getVariables(), report.getVariables());
+		ReportDiffs.compareEntries(changed, delta.removedProperties, "attributes",
+				previous.getAttributes(), current.getAttributes(), report.getAttributes());
+
+		if (ReportDiffs.compareList(changed, "features", previous.getFeatures(), current.getFeatures()))
+			report.setFeatures(current.getFeatures());
+		if (ReportDiffs.compareList(changed, "messages", previous.getMessages(), current.getMessages()))
+			report.setMessages(current.getMessages());
+		if (ReportDiffs.compareList(changed, "aclRules", previous.getAclRules(), current.getAclRules()))
+			report.setAclRules(current.getAclRules());
+		return delta;
+	}
+
+	/**
+	 * Computes the differences between two lists of node reports, matching reports by node name.  Nodes
+	 * which are only present in the current list are treated as completely changed, while nodes only
+	 * present in the previous list are ignored.
+	 * @param previous The previously submitted reports, may be null
+	 * @param current The current reports
+	 * @return A delta for each current report, in the same order
+	 */
+	public static List<NodeReportDelta> diff(List<NodeReport> previous, List<NodeReport> current) {
+		Map<String, NodeReport> previousByName = new HashMap<String, NodeReport>();
+		if (previous != null) {
+			for (NodeReport report : previous)
+				previousByName.put(report.getName(), report);
+		}
+		List<NodeReportDelta> deltas = new ArrayList<NodeReportDelta>(current.size());
+		for (NodeReport report : current)
+			deltas.add(diff(previousByName.get(report.getName()), report));
+		return deltas;
+	}
+
+	/**
+	 * Converts deltas into the sparse node reports to submit, skipping any empty deltas.
+	 * @param deltas The deltas to convert
+	 * @return The sparse reports of all non-empty deltas
+	 * @throws IllegalArgumentException If any delta is not sparse
+	 */
+	public static List<NodeReport> toReports(List<NodeReportDelta> deltas) {
+		List<NodeReport> reports = new ArrayList<NodeReport>(deltas.size());
+		for (NodeReportDelta delta : deltas) {
+			if (delta.isEmpty())
+				continue;
+			if (!delta.isSparse())
+				throw new IllegalArgumentException("Argument [deltas] contains removed entries of "+
+						delta.getRemovedProperties()+" for node "+delta.getName()+", which must be submitted using save");
+			reports.add(delta.getReport());
+		}
+		return reports;
+	}
+}
@@ -17,6 +17,12 @@ public enum NodeReportPower {
 	 */
 	OFF("Off");
 
+	private static final CaseInsensitiveLookup<NodeReportPower> LOOKUP = new CaseInsensitiveLookup<NodeReportPower>();
+	static {
+		for (NodeReportPower power : values())
+			LOOKUP.put(power.moabLabel, power);
+	}
+
 	private String moabLabel;
 
 	private NodeReportPower(String moabLabel) {
@@ -35,11 +41,7 @@ public enum NodeReportPower {
 		}
 		//trim any white space
 		string = string.trim();
-		
-		for(NodeReportPower power : values())
-			if (power.moabLabel.equalsIgnoreCase(string))
-				return power;
-		return null;
+		return LOOKUP.get(string);
 	}
 
 	/**
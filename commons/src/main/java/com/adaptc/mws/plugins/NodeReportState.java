@@ -54,6 +54,12 @@ public enum NodeReportState {
 	 */
 	UNKNOWN("Unknown");
 
+	private static final CaseInsensitiveLookup<NodeReportState> LOOKUP = new CaseInsensitiveLookup<NodeReportState>();
+	static {
+		for (NodeReportState state : values())
+			LOOKUP.put(state.name(), state);
+	}
+
 	private String str;
 
 	private NodeReportState(String str) {
@@ -68,10 +74,7 @@ public enum NodeReportState {
 	 * @return The corresponding NodeReportState object or null if not found.
 	 */
 	public static NodeReportState parse(String string) {
-		for(NodeReportState state : values())
-			if (state.name().equalsIgnoreCase(string))
-				return state;
-		return null;
+		return LOOKUP.get(string);
 	}
 
 	/**
@@ -0,0 +1,416 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Aggregated statistics (count, sum, minimum, maximum, and average) of the resources and metrics of many
+ * nodes, along with the number of nodes in each state.  Statistics are computed in a single pass over a list
+ * of reports or a {@link NodeReportBatch}, split into chunks which are aggregated in parallel on the common
+ * {@link ForkJoinPool} and then combined.
+ * <pre>
+ * NodeReportStatistics statistics = NodeReportStatistics.of(nodeReports)
+ * long processors = statistics.getTotal(PluginConstants.RESOURCE_PROCESSORS).sum
+ * double load = statistics.getMetric(PluginConstants.METRIC_CPULOAD).average
+ * int idle = statistics.getStateCount(NodeReportState.IDLE)
+ *
+ * Map&lt;String, NodeReportStatistics&gt; byPartition = NodeReportStatistics.groupBy(nodeReports) { it.partition }
+ * </pre>
+ * Resource amounts and metrics which are not set on a node are not included in the statistics for that
+ * resource or metric.  When aggregating a batch, only the properties held by the batch are available.
+ * <p>
+ * Reports must not be modified while statistics are being computed.  Once computed, instances are not
+ * modified and may be shared between threads.
+ */
+public final class NodeReportStatistics {
+	/**
+	 * The number of nodes below which a chunk is aggregated without splitting it further.
+	 */
+	static final int CHUNK_SIZE = 512;
+
+	private static final NodeReportState[] STATES = NodeReportState.values();
+	private static final int RESOURCE_COUNT = PluginConstants.KNOWN_RESOURCES.size();
+	private static final int METRIC_COUNT = ReportMetricMap.SLOT_METRICS.size();
+
+	private int count = 0;
+	private final int[] stateCounts = new int[STATES.length];
+	private final LongSummaryStatistics[] knownTotals = new LongSummaryStatistics[RESOURCE_COUNT];
+	private final LongSummaryStatistics[] knownAvailable = new LongSummaryStatistics[RESOURCE_COUNT];
+	private final DoubleSummaryStatistics[] slotMetrics = new DoubleSummaryStatistics[METRIC_COUNT];
+	/**
+	 * Statistics of custom resources and metrics, only allocated once one is seen.
+	 */
+	private Map<String, LongSummaryStatistics> customTotals;
+	private Map<String, LongSummaryStatistics> customAvailable;
+	private Map<String, DoubleSummaryStatistics> customMetrics;
+
+	private NodeReportStatistics() {
+	}
+
+	/**
+	 * Computes the statistics of a list of reports.
+	 * @param reports The reports
+	 * @return The statistics
+	 */
+	public static NodeReportStatistics of(List<NodeReport> reports) {
+		return single(groupBy(reports, report -> Boolean.TRUE));
+	}
+
+	/**
+	 * Computes the statistics of all nodes in a batch.
+	 * @param batch The batch
+	 * @return The statistics
+	 */
+	public static NodeReportStatistics of(NodeReportBatch batch) {
+		return single(groupBy(batch, index -> Boolean.TRUE));
+	}
+
+	/**
+	 * Computes separate statistics for groups of reports.
+	 * @param reports The reports
+	 * @param keys Returns the key of the group of a report, such as the partition, may return null
+	 * @param <K> The type of key
+	 * @return The statistics of each group which contains at least one report, in no particular order
+	 */
+	public static <K> Map<K, NodeReportStatistics> groupBy(final List<NodeReport> reports,
+														   final Function<NodeReport, K> keys) {
+		if (reports.isEmpty())
+			return new HashMap<K, NodeReportStatistics>();
+		final NodeReport[] array = reports.toArray(new NodeReport[reports.size()]);
+		return aggregate(array.length, index -> keys.apply(array[index]),
+				(statistics, index) -> statistics.add(array[index]));
+	}
+
+	/**
+	 * Computes separate statistics for groups of nodes in a batch.
+	 * @param batch The batch
+	 * @param keys Returns the key of the group of the node at an index, such as {@link NodeReportBatch#getPartition(int)},
+	 *             may return null
+	 * @param <K> The type of key
+	 * @return The statistics of each group which contains at least one node, in no particular order
+	 */
+	public static <K> Map<K, NodeReportStatistics> groupBy(final NodeReportBatch batch, IntFunction<K> keys) {
+		if (batch.size() == 0)
+			return new HashMap<K, NodeReportStatistics>();
+		return aggregate(batch.size(), keys, (statistics, index) -> statistics.add(batch, index));
+	}
+
+	/**
+	 * Returns the number of nodes aggregated.
+	 * @return The number of nodes
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of nodes in a state.
+	 * @param state The state
+	 * @return The number of nodes
+	 */
+	public int getStateCount(NodeReportState state) {
+		return stateCounts[state.ordinal()];
+	}
+
+	/**
+	 * Returns the number of nodes in each state, excluding states without nodes and nodes without a state.
+	 * @return A new map of each state to the number of nodes
+	 */
+	public Map<NodeReportState, Integer> getStateCounts() {
+		Map<NodeReportState, Integer> counts = new EnumMap<NodeReportState, Integer>(NodeReportState.class);
+		for (int s = 0; s < stateCounts.length; s++) {
+			if (stateCounts[s] > 0)
+				counts.put(STATES[s], stateCounts[s]);
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the statistics of the total amounts of a resource.
+	 * @param resource The name of the resource
+	 * @return New statistics, which are empty if no node has a total amount of the resource
+	 */
+	public LongSummaryStatistics getTotal(String resource) {
+		int r = NodeReportBatch.knownResourceIndex(resource);
+		return copy(r >= 0 ? knownTotals[r] : customTotals == null ? null : customTotals.get(resource));
+	}
+
+	/**
+	 * Returns the statistics of the available amounts of a resource.
+	 * @param resource The name of the resource
+	 * @return New statistics, which are empty if no node has an available amount of the resource
+	 */
+	public LongSummaryStatistics getAvailable(String resource) {
+		int r = NodeReportBatch.knownResourceIndex(resource);
+		return copy(r >= 0 ? knownAvailable[r] : customAvailable == null ? null : customAvailable.get(resource));
+	}
+
+	/**
+	 * Returns the statistics of a metric.
+	 * @param metric The name of the metric
+	 * @return New statistics, which are empty if no node has the metric
+	 */
+	public DoubleSummaryStatistics getMetric(String metric) {
+		int m = ReportMetricMap.slotIndex(metric);
+		DoubleSummaryStatistics statistics = m >= 0 ? slotMetrics[m] : customMetrics == null ? null : customMetrics.get(metric);
+		DoubleSummaryStatistics copy = new DoubleSummaryStatistics();
+		if (statistics != null)
+			copy.combine(statistics);
+		return copy;
+	}
+
+	/**
+	 * Returns the names of all resources with a total or available amount on at least one node.
+	 * @return A new set of resource names
+	 */
+	public Set<String> getResourceNames() {
+		Set<String> names = new LinkedHashSet<String>();
+		for (int r = 0; r < RESOURCE_COUNT; r++) {
+			if (knownTotals[r] != null || knownAvailable[r] != null)
+				names.add(PluginConstants.KNOWN_RESOURCES.get(r));
+		}
+		if (customTotals != null)
+			names.addAll(customTotals.keySet());
+		if (customAvailable != null)
+			names.addAll(customAvailable.keySet());
+		return names;
+	}
+
+	/**
+	 * Returns the names of all metrics set on at least one node.
+	 * @return A new set of metric names
+	 */
+	public Set<String> getMetricNames() {
+		Set<String> names = new LinkedHashSet<String>();
+		for (int m = 0; m < METRIC_COUNT; m++) {
+			if (slotMetrics[m] != null)
+				names.add(ReportMetricMap.SLOT_METRICS.get(m));
+		}
+		if (customMetrics != null)
+			names.addAll(customMetrics.keySet());
+		return names;
+	}
+
+	private static NodeReportStatistics single(Map<Boolean, NodeReportStatistics> groups) {
+		NodeReportStatistics statistics = groups.get(Boolean.TRUE);
+		return statistics == null ? new NodeReportStatistics() : statistics;
+	}
+
+	private static <K> Map<K, NodeReportStatistics> aggregate(int size, IntFunction<K> keys,
+															  ObjIntConsumer<NodeReportStatistics> accumulator) {
+		AggregateTask<K> task = new AggregateTask<K>(keys, accumulator, 0, size);
+		if (size <= CHUNK_SIZE)
+			return task.compute();
+		return ForkJoinPool.commonPool().invoke(task);
+	}
+
+	private void add(NodeReport report) {
+		count++;
+		if (report.getState() != null)
+			stateCounts[report.getState().ordinal()]++;
+
+		ReportResourceMap resources = report.getResources();
+		if (resources != null && !resources.isEmpty()) {
+			int known = 0;
+			for (int r = 0; r < RESOURCE_COUNT; r++) {
+				ReportResource resource = resources.getIfPresent(PluginConstants.KNOWN_RESOURCES.get(r));
+				if (resource != null) {
+					known++;
+					knownTotals[r] = accept(knownTotals[r], resource.getTotal(NodeReportBatch.NO_VALUE));
+					knownAvailable[r] = accept(knownAvailable[r], resource.getAvailable(NodeReportBatch.NO_VALUE));
+				}
+			}
+			if (resources.size() > known) {
+				for (Map.Entry<String, ReportResource> entry : resources.entrySet()) {
+					if (NodeReportBatch.knownResourceIndex(entry.getKey()) >= 0 || entry.getValue() == null)
+						continue;
+					if (customTotals == null) {
+						customTotals = new HashMap<String, LongSummaryStatistics>();
+						customAvailable = new HashMap<String, LongSummaryStatistics>();
+					}
+					accept(customTotals, entry.getKey(), entry.getValue().getTotal(NodeReportBatch.NO_VALUE));
+					accept(customAvailable, entry.getKey(), entry.getValue().getAvailable(NodeReportBatch.NO_VALUE));
+				}
+			}
+		}
+
+		Map<String, Double> metrics = report.getMetrics();
+		if (metrics != null && !metrics.isEmpty()) {
+			int slots = 0;
+			boolean slotsDone = metrics instanceof ReportMetricMap;
+			if (slotsDone) {
+				ReportMetricMap metricMap = (ReportMetricMap)metrics;
+				for (int m = 0; m < METRIC_COUNT; m++) {
+					String metric = ReportMetricMap.SLOT_METRICS.get(m);
+					if (metricMap.containsKey(metric)) {
+						slots++;
+						slotMetrics[m] = accept(slotMetrics[m], metricMap.getValue(metric, Double.NaN));
+					}
+				}
+			}
+			if (metrics.size() > slots) {
+				for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+					int m = ReportMetricMap.slotIndex(entry.getKey());
+					Double value = entry.getValue();
+					if (value == null || m >= 0 && slotsDone)
+						continue;
+					if (m >= 0) {
+						slotMetrics[m] = accept(slotMetrics[m], value);
+					} else {
+						if (customMetrics == null)
+							customMetrics = new HashMap<String, DoubleSummaryStatistics>();
+						DoubleSummaryStatistics statistics = customMetrics.get(entry.getKey());
+						customMetrics.put(entry.getKey(), accept(statistics, value));
+					}
+				}
+			}
+		}
+	}
+
+	private void add(NodeReportBatch batch, int index) {
+		count++;
+		byte state = batch.stateColumn()[index];
+		if (state >= 0)
+			stateCounts[state]++;
+		for (int r = 0; r < RESOURCE_COUNT; r++) {
+			knownTotals[r] = accept(knownTotals[r], batch.totalColumn(r)[index]);
+			knownAvailable[r] = accept(knownAvailable[r], batch.availableColumn(r)[index]);
+		}
+		for (int m = 0; m < METRIC_COUNT; m++)
+			slotMetrics[m] = accept(slotMetrics[m], batch.metricColumn(m)[index]);
+	}
+
+	private void combine(NodeReportStatistics other) {
+		count += other.count;
+		for (int s = 0; s < stateCounts.length; s++)
+			stateCounts[s] += other.stateCounts[s];
+		for (int r = 0; r < RESOURCE_COUNT; r++) {
+			knownTotals[r] = combine(knownTotals[r], other.knownTotals[r]);
+			knownAvailable[r] = combine(knownAvailable[r], other.knownAvailable[r]);
+		}
+		for (int m = 0; m < METRIC_COUNT; m++)
+			slotMetrics[m] = combine(slotMetrics[m], other.slotMetrics[m]);
+		if (other.customTotals != null) {
+			if (customTotals == null) {
+				customTotals = new HashMap<String, LongSummaryStatistics>();
+				customAvailable = new HashMap<String, LongSummaryStatistics>();
+			}
+			for (Map.Entry<String, LongSummaryStatistics> entry : other.customTotals.entrySet())
+				customTotals.put(entry.getKey(), combine(customTotals.get(entry.getKey()), entry.getValue()));
+			for (Map.Entry<String, LongSummaryStatistics> entry : other.customAvailable.entrySet())
+				customAvailable.put(entry.getKey(), combine(customAvailable.get(entry.getKey()), entry.getValue()));
+		}
+		if (other.customMetrics != null) {
+			if (customMetrics == null)
+				customMetrics = new HashMap<String, DoubleSummaryStatistics>();
+			for (Map.Entry<String, DoubleSummaryStatistics> entry : other.customMetrics.entrySet())
+				customMetrics.put(entry.getKey(), combine(customMetrics.get(entry.getKey()), entry.getValue()));
+		}
+	}
+
+	private static LongSummaryStatistics accept(LongSummaryStatistics statistics, int value) {
+		if (value == NodeReportBatch.NO_VALUE)
+			return statistics;
+		if (statistics == null)
+			statistics = new LongSummaryStatistics();
+		statistics.accept(value);
+		return statistics;
+	}
+
+	private static void accept(Map<String, LongSummaryStatistics> statistics, String key, int value) {
+		if (value != NodeReportBatch.NO_VALUE)
+			statistics.put(key, accept(statistics.get(key), value));
+	}
+
+	private static DoubleSummaryStatistics accept(DoubleSummaryStatistics statistics, double value) {
+		if (Double.isNaN(value))
+			return statistics;
+		if (statistics == null)
+			statistics = new DoubleSummaryStatistics();
+		statistics.accept(value);
+		return statistics;
+	}
+
+	private static LongSummaryStatistics combine(LongSummaryStatistics statistics, LongSummaryStatistics other) {
+		if (other == null)
+			return statistics;
+		if (statistics == null)
+			statistics = new LongSummaryStatistics();
+		statistics.combine(other);
+		return statistics;
+	}
+
+	private static DoubleSummaryStatistics combine(DoubleSummaryStatistics statistics, DoubleSummaryStatistics other) {
+		if (other == null)
+			return statistics;
+		if (statistics == null)
+			statistics = new DoubleSummaryStatistics();
+		statistics.combine(other);
+		return statistics;
+	}
+
+	private static LongSummaryStatistics copy(LongSummaryStatistics statistics) {
+		LongSummaryStatistics copy = new LongSummaryStatistics();
+		if (statistics != null)
+			copy.combine(statistics);
+		return copy;
+	}
+
+	/**
+	 * Aggregates a range of indices, splitting it in half until it is at most {@link #CHUNK_SIZE} long.
+	 */
+	private static final class AggregateTask<K> extends RecursiveTask<Map<K, NodeReportStatistics>> {
+		private static final long serialVersionUID = 1L;
+
+		private final IntFunction<K> keys;
+		private final ObjIntConsumer<NodeReportStatistics> accumulator;
+		private final int from;
+		private final int to;
+
+		AggregateTask(IntFunction<K> keys, ObjIntConsumer<NodeReportStatistics> accumulator, int from, int to) {
+			this.keys = keys;
+			this.accumulator = accumulator;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Map<K, NodeReportStatistics> compute() {
+			if (to - from <= CHUNK_SIZE) {
+				Map<K, NodeReportStatistics> groups = new HashMap<K, NodeReportStatistics>();
+				K lastKey = null;
+				NodeReportStatistics last = null;
+				for (int i = from; i < to; i++) {
+					K key = keys.apply(i);
+					// Consecutive nodes commonly share a group, so avoid the lookup in that case
+					if (last == null || !Objects.equals(key, lastKey)) {
+						last = groups.get(key);
+						if (last == null) {
+							last = new NodeReportStatistics();
+							groups.put(key, last);
+						}
+						lastKey = key;
+					}
+					accumulator.accept(last, i);
+				}
+				return groups;
+			}
+			int middle = (from + to) >>> 1;
+			AggregateTask<K> left = new AggregateTask<K>(keys, accumulator, from, middle);
+			left.fork();
+			Map<K, NodeReportStatistics> groups = new AggregateTask<K>(keys, accumulator, middle, to).compute();
+			for (Map.Entry<K, NodeReportStatistics> entry : left.join().entrySet()) {
+				NodeReportStatistics statistics = groups.get(entry.getKey());
+				if (statistics == null)
+					groups.put(entry.getKey(), entry.getValue());
+				else
+					statistics.combine(entry.getValue());
+			}
+			return groups;
+		}
+	}
+}
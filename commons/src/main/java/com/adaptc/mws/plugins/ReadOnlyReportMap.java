@@ -0,0 +1,39 @@
+package com.adaptc.mws.plugins;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Package-private read-only view of a report map, such as {@link ReportResourceMap} or
+ * {@link ReportAttributeMap}.  Unlike the underlying map, retrieving a key that does not exist returns
+ * null instead of creating a new entry.
+ */
+class ReadOnlyReportMap<V> extends AbstractMap<String, V> {
+	private final Map<String, V> map;
+
+	ReadOnlyReportMap(Map<String, V> map) {
+		this.map = map;
+	}
+
+	@Override
+	public V get(Object key) {
+		return map.containsKey(key) ? map.get(key) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return map.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public Set<Entry<String, V>> entrySet() {
+		return Collections.unmodifiableSet(map.entrySet());
+	}
+}
@@ -1,5 +1,7 @@
 package com.adaptc.mws.plugins;
 
+import java.util.Objects;
+
 /**
  * Signifies a single node attribute definition in Moab Workload Manager, including
  * both the {@link #getValue()} and {@link #getDisplayValue()} properties.
@@ -46,6 +48,29 @@ public class ReportAttribute {
 		this.displayValue = displayValue;
 	}
 
+	/**
+	 * Two attributes are equal if both the value and display value are equal.
+	 * @param o The object to compare against
+	 * @return True if the object is an attribute with the same values
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof ReportAttribute))
+			return false;
+		ReportAttribute other = (ReportAttribute)o;
+		return Objects.equals(value, other.value) && Objects.equals(displayValue, other.displayValue);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(value, displayValue);
+	}
+
 	/**
 	 * Returns the value and display value as a string, such as "[value:val, displayValue:my value]".
 	 * @return The total and available amounts in a human-readable string
@@ -1,6 +1,7 @@
 package com.adaptc.mws.plugins;
 
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * A map containing String to {@link com.adaptc.mws.plugins.ReportAttribute} values.  If entries are attempted to be
@@ -30,6 +31,8 @@ import java.util.LinkedHashMap;
  *     	attributes.put(attributeName, "val")</code>
  *     </li>
  * </ul>
+ * To inspect entries without creating them, use {@link #getIfPresent(Object)} or the view returned by
+ * {@link #asReadOnly()}.
  * @author bsaville
  */
 public class ReportAttributeMap extends LinkedHashMap<String, ReportAttribute> {
@@ -56,6 +59,44 @@ public class ReportAttributeMap extends LinkedHashMap<String, ReportAttribute> {
 		get(key).setValue(value);
 	}
 
+	/**
+	 * Retrieves an entry without creating it if it does not already exist.
+	 * @param key The key to retrieve
+	 * @return A {@link com.adaptc.mws.plugins.ReportAttribute} value or null if the entry does not exist
+	 */
+	public ReportAttribute getIfPresent(Object key) {
+		return super.get(key);
+	}
+
+	/**
+	 * Returns a read-only view of this map which does not create entries when they are retrieved and
+	 * do not exist.  This should be used when only inspecting the entries, such as when comparing or
+	 * serializing, so that no empty entries are added.  Note that the values themselves may still be
+	 * modified.
+	 * @return A read-only view of this map
+	 */
+	public Map<String, ReportAttribute> asReadOnly() {
+		return new ReadOnlyReportMap<ReportAttribute>(this);
+	}
+
+	/**
+	 * Compares the entries of this map to the given map without creating any entries in either map.
+	 * @param o The object to compare against
+	 * @return True if the object is a map containing the same entries
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return o == this || o instanceof Map && ReportDiffs.entriesEqual(this, (Map<?, ?>)o);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+
 	/**
 	 * Allows array-like access to entries.<br>
 	 *  <code>attributes['attribute1'].value = "val"<br>
@@ -0,0 +1,115 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Filters out reports which have not changed since they were last returned by the filter, using the
+ * fingerprints computed by {@link ReportFingerprint}.  Only fingerprints are kept between polls, not the
+ * reports themselves.
+ * <pre>
+ * ReportChangeFilter&lt;NodeReport&gt; changeFilter = ReportChangeFilter.nodeReports()
+ * // During each poll
+ * def changed = changeFilter.filter(nodeReports)
+ * if (changed)
+ * 	nodeRMService.update(changed)
+ * </pre>
+ * Filtered reports should only be submitted using {@link INodeRMService#update(List)} or
+ * {@link IJobRMService#update(List)}.  The save methods replace all reports made previously, so any
+ * unchanged report left out of a save would be removed.
+ * <p>
+ * The fingerprint of a report is recorded as soon as it is returned by {@link #filter(List)}, so
+ * {@link #forget(String)} or {@link #clear()} should be called if the reports could not be submitted.
+ * Calling {@link #clear()} periodically will also cause all reports to be resent.
+ * @param <T> The type of report
+ */
+public class ReportChangeFilter<T> {
+	private final Function<T, String> names;
+	private final ToLongFunction<T> fingerprints;
+	private final Map<String, Long> submitted = new HashMap<String, Long>();
+
+	/**
+	 * Creates a new filter.
+	 * @param names Returns the name of a report, used to match reports between polls
+	 * @param fingerprints Computes the fingerprint of a report
+	 * @throws IllegalArgumentException If either function is null
+	 */
+	public ReportChangeFilter(Function<T, String> names, ToLongFunction<T> fingerprints) {
+		if (names == null)
+			throw new IllegalArgumentException("Argument [names] must not be null");
+		if (fingerprints == null)
+			throw new IllegalArgumentException("Argument [fingerprints] must not be null");
+		this.names = names;
+		this.fingerprints = fingerprints;
+	}
+
+	/**
+	 * Creates a new filter for node reports.
+	 * @return A new filter
+	 */
+	public static ReportChangeFilter<NodeReport> nodeReports() {
+		return new ReportChangeFilter<NodeReport>(NodeReport::getName, ReportFingerprint::of);
+	}
+
+	/**
+	 * Creates a new filter for job reports.
+	 * @return A new filter
+	 */
+	public static ReportChangeFilter<JobReport> jobReports() {
+		return new ReportChangeFilter<JobReport>(JobReport::getName, ReportFingerprint::of);
+	}
+
+	/**
+	 * Returns the reports which are new or have changed since they were last returned, and records their
+	 * fingerprints.
+	 * @param reports The current reports
+	 * @return The new or changed reports, in the same order
+	 */
+	public synchronized List<T> filter(List<T> reports) {
+		List<T> changed = new ArrayList<T>();
+		if (reports == null)
+			return changed;
+		for (T report : reports) {
+			Long fingerprint = fingerprints.applyAsLong(report);
+			if (!fingerprint.equals(submitted.put(names.apply(report), fingerprint)))
+				changed.add(report);
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns true if the report is new or has changed since it was last returned, without recording its
+	 * fingerprint.
+	 * @param report The current report
+	 * @return True if the report has changed
+	 */
+	public synchronized boolean isChanged(T report) {
+		Long fingerprint = submitted.get(names.apply(report));
+		return fingerprint == null || fingerprint != fingerprints.applyAsLong(report);
+	}
+
+	/**
+	 * Forgets the fingerprint of a report, so that it will be treated as changed the next time.  This should
+	 * be used when an object is removed.
+	 * @param name The name of the report
+	 */
+	public synchronized void forget(String name) {
+		submitted.remove(name);
+	}
+
+	/**
+	 * Forgets the fingerprints of all reports, so that all are treated as changed the next time.
+	 */
+	public synchronized void clear() {
+		submitted.clear();
+	}
+
+	/**
+	 * Returns the number of reports with recorded fingerprints.
+	 * @return The number of reports
+	 */
+	public synchronized int size() {
+		return submitted.size();
+	}
+}
@@ -0,0 +1,44 @@
+package com.adaptc.mws.plugins;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Package-private iterator which splits a list of reports into consecutive chunks of a bounded size.
+ * Each chunk is a view of the source list and is only created when requested.
+ */
+class ReportChunkIterator<T> implements Iterator<List<T>> {
+	private final List<T> reports;
+	private final int chunkSize;
+	private int offset = 0;
+
+	/**
+	 * @param reports The reports to split
+	 * @param chunkSize The maximum number of reports in each chunk
+	 * @throws IllegalArgumentException If the chunk size is not positive
+	 */
+	ReportChunkIterator(List<T> reports, int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Argument [chunkSize] must be greater than 0");
+		this.reports = reports;
+		this.chunkSize = chunkSize;
+	}
+
+	public boolean hasNext() {
+		return reports != null && offset < reports.size();
+	}
+
+	public List<T> next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		int end = Math.min(offset + chunkSize, reports.size());
+		List<T> chunk = reports.subList(offset, end);
+		offset = end;
+		return chunk;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+}
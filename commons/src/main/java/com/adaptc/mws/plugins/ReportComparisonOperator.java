@@ -46,6 +46,17 @@ public enum ReportComparisonOperator {
 	 */
 	LEXIGRAPHIC_EQUAL("%=");
 
+	private static final CaseInsensitiveLookup<ReportComparisonOperator> LOOKUP =
+			new CaseInsensitiveLookup<ReportComparisonOperator>();
+	static {
+		for (ReportComparisonOperator compare : values()) {
+			LOOKUP.put(compare.name(), compare);
+			LOOKUP.put(compare.compare1, compare);
+			LOOKUP.put(compare.compare2, compare);
+			LOOKUP.put(compare.compare3, compare);
+		}
+	}
+
 	private String compare1;
 	private String compare2;
 	private String compare3;
@@ -80,14 +91,6 @@ public enum ReportComparisonOperator {
 	}
 
 	public static ReportComparisonOperator parse(String string) {
-		for (ReportComparisonOperator compare : values()) {
-			if (compare.name().equalsIgnoreCase(string) ||
-					compare.compare1 != null && compare.compare1.equalsIgnoreCase(string) ||
-					compare.compare2 != null && compare.compare2.equalsIgnoreCase(string) ||
-					compare.compare3 != null && compare.compare3.equalsIgnoreCase(string)) {
-				return compare;
-			}
-		}
-		return null;
+		return LOOKUP.get(string);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.adaptc.mws.plugins;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+import org.joda.time.format.DateTimeFormatterBuilder;
+import org.joda.time.format.DateTimeParser;
+import org.joda.time.format.DateTimeParserBucket;
+import org.joda.time.tz.FixedDateTimeZone;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Parses dates in the standard format used by reports, "yyyy-MM-dd HH:mm:ss ZZZ" such as
+ * "2012-01-01 23:11:24 UTC", giving the same results as
+ * {@link PluginConstants#STANDARD_DATE_TIME_FORMATTER} without throwing exceptions for invalid
+ * strings.  This is used by the string date setters of {@link NodeReport} and {@link JobReport}.
+ * <p>
+ * Strings which match the format exactly are parsed directly, and the most recently parsed strings are
+ * cached since many reports in a batch usually share the same timestamp.  Any other strings are passed
+ * to {@link PluginConstants#STANDARD_DATE_TIME_FORMATTER}.
+ * <pre>
+ * long millis = ReportDateParser.parseMillis("2012-01-01 23:11:24 UTC")
+ * if (millis == ReportDateParser.NO_DATE)
+ * 	log.warn("Invalid date")
+ * </pre>
+ */
+public final class ReportDateParser {
+	/**
+	 * The value returned by {@link #parseMillis(String)} for strings which are not valid dates.
+	 */
+	public static final long NO_DATE = Long.MIN_VALUE;
+
+	/**
+	 * The length of the "yyyy-MM-dd HH:mm:ss " prefix preceding the time zone ID.
+	 */
+	private static final int ZONE_OFFSET = 20;
+	private static final int CACHE_SIZE = 512;
+	private static final int MAX_ZONES = 1024;
+	private static final DateTimeParser ZONE_PARSER = new DateTimeFormatterBuilder().appendTimeZoneId().toParser();
+	/**
+	 * Marks time zone IDs which are not valid, distinct from any zone returned by the parser.
+	 */
+	private static final DateTimeZone INVALID_ZONE = new FixedDateTimeZone("INVALID", null, 0, 0);
+
+	private static final ConcurrentMap<String, DateTimeZone> zones = new ConcurrentHashMap<String, DateTimeZone>();
+	/**
+	 * Direct-mapped cache of recently parsed strings indexed by hash code.  Entries are immutable, so
+	 * unsynchronized reads and writes may at worst lose an entry.
+	 */
+	private static final CachedDate[] cache = new CachedDate[CACHE_SIZE];
+
+	private ReportDateParser() {}
+
+	/**
+	 * Parses a date string in the standard format.
+	 * @param text The string to parse, may be null
+	 * @return The parsed date or null if the string is null or not a valid date
+	 */
+	public static Date parse(String text) {
+		long millis = parseMillis(text);
+		return millis == NO_DATE ? null : new Date(millis);
+	}
+
+	/**
+	 * Parses a date string in the standard format into milliseconds since the epoch.
+	 * @param text The string to parse, may be null
+	 * @return The parsed milliseconds or {@link #NO_DATE} if the string is null or not a valid date
+	 */
+	public static long parseMillis(String text) {
+		if (text == null)
+			return NO_DATE;
+		int index = (text.hashCode() & 0x7fffffff) % CACHE_SIZE;
+		CachedDate cached = cache[index];
+		if (cached != null && cached.text.equals(text))
+			return cached.millis;
+
+		long millis = parseStandard(text);
+		if (millis == NO_DATE)
+			millis = parseOther(text);
+		if (millis != NO_DATE)
+			cache[index] = new CachedDate(text, millis);
+		return millis;
+	}
+
+	/**
+	 * Parses strings which match the format exactly, with all fields zero-padded.
+	 * @return The parsed milliseconds or {@link #NO_DATE} if the string does not match the format or is invalid
+	 */
+	private static long parseStandard(String text) {
+		if (text.length() <= ZONE_OFFSET || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != ' ' ||
+				text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != ' ')
+			return NO_DATE;
+		int year = digits(text, 0, 4);
+		int month = digits(text, 5, 2);
+		int day = digits(text, 8, 2);
+		int hour = digits(text, 11, 2);
+		int minute = digits(text, 14, 2);
+		int second = digits(text, 17, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) ||
+				hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+			return NO_DATE;
+
+		DateTimeZone zone = getZone(text.substring(ZONE_OFFSET));
+		if (zone == INVALID_ZONE)
+			return NO_DATE;
+		long localMillis = (daysFromEpoch(year, month, day) * 86400L + hour * 3600 + minute * 60 + second) * 1000L;
+		// Apply the zone the same way as the standard formatter, which rejects local times within a gap
+		int offset = zone.getOffsetFromLocal(localMillis);
+		long millis = localMillis - offset;
+		return offset == zone.getOffset(millis) ? millis : NO_DATE;
+	}
+
+	/**
+	 * Parses strings which do not match the format exactly using the standard formatter.
+	 */
+	private static long parseOther(String text) {
+		try {
+			return PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseMillis(text);
+		} catch(IllegalArgumentException e) {
+			return NO_DATE;
+		}
+	}
+
+	/**
+	 * Resolves a time zone ID in the same way as the standard formatter.
+	 * @return The time zone or {@link #INVALID_ZONE}
+	 */
+	private static DateTimeZone getZone(String id) {
+		DateTimeZone zone = zones.get(id);
+		if (zone != null)
+			return zone;
+		DateTimeParserBucket bucket = new DateTimeParserBucket(0, ISOChronology.getInstanceUTC(), null, null, 2000);
+		int position = ZONE_PARSER.parseInto(bucket, id, 0);
+		zone = position == id.length() && bucket.getZone() != null ? bucket.getZone() : INVALID_ZONE;
+		if (zones.size() < MAX_ZONES)
+			zones.putIfAbsent(id, zone);
+		return zone;
+	}
+
+	/**
+	 * @return The value of the digits or -1 if any character is not a digit
+	 */
+	private static int digits(String text, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	private static int daysInMonth(int year, int month) {
+		switch (month) {
+			case 2:
+				return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+
+	/**
+	 * Returns the number of days between 1970-01-01 and the given date in the proleptic Gregorian calendar.
+	 */
+	private static long daysFromEpoch(int year, int month, int day) {
+		// Count years from March so that the leap day is the last day of the year
+		int y = month <= 2 ? year - 1 : year;
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	private static final class CachedDate {
+		final String text;
+		final long millis;
+
+		CachedDate(String text, long millis) {
+			this.text = text;
+			this.millis = millis;
+		}
+	}
+}
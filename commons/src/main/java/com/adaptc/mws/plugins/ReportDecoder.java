@@ -0,0 +1,443 @@
+package com.adaptc.mws.plugins;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.adaptc.mws.plugins.ReportEncoder.has;
+
+/**
+ * Decodes batches of reports encoded by {@link ReportEncoder}.  Reports are decoded one at a time as
+ * they are read from the buffer:
+ * <pre>
+ * ReportDecoder decoder = new ReportDecoder(data)
+ * while (decoder.hasNext()) {
+ * 	NodeReport report = decoder.readNodeReport()
+ * 	// Process the report
+ * }
+ * </pre>
+ * Any malformed data results in an {@link IllegalArgumentException}.
+ */
+public final class ReportDecoder {
+	private final ByteBuffer buffer;
+	private final byte type;
+	private final List<String> strings = new ArrayList<String>();
+	private boolean ended = false;
+
+	/**
+	 * Creates a decoder which reads a batch starting at the current position of the buffer.
+	 * @param buffer The buffer containing an encoded batch
+	 * @throws IllegalArgumentException If the buffer does not start with a supported batch header
+	 */
+	public ReportDecoder(ByteBuffer buffer) {
+		this.buffer = buffer;
+		try {
+			if (buffer.getInt() != ReportEncoder.MAGIC)
+				throw new IllegalArgumentException("Invalid report data: the batch header is missing");
+			int version = buffer.get();
+			if (version != ReportEncoder.VERSION)
+				throw new IllegalArgumentException("Invalid report data: version "+version+" is not supported");
+			type = buffer.get();
+			if (type != ReportEncoder.TYPE_NODE && type != ReportEncoder.TYPE_JOB)
+				throw new IllegalArgumentException("Invalid report data: unknown report type "+type);
+		} catch(BufferUnderflowException e) {
+			throw new IllegalArgumentException("Invalid report data: the batch header is incomplete");
+		}
+	}
+
+	/**
+	 * Decodes a batch of node reports.
+	 * @param buffer The buffer containing the encoded batch
+	 * @return The decoded reports
+	 * @throws IllegalArgumentException If the data is malformed or does not contain node reports
+	 */
+	public static List<NodeReport> decodeNodeReports(ByteBuffer buffer) {
+		ReportDecoder decoder = new ReportDecoder(buffer);
+		List<NodeReport> reports = new ArrayList<NodeReport>();
+		while (decoder.hasNext())
+			reports.add(decoder.readNodeReport());
+		return reports;
+	}
+
+	/**
+	 * Decodes a batch of job reports.
+	 * @param buffer The buffer containing the encoded batch
+	 * @return The decoded reports
+	 * @throws IllegalArgumentException If the data is malformed or does not contain job reports
+	 */
+	public static List<JobReport> decodeJobReports(ByteBuffer buffer) {
+		ReportDecoder decoder = new ReportDecoder(buffer);
+		List<JobReport> reports = new ArrayList<JobReport>();
+		while (decoder.hasNext())
+			reports.add(decoder.readJobReport());
+		return reports;
+	}
+
+	/**
+	 * Returns true if the batch contains node reports.
+	 * @return True for node reports, false for job reports
+	 */
+	public boolean isNodeReports() {
+		return type == ReportEncoder.TYPE_NODE;
+	}
+
+	/**
+	 * Returns true if there is another report in the batch.
+	 * @return True if a report may be read
+	 * @throws IllegalArgumentException If the data is malformed
+	 */
+	public boolean hasNext() {
+		if (ended)
+			return false;
+		try {
+			byte marker = buffer.get(buffer.position());
+			if (marker == ReportEncoder.REPORT)
+				return true;
+			if (marker != ReportEncoder.END)
+				throw new IllegalArgumentException("Invalid report data: unexpected marker "+marker);
+			buffer.get();
+			ended = true;
+			return false;
+		} catch(IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid report data: the batch is incomplete");
+		}
+	}
+
+	/**
+	 * Reads the next node report.
+	 * @return The decoded report
+	 * @throws IllegalArgumentException If the data is malformed
+	 * @throws IllegalStateException If the batch does not contain node reports
+	 * @throws NoSuchElementException If there are no more reports
+	 */
+	public NodeReport readNodeReport() {
+		checkRead(ReportEncoder.TYPE_NODE);
+		try {
+			NodeReport report = new NodeReport();
+			long mask = readVarLong();
+			if (has(mask, 0))
+				report.setName(readString());
+			if (has(mask, 1))
+				report.timestampMillis(readSignedVarLong());
+			report.setSlaveReport(has(mask, 2));
+			if (has(mask, 3))
+				readResources(report.getResources());
+			if (has(mask, 4))
+				readMetrics(report.getMetrics());
+			if (has(mask, 5))
+				readStrings(report.getFeatures());
+			if (has(mask, 6))
+				readStrings(report.getMessages());
+			if (has(mask, 7))
+				report.setOperatingSystem(readString());
+			if (has(mask, 8))
+				report.setPartition(readString());
+			if (has(mask, 9))
+				readStringMap(report.getVariables());
+			if (has(mask, 10))
+				report.setIpAddress(readString());
+			if (has(mask, 11))
+				report.setPower(readOrdinal(NodeReportPower.values()));
+			if (has(mask, 12))
+				report.setState(readOrdinal(NodeReportState.values()));
+			if (has(mask, 13))
+				report.setSubState(readString());
+			if (has(mask, 14))
+				report.setArchitecture(readString());
+			if (has(mask, 15))
+				readAttributes(report.getAttributes());
+			if (has(mask, 16))
+				report.setPluginId(readString());
+			if (has(mask, 17))
+				report.setPrecedence(readSignedVarLong());
+			if (has(mask, 18))
+				report.timeToLiveMillis(readSignedVarLong());
+			if (has(mask, 19))
+				report.setRequestId(readString());
+			if (has(mask, 20))
+				readAclRules(report.getAclRules());
+			return report;
+		} catch(BufferUnderflowException e) {
+			throw new IllegalArgumentException("Invalid report data: the batch is incomplete");
+		}
+	}
+
+	/**
+	 * Reads the next job report.
+	 * @return The decoded report
+	 * @throws IllegalArgumentException If the data is malformed
+	 * @throws IllegalStateException If the batch does not contain job reports
+	 * @throws NoSuchElementException If there are no more reports
+	 */
+	public JobReport readJobReport() {
+		checkRead(ReportEncoder.TYPE_JOB);
+		try {
+			JobReport report = new JobReport();
+			long mask = readVarLong();
+			if (has(mask, 0))
+				report.setName(readString());
+			if (has(mask, 1))
+				report.setCustomName(readString());
+			if (has(mask, 2))
+				report.setState(readOrdinal(JobReportState.values()));
+			if (has(mask, 3))
+				report.timestampMillis(readSignedVarLong());
+			report.setSlaveReport(has(mask, 4));
+			if (has(mask, 5))
+				report.setAccount(readString());
+			if (has(mask, 6))
+				report.setCommandLineArguments(readString());
+			if (has(mask, 7))
+				report.setExtension(readString());
+			if (has(mask, 8))
+				report.completedDateMillis(readSignedVarLong());
+			if (has(mask, 9))
+				report.deadlineDateMillis(readSignedVarLong());
+			if (has(mask, 10))
+				readStringMap(report.getEnvironmentVariables());
+			if (has(mask, 11))
+				report.setStandardErrorFilePath(readString());
+			if (has(mask, 12))
+				report.setCommandFile(readString());
+			if (has(mask, 13))
+				report.setCompletionCode(readSignedVarInt());
+			if (has(mask, 14))
+				report.setFlags(JobReportFlags.fromBits(readVarLong()));
+			if (has(mask, 15))
+				report.setGroup(readString());
+			if (has(mask, 16))
+				readStrings(report.getNodesRequested());
+			if (has(mask, 17))
+				report.setStandardInputFilePath(readString());
+			if (has(mask, 18))
+				report.setInitialWorkingDirectory(readString());
+			if (has(mask, 19))
+				readRequirements(report.getRequirements());
+			if (has(mask, 20))
+				report.setStandardOutputFilePath(readString());
+			if (has(mask, 21))
+				readStrings(report.getPartitionAccessList());
+			if (has(mask, 22))
+				report.setSystemPriority(readSignedVarLong());
+			if (has(mask, 23))
+				report.setQos(readString());
+			if (has(mask, 24))
+				report.submitDateMillis(readSignedVarLong());
+			if (has(mask, 25))
+				report.setReservationRequested(readString());
+			if (has(mask, 26))
+				report.earliestStartDateMillis(readSignedVarLong());
+			if (has(mask, 27))
+				report.startDateMillis(readSignedVarLong());
+			if (has(mask, 28))
+				report.setDurationSuspended(readSignedVarLong());
+			if (has(mask, 29))
+				report.setUser(readString());
+			if (has(mask, 30))
+				report.setDuration(readSignedVarLong());
+			if (has(mask, 31))
+				report.setPluginId(readString());
+			if (has(mask, 32))
+				report.setPrecedence(readSignedVarLong());
+			return report;
+		} catch(BufferUnderflowException e) {
+			throw new IllegalArgumentException("Invalid report data: the batch is incomplete");
+		}
+	}
+
+	private void checkRead(byte reportType) {
+		if (type != reportType)
+			throw new IllegalStateException("The batch contains "+(type == ReportEncoder.TYPE_NODE ? "node" : "job")+" reports");
+		if (!hasNext())
+			throw new NoSuchElementException();
+		buffer.get();
+	}
+
+	private void readResources(Map<String, ReportResource> resources) {
+		int size = readSize();
+		for (int i = 0; i < size; i++) {
+			String name = readString();
+			resources.put(name, readResource());
+		}
+	}
+
+	private ReportResource readResource() {
+		long flags = readVarLong();
+		if (flags == 0)
+			return null;
+		ReportResource resource = new ReportResource();
+		if ((flags & 2) != 0)
+			resource.setTotal(readSignedVarInt());
+		if ((flags & 4) != 0)
+			resource.setAvailable(readSignedVarInt());
+		return resource;
+	}
+
+	private void readMetrics(Map<String, Double> metrics) {
+		int size = readSize();
+		for (int i = 0; i < size; i++) {
+			String name = readString();
+			if (name == null)
+				throw new IllegalArgumentException("Invalid report data: metric names must not be null");
+			metrics.put(name, buffer.get() == 0 ? null : buffer.getDouble());
+		}
+	}
+
+	private void readAttributes(Map<String, ReportAttribute> attributes) {
+		int size = readSize();
+		for (int i = 0; i < size; i++) {
+			String name = readString();
+			ReportAttribute attribute = null;
+			if (readVarLong() != 0) {
+				attribute = new ReportAttribute();
+				attribute.setValue(readString());
+				attribute.setDisplayValue(readString());
+			}
+			attributes.put(name, attribute);
+		}
+	}
+
+	private void readAclRules(List<AclReportRule> rules) {
+		int size = readSize();
+		for (int i = 0; i < size; i++) {
+			long flags = readVarLong();
+			if (flags == 0) {
+				rules.add(null);
+				continue;
+			}
+			AclReportRule rule = new AclReportRule();
+			rule.setExcludeFromAcl((flags & 2) != 0);
+			rule.setRequireAll((flags & 4) != 0);
+			rule.setXorWithAcl((flags & 8) != 0);
+			rule.setCredentialLock((flags & 16) != 0);
+			rule.setHardPolicyOnly((flags & 32) != 0);
+			rule.setType(readEnum(AclReportType.values()));
+			rule.setComparator(readEnum(ReportComparisonOperator.values()));
+			rule.setValue(readString());
+			rule.setAffinity(readEnum(AclReportAffinity.values()));
+			rules.add(rule);
+		}
+	}
+
+	private void readRequirements(List<JobReportRequirement> requirements) {
+		int size = readSize();
+		for (int i = 0; i < size; i++) {
+			long mask = readVarLong();
+			if (mask == 0) {
+				requirements.add(null);
+				continue;
+			}
+			JobReportRequirement requirement = new JobReportRequirement();
+			if (has(mask, 1))
+				requirement.setOperatingSystem(readString());
+			if (has(mask, 2))
+				requirement.setNodeCount(readSignedVarInt());
+			if (has(mask, 3))
+				requirement.setTaskCount(readSignedVarInt());
+			if (has(mask, 4))
+				requirement.setTasksPerNode(readSignedVarInt());
+			if (has(mask, 5))
+				readStrings(requirement.getFeatures());
+			if (has(mask, 6))
+				requirement.setArchitecture(readString());
+			if (has(mask, 7))
+				readStrings(requirement.getNodes());
+			if (has(mask, 8))
+				readResources(requirement.getResourcesPerTask());
+			requirements.add(requirement);
+		}
+	}
+
+	private void readStrings(List<String> strings) {
+		int size = readSize();
+		for (int i = 0; i < size; i++)
+			strings.add(readString());
+	}
+
+	private void readStringMap(Map<String, String> map) {
+		int size = readSize();
+		for (int i = 0; i < size; i++) {
+			String key = readString();
+			map.put(key, readString());
+		}
+	}
+
+	private <E extends Enum<E>> E readOrdinal(E[] values) {
+		long ordinal = readVarLong();
+		if (ordinal < 0 || ordinal >= values.length)
+			throw new IllegalArgumentException("Invalid report data: unknown "+values.getClass().getComponentType().getSimpleName()+" "+ordinal);
+		return values[(int)ordinal];
+	}
+
+	/**
+	 * Reads an enumeration value written as its ordinal plus one, or zero if null.
+	 */
+	private <E extends Enum<E>> E readEnum(E[] values) {
+		long value = readVarLong();
+		if (value == 0)
+			return null;
+		if (value < 0 || value > values.length)
+			throw new IllegalArgumentException("Invalid report data: unknown "+values.getClass().getComponentType().getSimpleName()+" "+(value - 1));
+		return values[(int)value - 1];
+	}
+
+	private String readString() {
+		long reference = readVarLong();
+		if (reference == ReportEncoder.STRING_NULL)
+			return null;
+		if (reference != ReportEncoder.STRING_NEW) {
+			long index = reference - ReportEncoder.STRING_INDEX_OFFSET;
+			if (index < 0 || index >= strings.size())
+				throw new IllegalArgumentException("Invalid report data: unknown string "+index);
+			return strings.get((int)index);
+		}
+		int length = readSize();
+		if (length > buffer.remaining())
+			throw new BufferUnderflowException();
+		String string;
+		if (buffer.hasArray()) {
+			string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+		} else {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			string = new String(bytes, StandardCharsets.UTF_8);
+		}
+		strings.add(string);
+		return string;
+	}
+
+	private int readSize() {
+		long size = readVarLong();
+		if (size < 0)
+			throw new IllegalArgumentException("Invalid report data: negative size "+size);
+		// Each element takes at least one byte
+		if (size > buffer.remaining())
+			throw new BufferUnderflowException();
+		return (int)size;
+	}
+
+	private int readSignedVarInt() {
+		long value = readSignedVarLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Invalid report data: value "+value+" is out of range");
+		return (int)value;
+	}
+
+	private long readSignedVarLong() {
+		long value = readVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private long readVarLong() {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long)(b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IllegalArgumentException("Invalid report data: variable-length value is too long");
+	}
+}
@@ -0,0 +1,126 @@
+package com.adaptc.mws.plugins;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Package-private helpers used to compute the field-level differences between two reports.
+ * Map lookups only occur for keys that are known to exist, so the auto-creating
+ * {@link ReportResourceMap} and {@link ReportAttributeMap} are never modified by a comparison.
+ */
+final class ReportDiffs {
+	private ReportDiffs() {}
+
+	/**
+	 * Compares a single property, recording the property name if the values differ.
+	 * @param changedProperties The set of changed property names to add to
+	 * @param property The name of the property being compared
+	 * @param previous The previous value, may be null
+	 * @param current The current value, may be null
+	 * @return True if the values differ
+	 */
+	static boolean compare(Set<String> changedProperties, String property, Object previous, Object current) {
+		if (previous == null ? current == null : previous.equals(current))
+			return false;
+		changedProperties.add(property);
+		return true;
+	}
+
+	/**
+	 * Compares a single primitive property such as a date in milliseconds, recording the property name if
+	 * the values differ.
+	 * @param changedProperties The set of changed property names to add to
+	 * @param property The name of the property being compared
+	 * @param previous The previous value
+	 * @param current The current value
+	 * @return True if the values differ
+	 */
+	static boolean compare(Set<String> changedProperties, String property, long previous, long current) {
+		if (previous == current)
+			return false;
+		changedProperties.add(property);
+		return true;
+	}
+
+	/**
+	 * Compares two lists, treating a null list the same as an empty list, and records the
+	 * property name if they differ.  Lists are always compared as a whole.
+	 * @see #compare(Set, String, Object, Object)
+	 */
+	static boolean compareList(Set<String> changedProperties, String property, List<?> previous, List<?> current) {
+		return compare(changedProperties, property,
+				previous == null ? Collections.emptyList() : previous,
+				current == null ? Collections.emptyList() : current);
+	}
+
+	/**
+	 * Returns true if both maps contain the same entries.  Unlike {@link java.util.AbstractMap#equals(Object)},
+	 * this never calls get on a key that does not exist in the other map.
+	 * @param a The first map, may be null
+	 * @param b The second map, may be null
+	 * @return True if the maps contain the same entries, treating null the same as an empty map
+	 */
+	static boolean entriesEqual(Map<?, ?> a, Map<?, ?> b) {
+		int aSize = a == null ? 0 : a.size();
+		int bSize = b == null ? 0 : b.size();
+		if (aSize != bSize)
+			return false;
+		if (aSize == 0)
+			return true;
+		for (Map.Entry<?, ?> entry : a.entrySet()) {
+			Object value = entry.getValue();
+			if (!b.containsKey(entry.getKey()))
+				return false;
+			if (value == null ? b.get(entry.getKey()) != null : !value.equals(b.get(entry.getKey())))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Compares two maps entry by entry, recording the property name if they differ.  New and modified entries
+	 * of the current map are put into the changes map.  If any entry was removed, all entries of the current
+	 * map are put into the changes map instead so that the changes represent the full new contents, and the
+	 * property name is also recorded as removed, since a sparse report merged by an update cannot remove entries.
+	 * @param changedProperties The set of changed property names to add to
+	 * @param removedProperties The set of property names with removed entries to add to
+	 * @param property The name of the property being compared
+	 * @param previous The previous map, may be null
+	 * @param current The current map, may be null
+	 * @param changes The map to receive the changed entries
+	 * @return True if the maps differ
+	 */
+	static <V> boolean compareEntries(Set<String> changedProperties, Set<String> removedProperties, String property,
+									  Map<String, V> previous, Map<String, V> current, Map<String, V> changes) {
+		boolean removed = false;
+		if (previous != null) {
+			for (String key : previous.keySet()) {
+				if (current == null || !current.containsKey(key)) {
+					removed = true;
+					break;
+				}
+			}
+		}
+		boolean modified = false;
+		if (current != null) {
+			for (Map.Entry<String, V> entry : current.entrySet()) {
+				String key = entry.getKey();
+				V value = entry.getValue();
+				boolean same = !removed && previous != null && previous.containsKey(key) &&
+						(value == null ? previous.get(key) == null : value.equals(previous.get(key)));
+				if (!same) {
+					changes.put(key, value);
+					modified = true;
+				}
+			}
+		}
+		if (!removed && !modified)
+			return false;
+		changedProperties.add(property);
+		if (removed)
+			removedProperties.add(property);
+		return true;
+	}
+}
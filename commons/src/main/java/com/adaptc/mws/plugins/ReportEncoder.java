@@ -0,0 +1,536 @@
+package com.adaptc.mws.plugins;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Encodes batches of node or job reports into a compact binary form which may be decoded using
+ * {@link ReportDecoder}, such as for spooling reports to disk or sending them between processes.
+ * <pre>
+ * ByteBuffer data = ReportEncoder.encodeNodeReports(nodeReports)
+ * List&lt;NodeReport&gt; decoded = ReportDecoder.decodeNodeReports(data)
+ * </pre>
+ * The encoder does not stream: the whole encoded batch is buffered in a heap buffer, which grows as reports
+ * are written, until {@link #finish()} returns it.  Writing reports one at a time avoids holding the reports
+ * themselves, but the encoded batch is still held in memory in full:
+ * <pre>
+ * ReportEncoder encoder = ReportEncoder.nodeReports()
+ * nodeReports.each { encoder.write(it) }
+ * ByteBuffer data = encoder.finish()
+ * </pre>
+ * A batch consists of a header (magic number, version, and report type) followed by the reports and an end
+ * marker.  Each report starts with a bit mask of the properties which are set, followed by the values of
+ * those properties only.  Integers are written as variable-length values, enumerations as ordinals, and
+ * each distinct string is written once per batch and referenced by index afterwards.
+ * <p>
+ * Since enumeration ordinals are written, batches should only be decoded by the same version of the
+ * plugin framework which encoded them.  Empty and null collections are not written and are decoded as
+ * empty collections.
+ */
+public final class ReportEncoder {
+	/**
+	 * The magic number at the start of each batch, "MWSR".
+	 */
+	public static final int MAGIC = 0x4d575352;
+	/**
+	 * The version of the encoding.
+	 */
+	public static final int VERSION = 1;
+	static final byte TYPE_NODE = 1;
+	static final byte TYPE_JOB = 2;
+	/**
+	 * Written before each report.
+	 */
+	static final byte REPORT = 1;
+	/**
+	 * Written after the last report.
+	 */
+	static final byte END = 0;
+	/**
+	 * String references: null, a new string followed by its length and UTF-8 bytes, or otherwise the
+	 * index of a previous string plus {@link #STRING_INDEX_OFFSET}.
+	 */
+	static final int STRING_NULL = 0;
+	static final int STRING_NEW = 1;
+	static final int STRING_INDEX_OFFSET = 2;
+
+	private final byte type;
+	private final Map<String, Integer> strings = new HashMap<String, Integer>();
+	private ByteBuffer buffer;
+	private boolean finished = false;
+
+	private ReportEncoder(byte type, int initialCapacity) {
+		this.type = type;
+		buffer = ByteBuffer.allocate(Math.max(initialCapacity, 64));
+		buffer.putInt(MAGIC);
+		buffer.put((byte)VERSION);
+		buffer.put(type);
+	}
+
+	/**
+	 * Creates an encoder for a batch of node reports.
+	 * @return A new encoder
+	 */
+	public static ReportEncoder nodeReports() {
+		return new ReportEncoder(TYPE_NODE, 4096);
+	}
+
+	/**
+	 * Creates an encoder for a batch of job reports.
+	 * @return A new encoder
+	 */
+	public static ReportEncoder jobReports() {
+		return new ReportEncoder(TYPE_JOB, 4096);
+	}
+
+	/**
+	 * Encodes a batch of node reports.
+	 * @param reports The reports to encode
+	 * @return A buffer containing the encoded batch, ready to be read
+	 */
+	public static ByteBuffer encodeNodeReports(List<NodeReport> reports) {
+		ReportEncoder encoder = new ReportEncoder(TYPE_NODE, 64 + reports.size() * 64);
+		for (NodeReport report : reports)
+			encoder.write(report);
+		return encoder.finish();
+	}
+
+	/**
+	 * Encodes a batch of job reports.
+	 * @param reports The reports to encode
+	 * @return A buffer containing the encoded batch, ready to be read
+	 */
+	public static ByteBuffer encodeJobReports(List<JobReport> reports) {
+		ReportEncoder encoder = new ReportEncoder(TYPE_JOB, 64 + reports.size() * 128);
+		for (JobReport report : reports)
+			encoder.write(report);
+		return encoder.finish();
+	}
+
+	/**
+	 * Adds a node report to the batch.
+	 * @param report The report to add
+	 * @throws IllegalArgumentException If the report is null
+	 * @throws IllegalStateException If this encoder is not for node reports or has been finished
+	 */
+	public void write(NodeReport report) {
+		checkWrite(TYPE_NODE, report);
+		long mask = mask(
+				report.getName() != null,
+				report.timestampMillis() != ReportDateParser.NO_DATE,
+				report.getSlaveReport(),
+				isPresent(report.getResources()),
+				isPresent(report.getMetrics()),
+				isPresent(report.getFeatures()),
+				isPresent(report.getMessages()),
+				report.getOperatingSystem() != null,
+				report.getPartition() != null,
+				isPresent(report.getVariables()),
+				report.getIpAddress() != null,
+				report.getPower() != null,
+				report.getState() != null,
+				report.getSubState() != null,
+				report.getArchitecture() != null,
+				isPresent(report.getAttributes()),
+				report.getPluginId() != null,
+				report.getPrecedence() != null,
+				report.timeToLiveMillis() != ReportDateParser.NO_DATE,
+				report.getRequestId() != null,
+				isPresent(report.getAclRules())
+		);
+		writeVarLong(mask);
+		if (has(mask, 0))
+			writeString(report.getName());
+		if (has(mask, 1))
+			writeSignedVarLong(report.timestampMillis());
+		if (has(mask, 3))
+			writeResources(report.getResources());
+		if (has(mask, 4))
+			writeMetrics(report.getMetrics());
+		if (has(mask, 5))
+			writeStrings(report.getFeatures());
+		if (has(mask, 6))
+			writeStrings(report.getMessages());
+		if (has(mask, 7))
+			writeString(report.getOperatingSystem());
+		if (has(mask, 8))
+			writeString(report.getPartition());
+		if (has(mask, 9))
+			writeStringMap(report.getVariables());
+		if (has(mask, 10))
+			writeString(report.getIpAddress());
+		if (has(mask, 11))
+			writeVarLong(report.getPower().ordinal());
+		if (has(mask, 12))
+			writeVarLong(report.getState().ordinal());
+		if (has(mask, 13))
+			writeString(report.getSubState());
+		if (has(mask, 14))
+			writeString(report.getArchitecture());
+		if (has(mask, 15))
+			writeAttributes(report.getAttributes());
+		if (has(mask, 16))
+			writeString(report.getPluginId());
+		if (has(mask, 17))
+			writeSignedVarLong(report.getPrecedence());
+		if (has(mask, 18))
+			writeSignedVarLong(report.timeToLiveMillis());
+		if (has(mask, 19))
+			writeString(report.getRequestId());
+		if (has(mask, 20))
+			writeAclRules(report.getAclRules());
+	}
+
+	/**
+	 * Adds a job report to the batch.
+	 * @param report The report to add
+	 * @throws IllegalArgumentException If the report is null
+	 * @throws IllegalStateException If this encoder is not for job reports or has been finished
+	 */
+	public void write(JobReport report) {
+		checkWrite(TYPE_JOB, report);
+		long mask = mask(
+				report.getName() != null,
+				report.getCustomName() != null,
+				report.getState() != null,
+				report.timestampMillis() != ReportDateParser.NO_DATE,
+				report.getSlaveReport(),
+				report.getAccount() != null,
+				report.getCommandLineArguments() != null,
+				report.getExtension() != null,
+				report.completedDateMillis() != ReportDateParser.NO_DATE,
+				report.deadlineDateMillis() != ReportDateParser.NO_DATE,
+				isPresent(report.getEnvironmentVariables()),
+				report.getStandardErrorFilePath() != null,
+				report.getCommandFile() != null,
+				report.getCompletionCode() != null,
+				isPresent(report.getFlags()),
+				report.getGroup() != null,
+				isPresent(report.getNodesRequested()),
+				report.getStandardInputFilePath() != null,
+				report.getInitialWorkingDirectory() != null,
+				isPresent(report.getRequirements()),
+				report.getStandardOutputFilePath() != null,
+				isPresent(report.getPartitionAccessList()),
+				report.getSystemPriority() != null,
+				report.getQos() != null,
+				report.submitDateMillis() != ReportDateParser.NO_DATE,
+				report.getReservationRequested() != null,
+				report.earliestStartDateMillis() != ReportDateParser.NO_DATE,
+				report.startDateMillis() != ReportDateParser.NO_DATE,
+				report.getDurationSuspended() != null,
+				report.getUser() != null,
+				report.getDuration() != null,
+				report.getPluginId() != null,
+				report.getPrecedence() != null
+		);
+		writeVarLong(mask);
+		if (has(mask, 0))
+			writeString(report.getName());
+		if (has(mask, 1))
+			writeString(report.getCustomName());
+		if (has(mask, 2))
+			writeVarLong(report.getState().ordinal());
+		if (has(mask, 3))
+			writeSignedVarLong(report.timestampMillis());
+		if (has(mask, 5))
+			writeString(report.getAccount());
+		if (has(mask, 6))
+			writeString(report.getCommandLineArguments());
+		if (has(mask, 7))
+			writeString(report.getExtension());
+		if (has(mask, 8))
+			writeSignedVarLong(report.completedDateMillis());
+		if (has(mask, 9))
+			writeSignedVarLong(report.deadlineDateMillis());
+		if (has(mask, 10))
+			writeStringMap(report.getEnvironmentVariables());
+		if (has(mask, 11))
+			writeString(report.getStandardErrorFilePath());
+		if (has(mask, 12))
+			writeString(report.getCommandFile());
+		if (has(mask, 13))
+			writeSignedVarLong(report.getCompletionCode());
+		if (has(mask, 14))
+			writeFlags(report.getFlags());
+		if (has(mask, 15))
+			writeString(report.getGroup());
+		if (has(mask, 16))
+			writeStrings(report.getNodesRequested());
+		if (has(mask, 17))
+			writeString(report.getStandardInputFilePath());
+		if (has(mask, 18))
+			writeString(report.getInitialWorkingDirectory());
+		if (has(mask, 19))
+			writeRequirements(report.getRequirements());
+		if (has(mask, 20))
+			writeString(report.getStandardOutputFilePath());
+		if (has(mask, 21))
+			writeStrings(report.getPartitionAccessList());
+		if (has(mask, 22))
+			writeSignedVarLong(report.getSystemPriority());
+		if (has(mask, 23))
+			writeString(report.getQos());
+		if (has(mask, 24))
+			writeSignedVarLong(report.submitDateMillis());
+		if (has(mask, 25))
+			writeString(report.getReservationRequested());
+		if (has(mask, 26))
+			writeSignedVarLong(report.earliestStartDateMillis());
+		if (has(mask, 27))
+			writeSignedVarLong(report.startDateMillis());
+		if (has(mask, 28))
+			writeSignedVarLong(report.getDurationSuspended());
+		if (has(mask, 29))
+			writeString(report.getUser());
+		if (has(mask, 30))
+			writeSignedVarLong(report.getDuration());
+		if (has(mask, 31))
+			writeString(report.getPluginId());
+		if (has(mask, 32))
+			writeSignedVarLong(report.getPrecedence());
+	}
+
+	/**
+	 * Ends the batch.  No further reports may be written afterwards.
+	 * @return A buffer containing the encoded batch, ready to be read
+	 * @throws IllegalStateException If the encoder has already been finished
+	 */
+	public ByteBuffer finish() {
+		if (finished)
+			throw new IllegalStateException("The batch has already been finished");
+		ensure(1);
+		buffer.put(END);
+		finished = true;
+		buffer.flip();
+		return buffer;
+	}
+
+	private void checkWrite(byte reportType, Object report) {
+		if (report == null)
+			throw new IllegalArgumentException("Argument [report] must not be null");
+		if (finished)
+			throw new IllegalStateException("The batch has already been finished");
+		if (type != reportType)
+			throw new IllegalStateException("This encoder writes "+(type == TYPE_NODE ? "node" : "job")+" reports");
+		ensure(1);
+		buffer.put(REPORT);
+	}
+
+	private static long mask(boolean... present) {
+		long mask = 0;
+		for (int i = 0; i < present.length; i++) {
+			if (present[i])
+				mask |= 1L << i;
+		}
+		return mask;
+	}
+
+	static boolean has(long mask, int field) {
+		return (mask & 1L << field) != 0;
+	}
+
+	private static boolean isPresent(Collection<?> collection) {
+		return collection != null && !collection.isEmpty();
+	}
+
+	private static boolean isPresent(Map<?, ?> map) {
+		return map != null && !map.isEmpty();
+	}
+
+	private void writeResources(Map<String, ReportResource> resources) {
+		writeVarLong(resources.size());
+		for (Map.Entry<String, ReportResource> entry : resources.entrySet()) {
+			writeString(entry.getKey());
+			writeResource(entry.getValue());
+		}
+	}
+
+	/**
+	 * Writes a resource as a byte of flags followed by the amounts which are set.
+	 */
+	private void writeResource(ReportResource resource) {
+		if (resource == null) {
+			writeVarLong(0);
+			return;
+		}
+		Integer total = resource.getTotal();
+		Integer available = resource.getAvailable();
+		writeVarLong(1 | (total != null ? 2 : 0) | (available != null ? 4 : 0));
+		if (total != null)
+			writeSignedVarLong(total);
+		if (available != null)
+			writeSignedVarLong(available);
+	}
+
+	private void writeMetrics(Map<String, Double> metrics) {
+		writeVarLong(metrics.size());
+		for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+			writeString(entry.getKey());
+			Double value = entry.getValue();
+			ensure(9);
+			if (value == null)
+				buffer.put((byte)0);
+			else
+				buffer.put((byte)1).putDouble(value);
+		}
+	}
+
+	private void writeAttributes(Map<String, ReportAttribute> attributes) {
+		writeVarLong(attributes.size());
+		for (Map.Entry<String, ReportAttribute> entry : attributes.entrySet()) {
+			writeString(entry.getKey());
+			ReportAttribute attribute = entry.getValue();
+			writeVarLong(attribute == null ? 0 : 1);
+			if (attribute != null) {
+				writeString(attribute.getValue());
+				writeString(attribute.getDisplayValue());
+			}
+		}
+	}
+
+	private void writeAclRules(List<AclReportRule> rules) {
+		writeVarLong(rules.size());
+		for (AclReportRule rule : rules) {
+			if (rule == null) {
+				writeVarLong(0);
+				continue;
+			}
+			writeVarLong(1 |
+					(rule.getExcludeFromAcl() ? 2 : 0) |
+					(rule.getRequireAll() ? 4 : 0) |
+					(rule.getXorWithAcl() ? 8 : 0) |
+					(rule.getCredentialLock() ? 16 : 0) |
+					(rule.getHardPolicyOnly() ? 32 : 0));
+			writeEnum(rule.getType());
+			writeEnum(rule.getComparator());
+			writeString(rule.getValue());
+			writeEnum(rule.getAffinity());
+		}
+	}
+
+	private void writeRequirements(List<JobReportRequirement> requirements) {
+		writeVarLong(requirements.size());
+		for (JobReportRequirement requirement : requirements) {
+			if (requirement == null) {
+				writeVarLong(0);
+				continue;
+			}
+			long mask = mask(
+					true,
+					requirement.getOperatingSystem() != null,
+					requirement.getNodeCount() != null,
+					requirement.getTaskCount() != null,
+					requirement.getTasksPerNode() != null,
+					isPresent(requirement.getFeatures()),
+					requirement.getArchitecture() != null,
+					isPresent(requirement.getNodes()),
+					isPresent(requirement.getResourcesPerTask())
+			);
+			writeVarLong(mask);
+			if (has(mask, 1))
+				writeString(requirement.getOperatingSystem());
+			if (has(mask, 2))
+				writeSignedVarLong(requirement.getNodeCount());
+			if (has(mask, 3))
+				writeSignedVarLong(requirement.getTaskCount());
+			if (has(mask, 4))
+				writeSignedVarLong(requirement.getTasksPerNode());
+			if (has(mask, 5))
+				writeStrings(requirement.getFeatures());
+			if (has(mask, 6))
+				writeString(requirement.getArchitecture());
+			if (has(mask, 7))
+				writeStrings(requirement.getNodes());
+			if (has(mask, 8))
+				writeResources(requirement.getResourcesPerTask());
+		}
+	}
+
+	/**
+	 * Writes flags in the form of {@link JobReportFlags#toBits()}, ignoring duplicate and null flags.
+	 */
+	private void writeFlags(List<JobReportFlag> flags) {
+		if (flags instanceof JobReportFlags) {
+			writeVarLong(((JobReportFlags)flags).toBits());
+			return;
+		}
+		long bits = 0;
+		for (JobReportFlag flag : flags) {
+			if (flag != null)
+				bits |= 1L << flag.ordinal();
+		}
+		writeVarLong(bits);
+	}
+
+	private void writeStrings(List<String> strings) {
+		writeVarLong(strings.size());
+		for (String string : strings)
+			writeString(string);
+	}
+
+	private void writeStringMap(Map<String, String> map) {
+		writeVarLong(map.size());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			writeString(entry.getKey());
+			writeString(entry.getValue());
+		}
+	}
+
+	/**
+	 * Writes an enumeration value as its ordinal plus one, or zero if null.
+	 */
+	private void writeEnum(Enum<?> value) {
+		writeVarLong(value == null ? 0 : value.ordinal() + 1);
+	}
+
+	private void writeString(String string) {
+		if (string == null) {
+			writeVarLong(STRING_NULL);
+			return;
+		}
+		Integer index = strings.get(string);
+		if (index != null) {
+			writeVarLong(index + STRING_INDEX_OFFSET);
+			return;
+		}
+		strings.put(string, strings.size());
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(STRING_NEW);
+		writeVarLong(bytes.length);
+		ensure(bytes.length);
+		buffer.put(bytes);
+	}
+
+	/**
+	 * Writes a signed value using zig-zag encoding, so that small negative values are also short.
+	 */
+	private void writeSignedVarLong(long value) {
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Writes an unsigned value seven bits at a time, least significant first.
+	 */
+	private void writeVarLong(long value) {
+		ensure(10);
+		while ((value & ~0x7fL) != 0) {
+			buffer.put((byte)((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	private void ensure(int bytes) {
+		if (buffer.remaining() >= bytes)
+			return;
+		int capacity = buffer.capacity();
+		while (capacity - buffer.position() < bytes)
+			capacity *= 2;
+		ByteBuffer larger = ByteBuffer.allocate(capacity);
+		buffer.flip();
+		larger.put(buffer);
+		buffer = larger;
+	}
+}
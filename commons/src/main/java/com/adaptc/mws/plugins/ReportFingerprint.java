@@ -0,0 +1,275 @@
+package com.adaptc.mws.plugins;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes 64-bit fingerprints of report contents, which may be compared to detect whether a report has
+ * changed since it was last submitted without keeping the previous report.  See {@link ReportChangeFilter}
+ * for a helper which uses fingerprints to skip unchanged reports.
+ * <p>
+ * Fingerprints have the following properties:
+ * <ul>
+ *     <li>They are stable between runs and JVMs, so they may be stored with other plugin data.</li>
+ *     <li>They cover all properties of a report including the nested resources, metrics, attributes,
+ *     variables, lists, ACL rules, and requirements.</li>
+ *     <li>Maps are fingerprinted regardless of their iteration order, while lists are order-sensitive.</li>
+ *     <li>The timestamp, plugin ID, and precedence are excluded since they do not describe the object.</li>
+ * </ul>
+ * Equal reports always have equal fingerprints.  Different reports have different fingerprints with very
+ * high probability, but collisions are possible.
+ */
+public final class ReportFingerprint {
+	private static final long SEED = 0x6a09e667f3bcc908L;
+
+	private long hash = SEED;
+
+	private ReportFingerprint() {}
+
+	/**
+	 * Computes the fingerprint of a node report.
+	 * @param report The report, may be null
+	 * @return The fingerprint
+	 */
+	public static long of(NodeReport report) {
+		ReportFingerprint fingerprint = new ReportFingerprint();
+		fingerprint.add(report);
+		return fingerprint.finish();
+	}
+
+	/**
+	 * Computes the fingerprint of a job report.
+	 * @param report The report, may be null
+	 * @return The fingerprint
+	 */
+	public static long of(JobReport report) {
+		ReportFingerprint fingerprint = new ReportFingerprint();
+		fingerprint.add(report);
+		return fingerprint.finish();
+	}
+
+	/**
+	 * Computes the fingerprint of a job requirement.
+	 * @param requirement The requirement, may be null
+	 * @return The fingerprint
+	 */
+	public static long of(JobReportRequirement requirement) {
+		ReportFingerprint fingerprint = new ReportFingerprint();
+		fingerprint.add(requirement);
+		return fingerprint.finish();
+	}
+
+	/**
+	 * Computes the fingerprint of an ACL rule.
+	 * @param rule The rule, may be null
+	 * @return The fingerprint
+	 */
+	public static long of(AclReportRule rule) {
+		ReportFingerprint fingerprint = new ReportFingerprint();
+		fingerprint.add(rule);
+		return fingerprint.finish();
+	}
+
+	private void add(NodeReport report) {
+		if (!addPresence(report))
+			return;
+		add(report.getName());
+		add(report.getSlaveReport());
+		addMap(report.getResources());
+		addMap(report.getMetrics());
+		addList(report.getFeatures());
+		addList(report.getMessages());
+		add(report.getOperatingSystem());
+		add(report.getPartition());
+		addMap(report.getVariables());
+		add(report.getIpAddress());
+		add(report.getPower());
+		add(report.getState());
+		add(report.getSubState());
+		add(report.getArchitecture());
+		addMap(report.getAttributes());
+		add(report.timeToLiveMillis());
+		add(report.getRequestId());
+		addList(report.getAclRules());
+	}
+
+	private void add(JobReport report) {
+		if (!addPresence(report))
+			return;
+		add(report.getName());
+		add(report.getCustomName());
+		add(report.getState());
+		add(report.getSlaveReport());
+		add(report.getAccount());
+		add(report.getCommandLineArguments());
+		add(report.getExtension());
+		add(report.completedDateMillis());
+		add(report.deadlineDateMillis());
+		addMap(report.getEnvironmentVariables());
+		add(report.getStandardErrorFilePath());
+		add(report.getCommandFile());
+		addNumber(report.getCompletionCode());
+		addList(report.getFlags());
+		add(report.getGroup());
+		addList(report.getNodesRequested());
+		add(report.getStandardInputFilePath());
+		add(report.getInitialWorkingDirectory());
+		addList(report.getRequirements());
+		add(report.getStandardOutputFilePath());
+		addList(report.getPartitionAccessList());
+		addNumber(report.getSystemPriority());
+		add(report.getQos());
+		add(report.submitDateMillis());
+		add(report.getReservationRequested());
+		add(report.earliestStartDateMillis());
+		add(report.startDateMillis());
+		addNumber(report.getDurationSuspended());
+		add(report.getUser());
+		addNumber(report.getDuration());
+	}
+
+	private void add(JobReportRequirement requirement) {
+		if (!addPresence(requirement))
+			return;
+		add(requirement.getOperatingSystem());
+		addNumber(requirement.getNodeCount());
+		addNumber(requirement.getTaskCount());
+		addNumber(requirement.getTasksPerNode());
+		addList(requirement.getFeatures());
+		add(requirement.getArchitecture());
+		addList(requirement.getNodes());
+		addMap(requirement.getResourcesPerTask());
+	}
+
+	private void add(AclReportRule rule) {
+		if (!addPresence(rule))
+			return;
+		add(rule.getType());
+		add(rule.getComparator());
+		add(rule.getExcludeFromAcl());
+		add(rule.getRequireAll());
+		add(rule.getXorWithAcl());
+		add(rule.getCredentialLock());
+		add(rule.getHardPolicyOnly());
+		add(rule.getValue());
+		add(rule.getAffinity());
+	}
+
+	/**
+	 * Adds any value which may be contained in a report list or map.
+	 */
+	private void addValue(Object value) {
+		if (value == null || value instanceof String)
+			add((String)value);
+		else if (value instanceof Number)
+			addNumber((Number)value);
+		else if (value instanceof Enum)
+			add((Enum<?>)value);
+		else if (value instanceof ReportResource) {
+			ReportResource resource = (ReportResource)value;
+			addNumber(resource.getTotal());
+			addNumber(resource.getAvailable());
+		} else if (value instanceof ReportAttribute) {
+			ReportAttribute attribute = (ReportAttribute)value;
+			add(attribute.getValue());
+			add(attribute.getDisplayValue());
+		} else if (value instanceof AclReportRule)
+			add((AclReportRule)value);
+		else if (value instanceof JobReportRequirement)
+			add((JobReportRequirement)value);
+		else if (value instanceof List)
+			addList((List<?>)value);
+		else if (value instanceof Map)
+			addMap((Map<?, ?>)value);
+		else
+			add(value.toString());
+	}
+
+	private void addList(List<?> list) {
+		if (!addPresence(list))
+			return;
+		add(list.size());
+		for (Object value : list)
+			addValue(value);
+	}
+
+	/**
+	 * Adds the sum of the fingerprints of the entries, so that the result does not depend on the order.
+	 */
+	private void addMap(Map<?, ?> map) {
+		if (!addPresence(map))
+			return;
+		add(map.size());
+		long entries = 0;
+		long saved = hash;
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			hash = SEED;
+			addValue(entry.getKey());
+			addValue(entry.getValue());
+			entries += finish();
+		}
+		hash = saved;
+		add(entries);
+	}
+
+	private void addNumber(Number number) {
+		if (!addPresence(number))
+			return;
+		if (number instanceof Double || number instanceof Float)
+			add(Double.doubleToLongBits(number.doubleValue()));
+		else
+			add(number.longValue());
+	}
+
+	private void add(Enum<?> value) {
+		add(value == null ? null : value.name());
+	}
+
+	private void add(String string) {
+		if (!addPresence(string))
+			return;
+		int length = string.length();
+		add(length);
+		int i = 0;
+		for (; i + 4 <= length; i += 4) {
+			add((long)string.charAt(i) | (long)string.charAt(i + 1) << 16 |
+					(long)string.charAt(i + 2) << 32 | (long)string.charAt(i + 3) << 48);
+		}
+		long remaining = 0;
+		for (int shift = 0; i < length; i++, shift += 16)
+			remaining |= (long)string.charAt(i) << shift;
+		add(remaining);
+	}
+
+	private void add(boolean value) {
+		add(value ? 1L : 0L);
+	}
+
+	/**
+	 * Adds whether a value is present, so that a null value differs from any other value.
+	 * @return True if the value is not null
+	 */
+	private boolean addPresence(Object value) {
+		add(value == null ? 0L : 1L);
+		return value != null;
+	}
+
+	private void add(long value) {
+		// MurmurHash3 block mixing
+		value *= 0x87c37b91114253d5L;
+		value = Long.rotateLeft(value, 31);
+		value *= 0x4cf5ad432745937fL;
+		hash ^= value;
+		hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+	}
+
+	private long finish() {
+		long h = hash;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,398 @@
+package com.adaptc.mws.plugins;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A map containing String to Double metric values which stores the values as primitives instead of
+ * boxed Double objects.  The metrics {@link PluginConstants#METRIC_CPULOAD}, {@link PluginConstants#METRIC_SPEED},
+ * {@link PluginConstants#METRIC_CPU_UTILIZATION}, and {@link PluginConstants#METRIC_VM_COUNT} are stored in
+ * fixed slots, while all other metrics are stored in an open-addressing table which is only allocated once
+ * the first custom metric is added.
+ * <p>
+ * This is used as the default value of {@link NodeReport#getMetrics()} and behaves as any other map, except
+ * that null keys are not permitted and throw an {@link IllegalArgumentException}.  To avoid boxing altogether, {@link #getValue(String, double)} and
+ * {@link #putValue(String, double)} may be used:
+ * <pre>
+ * metrics.putValue(PluginConstants.METRIC_CPULOAD, 0.5)
+ * double load = metrics.getValue(PluginConstants.METRIC_CPULOAD, 0)
+ * </pre>
+ * The metrics stored in fixed slots are always iterated first, followed by the custom metrics in no
+ * particular order.  The iterators are not fail-fast, so modifying the map other than through the iterator
+ * while iterating does not throw a {@link ConcurrentModificationException} and may skip or repeat entries.
+ */
+public class ReportMetricMap extends AbstractMap<String, Double> implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The metrics which are stored in fixed slots, in slot order.
+	 */
+	static final List<String> SLOT_METRICS = Collections.unmodifiableList(Arrays.asList(
+			PluginConstants.METRIC_CPULOAD,
+			PluginConstants.METRIC_SPEED,
+			PluginConstants.METRIC_CPU_UTILIZATION,
+			PluginConstants.METRIC_VM_COUNT
+	));
+	/**
+	 * A NaN bit pattern which is never produced by arithmetic, used to store null values.
+	 */
+	private static final long NULL_BITS = 0x7ff80000000000f1L;
+	/**
+	 * Marks a removed entry in the custom metric table.
+	 */
+	private static final Object REMOVED = new Object();
+	private static final int INITIAL_CAPACITY = 8;
+
+	/**
+	 * The raw bits of the values of the slot metrics.
+	 */
+	private final long[] slotValues = new long[SLOT_METRICS.size()];
+	/**
+	 * A bit for each index of {@link #slotValues} which contains an entry.
+	 */
+	private int slotMask = 0;
+	/**
+	 * The keys of the custom metric table, each null, {@link #REMOVED}, or a String.  The table is not
+	 * serialized since {@link #REMOVED} is not serializable, its entries are written instead.
+	 */
+	private transient Object[] keys;
+	/**
+	 * The raw bits of the values of the custom metric table.
+	 */
+	private transient long[] values;
+	private transient int customSize = 0;
+	private transient int removedCount = 0;
+	private transient Set<Map.Entry<String, Double>> entrySet;
+
+	/**
+	 * Returns the index of a metric name in {@link #SLOT_METRICS}.
+	 * @param key The metric name
+	 * @return The index or -1 if the metric is not stored in a fixed slot
+	 */
+	static int slotIndex(Object key) {
+		if (!(key instanceof String))
+			return -1;
+		switch ((String)key) {
+			case PluginConstants.METRIC_CPULOAD:
+				return 0;
+			case PluginConstants.METRIC_SPEED:
+				return 1;
+			case PluginConstants.METRIC_CPU_UTILIZATION:
+				return 2;
+			case PluginConstants.METRIC_VM_COUNT:
+				return 3;
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * Retrieves a metric value without boxing.
+	 * @param key The metric name
+	 * @param defaultValue The value to return if the metric does not exist or is null
+	 * @return The metric value or the default value
+	 */
+	public double getValue(String key, double defaultValue) {
+		long bits = getBits(key);
+		return bits == NULL_BITS ? defaultValue : Double.longBitsToDouble(bits);
+	}
+
+	/**
+	 * Sets a metric value without boxing.
+	 * @param key The metric name, may not be null
+	 * @param value The value to set
+	 */
+	public void putValue(String key, double value) {
+		putBits(key, Double.doubleToRawLongBits(value));
+	}
+
+	@Override
+	public Double get(Object key) {
+		long bits = getBits(key);
+		return bits == NULL_BITS ? null : Double.longBitsToDouble(bits);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		int index = slotIndex(key);
+		if (index >= 0)
+			return (slotMask & (1 << index)) != 0;
+		return key instanceof String && indexOf((String)key) >= 0;
+	}
+
+	@Override
+	public Double put(String key, Double value) {
+		Double previous = containsKey(key) ? get(key) : null;
+		putBits(key, value == null ? NULL_BITS : Double.doubleToRawLongBits(value));
+		return previous;
+	}
+
+	@Override
+	public Double remove(Object key) {
+		int index = slotIndex(key);
+		if (index >= 0) {
+			if ((slotMask & (1 << index)) == 0)
+				return null;
+			slotMask &= ~(1 << index);
+			return toDouble(slotValues[index]);
+		}
+		int i = key instanceof String ? indexOf((String)key) : -1;
+		if (i < 0)
+			return null;
+		Double previous = toDouble(values[i]);
+		removeAt(i);
+		return previous;
+	}
+
+	@Override
+	public int size() {
+		return Integer.bitCount(slotMask) + customSize;
+	}
+
+	@Override
+	public void clear() {
+		slotMask = 0;
+		if (keys != null)
+			Arrays.fill(keys, null);
+		customSize = 0;
+		removedCount = 0;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Double>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<String, Double>>() {
+				public Iterator<Map.Entry<String, Double>> iterator() {
+					return new EntryIterator();
+				}
+				public int size() {
+					return ReportMetricMap.this.size();
+				}
+				public void clear() {
+					ReportMetricMap.this.clear();
+				}
+			};
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Writes the slot metrics, followed by the number of custom metrics and the name and raw bits of each.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(customSize);
+		if (keys == null)
+			return;
+		for (int i = 0; i < keys.length; i++) {
+			Object k = keys[i];
+			if (k == null || k == REMOVED)
+				continue;
+			out.writeUTF((String)k);
+			out.writeLong(values[i]);
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int count = in.readInt();
+		if (count < 0)
+			throw new IOException("Invalid custom metric count "+count);
+		for (int i = 0; i < count; i++)
+			putBits(in.readUTF(), in.readLong());
+	}
+
+	private static Double toDouble(long bits) {
+		return bits == NULL_BITS ? null : Double.longBitsToDouble(bits);
+	}
+
+	private long getBits(Object key) {
+		int index = slotIndex(key);
+		if (index >= 0)
+			return (slotMask & (1 << index)) != 0 ? slotValues[index] : NULL_BITS;
+		int i = key instanceof String ? indexOf((String)key) : -1;
+		return i >= 0 ? values[i] : NULL_BITS;
+	}
+
+	private void putBits(String key, long bits) {
+		if (key == null)
+			throw new IllegalArgumentException("Argument [key] must not be null");
+		int index = slotIndex(key);
+		if (index >= 0) {
+			slotValues[index] = bits;
+			slotMask |= 1 << index;
+			return;
+		}
+		int i = indexOf(key);
+		if (i >= 0) {
+			values[i] = bits;
+			return;
+		}
+		if (keys == null || (customSize + removedCount + 1) * 4 > keys.length * 3)
+			resize();
+		i = hash(key) & (keys.length - 1);
+		while (keys[i] != null && keys[i] != REMOVED)
+			i = (i + 1) & (keys.length - 1);
+		if (keys[i] == REMOVED)
+			removedCount--;
+		keys[i] = key;
+		values[i] = bits;
+		customSize++;
+	}
+
+	private int indexOf(String key) {
+		if (keys == null)
+			return -1;
+		int mask = keys.length - 1;
+		for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+			Object k = keys[i];
+			if (k == null)
+				return -1;
+			if (k != REMOVED && k.equals(key))
+				return i;
+		}
+	}
+
+	private void removeAt(int i) {
+		keys[i] = REMOVED;
+		customSize--;
+		removedCount++;
+	}
+
+	private void resize() {
+		Object[] oldKeys = keys;
+		long[] oldValues = values;
+		int capacity = INITIAL_CAPACITY;
+		while ((customSize + 1) * 2 > capacity)
+			capacity *= 2;
+		keys = new Object[capacity];
+		values = new long[capacity];
+		removedCount = 0;
+		if (oldKeys == null)
+			return;
+		for (int j = 0; j < oldKeys.length; j++) {
+			Object k = oldKeys[j];
+			if (k == null || k == REMOVED)
+				continue;
+			int i = hash((String)k) & (capacity - 1);
+			while (keys[i] != null)
+				i = (i + 1) & (capacity - 1);
+			keys[i] = k;
+			values[i] = oldValues[j];
+		}
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Entry which reads and writes either a fixed slot or a position of the custom metric table.
+	 */
+	private class MetricEntry implements Map.Entry<String, Double> {
+		private final String key;
+		private final int slot;
+		private final int position;
+
+		MetricEntry(String key, int slot, int position) {
+			this.key = key;
+			this.slot = slot;
+			this.position = position;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public Double getValue() {
+			return toDouble(slot >= 0 ? slotValues[slot] : values[position]);
+		}
+
+		public Double setValue(Double value) {
+			Double previous = getValue();
+			long bits = value == null ? NULL_BITS : Double.doubleToRawLongBits(value);
+			if (slot >= 0)
+				slotValues[slot] = bits;
+			else
+				values[position] = bits;
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> other = (Map.Entry<?, ?>)o;
+			return key.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return key+"="+getValue();
+		}
+	}
+
+	/**
+	 * Iterates the slot entries followed by the custom metric table.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<String, Double>> {
+		// Positions 0..slot count - 1 are the fixed slots, the remaining are table positions
+		private int next = -1;
+		private int last = -1;
+
+		EntryIterator() {
+			next = advance(0);
+		}
+
+		private int advance(int from) {
+			int slotCount = slotValues.length;
+			for (int i = from; i < slotCount; i++) {
+				if ((slotMask & (1 << i)) != 0)
+					return i;
+			}
+			if (keys != null) {
+				for (int i = Math.max(from, slotCount); i < slotCount + keys.length; i++) {
+					Object k = keys[i - slotCount];
+					if (k != null && k != REMOVED)
+						return i;
+				}
+			}
+			return -1;
+		}
+
+		public boolean hasNext() {
+			return next >= 0;
+		}
+
+		public Map.Entry<String, Double> next() {
+			if (next < 0)
+				throw new NoSuchElementException();
+			last = next;
+			next = advance(next + 1);
+			int slotCount = slotValues.length;
+			if (last < slotCount)
+				return new MetricEntry(SLOT_METRICS.get(last), last, -1);
+			return new MetricEntry((String)keys[last - slotCount], -1, last - slotCount);
+		}
+
+		public void remove() {
+			if (last < 0)
+				throw new IllegalStateException();
+			int slotCount = slotValues.length;
+			if (last < slotCount)
+				slotMask &= ~(1 << last);
+			else
+				removeAt(last - slotCount);
+			last = -1;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.adaptc.mws.plugins;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single page of reports returned by a paged listing, such as
+ * {@link IJobRMService#list(java.util.Collection, int, int)}.  The {@link #getNextOffset()} value may be
+ * used as the offset of the following request while {@link #hasMore()} returns true.
+ * @param <T> The type of report
+ */
+public class ReportPage<T> {
+	/**
+	 * The reports in this page.
+	 */
+	private final List<T> reports;
+	/**
+	 * The offset of the first report of this page in the complete listing.
+	 */
+	private final int offset;
+	/**
+	 * True if more reports exist after this page.
+	 */
+	private final boolean more;
+
+	/**
+	 * Creates a new page of reports.
+	 * @param reports The reports in this page, may be null for an empty page
+	 * @param offset The offset of the first report of this page in the complete listing
+	 * @param more True if more reports exist after this page
+	 */
+	public ReportPage(List<T> reports, int offset, boolean more) {
+		this.reports = reports == null ? Collections.<T>emptyList() : reports;
+		this.offset = offset;
+		this.more = more;
+	}
+
+	/**
+	 * @see #reports
+	 */
+	public List<T> getReports() {
+		return reports;
+	}
+	/**
+	 * @see #offset
+	 */
+	public int getOffset() {
+		return offset;
+	}
+	/**
+	 * Returns the offset to use to request the following page.
+	 * @return The offset of this page plus the number of reports in it
+	 */
+	public int getNextOffset() {
+		return offset + reports.size();
+	}
+	/**
+	 * @see #more
+	 */
+	public boolean hasMore() {
+		return more;
+	}
+}
@@ -0,0 +1,116 @@
+package com.adaptc.mws.plugins;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, thread-safe pool of reports which allows report instances and their nested collections to
+ * be reused between polls instead of being reallocated.  Reports are reset when released to the pool, and
+ * new reports are created only when the pool is empty.
+ * Reports may be released once nothing else refers to them or their collections.  The RM services consolidate
+ * the reports passed to {@link INodeRMService#save(java.util.List)}, {@link INodeRMService#update(java.util.List)},
+ * and the equivalent methods of {@link IJobRMService} into their cache before returning and do not refer to them
+ * afterwards, so reports may be released as soon as that call returns:
+ * <pre>
+ * ReportPool&lt;NodeReport&gt; pool = ReportPool.nodeReports(1000)
+ * List&lt;NodeReport&gt; reports = nodes.collect { node -&gt;
+ * 	NodeReport report = pool.acquire()
+ * 	report.name = node.name
+ * 	// Populate the report
+ * 	return report
+ * }
+ * nodeRMService.save(reports)
+ * pool.releaseAll(reports)
+ * </pre>
+ * Reports must not be released while a call to the RM services using them is still in progress, while they are
+ * queued in an {@link AsyncReportSubmitter}, while they are kept to compute a {@link NodeReportDelta} or
+ * {@link JobReportDelta} during the next poll, or while their collections are shared with other reports.
+ * @param <T> The type of report held by the pool
+ */
+public class ReportPool<T extends IRecyclable> {
+	private final Supplier<T> factory;
+	private final int maxSize;
+	private final ArrayDeque<T> available = new ArrayDeque<T>();
+
+	/**
+	 * Creates a new pool.
+	 * @param factory Creates new reports when the pool is empty
+	 * @param maxSize The maximum number of released reports to hold, any further reports are discarded
+	 * @throws IllegalArgumentException If the factory is null or the maximum size is negative
+	 */
+	public ReportPool(Supplier<T> factory, int maxSize) {
+		if (factory == null)
+			throw new IllegalArgumentException("Argument [factory] must not be null");
+		if (maxSize < 0)
+			throw new IllegalArgumentException("Argument [maxSize] must not be negative");
+		this.factory = factory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Creates a new pool of node reports.
+	 * @param maxSize The maximum number of released reports to hold
+	 * @return A new pool
+	 */
+	public static ReportPool<NodeReport> nodeReports(int maxSize) {
+		return new ReportPool<NodeReport>(NodeReport::new, maxSize);
+	}
+
+	/**
+	 * Creates a new pool of job reports.
+	 * @param maxSize The maximum number of released reports to hold
+	 * @return A new pool
+	 */
+	public static ReportPool<JobReport> jobReports(int maxSize) {
+		return new ReportPool<JobReport>(JobReport::new, maxSize);
+	}
+
+	/**
+	 * Retrieves a reset report from the pool, or creates a new report if the pool is empty.
+	 * @return A report in its initial state
+	 */
+	public T acquire() {
+		T report;
+		synchronized (available) {
+			report = available.pollLast();
+		}
+		return report == null ? factory.get() : report;
+	}
+
+	/**
+	 * Resets a report and returns it to the pool, unless the pool is full.  A report must not be released
+	 * again until it has been acquired.
+	 * @param report The report to release, ignored if null
+	 */
+	public void release(T report) {
+		if (report == null)
+			return;
+		report.reset();
+		synchronized (available) {
+			if (available.size() < maxSize)
+				available.addLast(report);
+		}
+	}
+
+	/**
+	 * Resets each of the reports and returns them to the pool while it is not full.
+	 * @param reports The reports to release, may be null
+	 */
+	public void releaseAll(Collection<? extends T> reports) {
+		if (reports == null)
+			return;
+		for (T report : reports)
+			release(report);
+	}
+
+	/**
+	 * Returns the number of reports currently available in the pool.
+	 * @return The number of available reports
+	 */
+	public int size() {
+		synchronized (available) {
+			return available.size();
+		}
+	}
+}
@@ -3,39 +3,86 @@ package com.adaptc.mws.plugins;
 /**
  * Signifies a single resource definition in Moab Workload Manager, including
  * both the {@link #getTotal()} and {@link #getAvailable()} resources.
+ * <p>
+ * The amounts are stored as primitive values, so {@link #getTotal(int)} and {@link #getAvailable(int)}
+ * may be used to read them without boxing.
  * @author bsaville
  */
 public class ReportResource {
-	private Integer total;
-	private Integer available;
+	private int total;
+	private int available;
+	private boolean totalSet;
+	private boolean availableSet;
 
 	/**
 	 * Retrieves the total amount of this resource.
 	 * @return The current value
 	 */
 	public Integer getTotal() {
-		return total;
+		return totalSet ? Integer.valueOf(total) : null;
+	}
+	/**
+	 * Retrieves the total amount of this resource as a primitive value.
+	 * @param defaultValue The value to return if the total amount is not set
+	 * @return The current value or the default value if not set
+	 */
+	public int getTotal(int defaultValue) {
+		return totalSet ? total : defaultValue;
 	}
 	/**
 	 * Sets the total amount of this resource.
 	 * @param total The value to set
 	 */
 	public void setTotal(Integer total) {
-		this.total = total;
+		this.totalSet = total != null;
+		this.total = totalSet ? total : 0;
 	}
 	/**
 	 * Retrieves the available amount of this resource.
 	 * @return The current value
 	 */
 	public Integer getAvailable() {
-		return available;
+		return availableSet ? Integer.valueOf(available) : null;
+	}
+	/**
+	 * Retrieves the available amount of this resource as a primitive value.
+	 * @param defaultValue The value to return if the available amount is not set
+	 * @return The current value or the default value if not set
+	 */
+	public int getAvailable(int defaultValue) {
+		return availableSet ? available : defaultValue;
 	}
 	/**
 	 * Sets the available amount of this resource.
 	 * @param available The value to set
 	 */
 	public void setAvailable(Integer available) {
-		this.available = available;
+		this.availableSet = available != null;
+		this.available = availableSet ? available : 0;
+	}
+
+	/**
+	 * Two resources are equal if both the total and available amounts are equal.
+	 * @param o The object to compare against
+	 * @return True if the object is a resource with the same amounts
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof ReportResource))
+			return false;
+		ReportResource other = (ReportResource)o;
+		return totalSet == other.totalSet && total == other.total &&
+				availableSet == other.availableSet && available == other.available;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * (31 + (totalSet ? total : 0)) + (availableSet ? available : 0);
 	}
 
 	/**
@@ -44,6 +91,6 @@ public class ReportResource {
 	 */
 	@Override
 	public String toString() {
-		return "[available:"+available+", total:"+total+"]";
+		return "[available:"+getAvailable()+", total:"+getTotal()+"]";
 	}
 }
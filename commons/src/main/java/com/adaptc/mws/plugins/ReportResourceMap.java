@@ -1,6 +1,7 @@
 package com.adaptc.mws.plugins;
 
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * A map containing String to {@link ReportResource} values.  If entries are attempted to be
@@ -21,10 +22,24 @@ import java.util.LinkedHashMap;
  *         resources."${{@link PluginConstants#RESOURCE_PROCESSORS}}".total = 4</code>
  *     </li>
  * </ul>
+ * To inspect entries without creating them, use {@link #getIfPresent(Object)} or the view returned by
+ * {@link #asReadOnly()}.
  * @author bsaville
  */
 public class ReportResourceMap extends LinkedHashMap<String, ReportResource> {
 	private static final long serialVersionUID = 1L;
+	/**
+	 * The initial capacity of the map, which holds the known resources and a few generic resources
+	 * without resizing, while using half of the default table size.
+	 */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public ReportResourceMap() {
+		super(INITIAL_CAPACITY);
+	}
 
 	/**
 	 * Retrieves an entry and creates it if it does not already exist.
@@ -33,11 +48,53 @@ public class ReportResourceMap extends LinkedHashMap<String, ReportResource> {
 	 */
 	@Override
 	public ReportResource get(Object key) {
-		if (!containsKey(key))
-			put((String)key, new ReportResource());
+		ReportResource resource = super.get(key);
+		// Entries are only ever null if explicitly put, so the common case only needs a single lookup
+		if (resource == null && !containsKey(key)) {
+			resource = new ReportResource();
+			put((String)key, resource);
+		}
+		return resource;
+	}
+
+	/**
+	 * Retrieves an entry without creating it if it does not already exist.
+	 * @param key The key to retrieve
+	 * @return A {@link ReportResource} value or null if the entry does not exist
+	 */
+	public ReportResource getIfPresent(Object key) {
 		return super.get(key);
 	}
 
+	/**
+	 * Returns a read-only view of this map which does not create entries when they are retrieved and
+	 * do not exist.  This should be used when only inspecting the entries, such as when comparing or
+	 * serializing, so that no empty entries are added.  Note that the values themselves may still be
+	 * modified.
+	 * @return A read-only view of this map
+	 */
+	public Map<String, ReportResource> asReadOnly() {
+		return new ReadOnlyReportMap<ReportResource>(this);
+	}
+
+	/**
+	 * Compares the entries of this map to the given map without creating any entries in either map.
+	 * @param o The object to compare against
+	 * @return True if the object is a map containing the same entries
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return o == this || o instanceof Map && ReportDiffs.entriesEqual(this, (Map<?, ?>)o);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+
 	/**
 	 * Allows array-like access to entries.<br>
 	 *  <code>resources['resource1'].total = 1<br>
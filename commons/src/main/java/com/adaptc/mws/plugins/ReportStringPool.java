@@ -0,0 +1,90 @@
+package com.adaptc.mws.plugins;
+
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * A bounded pool used to share equal string instances between reports.  Many report values, such as
+ * node operating systems and partitions or job users and accounts, repeat across all reports of a cluster,
+ * so routing them through the pool allows each distinct value to be held in memory once.
+ * <p>
+ * The pool is lossy: each string is stored in a slot chosen by its hash code, replacing any string
+ * previously stored in that slot.  This keeps the memory used by the pool fixed and requires no
+ * locking, at the cost of occasionally returning a new instance for a string that was seen before.
+ * Strings longer than {@link #MAX_LENGTH} characters are never pooled.
+ * <p>
+ * The {@link #SHARED} pool is used by the setters of {@link NodeReport} and {@link JobReport}, and may
+ * also be used by translators for other repeated values:
+ * <pre>
+ * nodeReport.features = ReportStringPool.SHARED.internAll(features)
+ * </pre>
+ */
+public final class ReportStringPool {
+	/**
+	 * The pool shared by all reports.
+	 */
+	public static final ReportStringPool SHARED = new ReportStringPool(4096);
+	/**
+	 * The maximum length of strings stored in the pool.
+	 */
+	public static final int MAX_LENGTH = 128;
+
+	private final String[] strings;
+
+	/**
+	 * Creates a new pool.
+	 * @param capacity The number of strings the pool can hold, rounded up to a power of two
+	 * @throws IllegalArgumentException If the capacity is not between 1 and 2^30
+	 */
+	public ReportStringPool(int capacity) {
+		if (capacity < 1 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Argument [capacity] must be between 1 and "+(1 << 30));
+		int size = 1;
+		while (size < capacity)
+			size <<= 1;
+		strings = new String[size];
+	}
+
+	/**
+	 * Returns a pooled instance equal to the given string, adding the string to the pool if no equal
+	 * instance is present.
+	 * @param string The string to intern, may be null
+	 * @return A string equal to the given string, or null if the string is null
+	 */
+	public String intern(String string) {
+		if (string == null || string.length() > MAX_LENGTH)
+			return string;
+		int hash = string.hashCode();
+		int index = (hash ^ (hash >>> 16)) & (strings.length - 1);
+		String pooled = strings[index];
+		if (pooled != null && pooled.equals(string))
+			return pooled;
+		strings[index] = string;
+		return string;
+	}
+
+	/**
+	 * Replaces each string of a list with its pooled instance.
+	 * @param list The list to intern in place, which must support {@link ListIterator#set(Object)}, may be null
+	 * @return The same list
+	 */
+	public List<String> internAll(List<String> list) {
+		if (list == null)
+			return null;
+		for (ListIterator<String> iterator = list.listIterator(); iterator.hasNext(); ) {
+			String string = iterator.next();
+			String pooled = intern(string);
+			if (pooled != string)
+				iterator.set(pooled);
+		}
+		return list;
+	}
+
+	/**
+	 * Removes all strings from the pool.
+	 */
+	public void clear() {
+		for (int i = 0; i < strings.length; i++)
+			strings[i] = null;
+	}
+}
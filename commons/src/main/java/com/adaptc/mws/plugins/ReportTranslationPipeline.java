@@ -0,0 +1,150 @@
+package com.adaptc.mws.plugins;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Translates native resource manager records into reports in parallel.  The records are split into chunks,
+ * each chunk is translated on a {@link ForkJoinPool}, and the results are merged in the order of the
+ * records, so the returned list may be passed directly to {@link INodeRMService#save(List)} or
+ * {@link IJobRMService#save(List)}.
+ * <pre>
+ * ReportTranslationPipeline&lt;String, NodeReport&gt; pipeline = ReportTranslationPipeline.forEach(200) { String line -&gt;
+ * 	nodeTranslator.translate(line)
+ * }
+ * // During each poll
+ * nodeRMService.save(pipeline.translate(output.readLines()))
+ * </pre>
+ * The translator is called from multiple threads at once and therefore must be thread-safe.  In particular,
+ * it must not modify shared state without synchronization.  An exception thrown by the translator for any
+ * chunk is rethrown from {@link #translate(List)} as documented by {@link java.util.concurrent.ForkJoinTask#invoke()},
+ * and the other results are discarded.
+ * <p>
+ * Lists with no more than a single chunk of records are translated on the calling thread.
+ * @param <I> The type of record
+ * @param <R> The type of report
+ */
+public class ReportTranslationPipeline<I, R> {
+	/**
+	 * The number of records in each chunk if none is given.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+
+	private final Function<List<I>, List<R>> translator;
+	private final int chunkSize;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a new pipeline which uses the common pool and {@link #DEFAULT_CHUNK_SIZE}.
+	 * @param translator Translates a chunk of records into reports
+	 * @throws IllegalArgumentException If the translator is null
+	 */
+	public ReportTranslationPipeline(Function<List<I>, List<R>> translator) {
+		this(translator, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new pipeline.
+	 * @param translator Translates a chunk of records into reports, any null reports returned are omitted
+	 * @param chunkSize The maximum number of records in each chunk
+	 * @param pool The pool used to translate chunks
+	 * @throws IllegalArgumentException If the translator or pool is null, or the chunk size is not positive
+	 */
+	public ReportTranslationPipeline(Function<List<I>, List<R>> translator, int chunkSize, ForkJoinPool pool) {
+		if (translator == null)
+			throw new IllegalArgumentException("Argument [translator] must not be null");
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Argument [chunkSize] must be greater than 0");
+		if (pool == null)
+			throw new IllegalArgumentException("Argument [pool] must not be null");
+		this.translator = translator;
+		this.chunkSize = chunkSize;
+		this.pool = pool;
+	}
+
+	/**
+	 * Creates a new pipeline which translates each record into a single report using the common pool.
+	 * @param chunkSize The maximum number of records in each chunk
+	 * @param translator Translates a record into a report, or returns null to omit the record
+	 * @param <I> The type of record
+	 * @param <R> The type of report
+	 * @return A new pipeline
+	 * @throws IllegalArgumentException If the translator is null or the chunk size is not positive
+	 */
+	public static <I, R> ReportTranslationPipeline<I, R> forEach(int chunkSize, final Function<I, R> translator) {
+		if (translator == null)
+			throw new IllegalArgumentException("Argument [translator] must not be null");
+		return new ReportTranslationPipeline<I, R>(chunk -> {
+			List<R> reports = new ArrayList<R>(chunk.size());
+			for (I record : chunk)
+				reports.add(translator.apply(record));
+			return reports;
+		}, chunkSize, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Translates records into reports.
+	 * @param records The records to translate, which must not be modified until this returns
+	 * @return A new list of the translated reports in record order, excluding null reports
+	 */
+	public List<R> translate(List<I> records) {
+		if (records == null || records.isEmpty())
+			return new ArrayList<R>();
+		if (!(records instanceof RandomAccess))
+			records = new ArrayList<I>(records);
+		int chunks = (records.size() - 1) / chunkSize + 1;
+		List<List<R>> results = new ArrayList<List<R>>(Collections.<List<R>>nCopies(chunks, null));
+		TranslateTask task = new TranslateTask(records, results, 0, chunks);
+		if (chunks == 1)
+			task.compute();
+		else
+			pool.invoke(task);
+
+		int size = 0;
+		for (List<R> result : results)
+			size += result == null ? 0 : result.size();
+		List<R> reports = new ArrayList<R>(size);
+		for (List<R> result : results) {
+			if (result == null)
+				continue;
+			for (R report : result) {
+				if (report != null)
+					reports.add(report);
+			}
+		}
+		return reports;
+	}
+
+	/**
+	 * Translates a range of chunks, splitting it in half until it is a single chunk.
+	 */
+	private final class TranslateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<I> records;
+		private final List<List<R>> results;
+		private final int from;
+		private final int to;
+
+		TranslateTask(List<I> records, List<List<R>> results, int from, int to) {
+			this.records = records;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				int start = from * chunkSize;
+				int end = Math.min(start + chunkSize, records.size());
+				results.set(from, translator.apply(Collections.unmodifiableList(records.subList(start, end))));
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new TranslateTask(records, results, from, middle), new TranslateTask(records, results, middle, to));
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@Unroll
+class AsyncMoabRestServiceSpec extends Specification {
+	def "#method with #arguments"() {
+		given:
+		def executed = []
+		def executor = { Runnable runnable -> executed << runnable; runnable.run() } as Executor
+		def service = new TestMoabRestService({ m, options, url, data -> TestMoabRestService.response([url: url]) })
+		def asyncService = new AsyncMoabRestService(service, executor)
+		def data = { [a: 1] }
+
+		when:
+		def future = asyncService."${method.toLowerCase()}"(*arguments.collect { it=="data" ? data : it })
+
+		then:
+		future.get().data.url=="/rest/test"
+		executed.size()==1
+		service.requests.size()==1
+		service.requests[0].method==method
+		service.requests[0].options==(arguments[0] instanceof Map ? [opt: true] : [:])
+		service.requests[0].data.is(arguments.contains("data") ? data : null)
+
+		where:
+		[method, arguments] << [["GET", "PUT", "POST", "DELETE"], [
+				["/rest/test"],
+				[[opt: true], "/rest/test"],
+				["/rest/test", "data"],
+				[[opt: true], "/rest/test", "data"],
+		]].combinations()
+	}
+
+	def "Requests run concurrently and failures complete the future exceptionally"() {
+		given:
+		def pool = Executors.newFixedThreadPool(4)
+		def running = new CyclicBarrier(4)
+		def service = new TestMoabRestService({ m, options, url, data ->
+			if (url=="/rest/fail")
+				throw new IllegalStateException("failed")
+			// Each request only completes once all four are running at the same time
+			running.await(5, TimeUnit.SECONDS)
+			TestMoabRestService.response([url: url])
+		})
+		def asyncService = new AsyncMoabRestService(service, pool)
+
+		when:
+		def responses = (1..4).collect { asyncService.get("/rest/nodes/node"+it) }*.join()
+
+		then:
+		responses*.data*.url==(1..4).collect { "/rest/nodes/node"+it }
+
+		when:
+		asyncService.get("/rest/fail").join()
+
+		then:
+		CompletionException e = thrown()
+		e.cause instanceof IllegalStateException
+
+		cleanup:
+		pool.shutdown()
+	}
+
+	def "Invalid arguments"() {
+		when:
+		new AsyncMoabRestService(null, {} as Executor)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [moabRestService] must not be null"
+	}
+}
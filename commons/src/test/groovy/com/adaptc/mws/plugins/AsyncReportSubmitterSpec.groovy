@@ -0,0 +1,204 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class AsyncReportSubmitterSpec extends Specification {
+	private static NodeReport report(String name, NodeReportState state) {
+		def report = new NodeReport(name)
+		report.state = state
+		return report
+	}
+
+	def "Writes in batches when enough reports are pending"() {
+		given:
+		def batches = Collections.synchronizedList([])
+		def submitter = new AsyncReportSubmitter<NodeReport>({ batches << it*.name }, { it.name }, 100, 3, 60000)
+
+		when:
+		submitter.offerAll((1..7).collect { report("node"+it, NodeReportState.IDLE) })
+		def flushed = submitter.flush(5, TimeUnit.SECONDS)
+
+		then:
+		flushed
+		batches.take(2)==[["node1", "node2", "node3"], ["node4", "node5", "node6"]]
+		batches.flatten()==(1..7).collect { "node"+it }
+		submitter.writtenCount==7
+		submitter.pendingCount==0
+
+		cleanup:
+		submitter.close()
+	}
+
+	def "Writes pending reports after the flush interval"() {
+		given:
+		def written = new CountDownLatch(1)
+		def submitter = new AsyncReportSubmitter<NodeReport>({ written.countDown() }, { it.name }, 100, 50, 20)
+
+		when:
+		submitter.offer(report("node1", NodeReportState.IDLE))
+
+		then:
+		written.await(5, TimeUnit.SECONDS)
+
+		cleanup:
+		submitter.close()
+	}
+
+	def "Coalesces by name and rejects when full"() {
+		given:
+		def release = new CountDownLatch(1)
+		def batches = Collections.synchronizedList([])
+		def submitter = new AsyncReportSubmitter<NodeReport>({
+			release.await()
+			batches << it.collect { it.name+":"+it.state }
+		}, { it.name }, 2, 10, 60000)
+
+		when:
+		def accepted = [
+				submitter.offer(report("node1", NodeReportState.IDLE)),
+				submitter.offer(report("node2", NodeReportState.IDLE)),
+				submitter.offer(report("node3", NodeReportState.IDLE)),
+				submitter.offer(report("node1", NodeReportState.BUSY)),
+		]
+
+		then:
+		accepted==[true, true, false, true]
+		submitter.remainingCapacity==0
+		submitter.coalescedCount==1
+		submitter.rejectedCount==1
+		!submitter.offer(report("node3", NodeReportState.IDLE), 10, TimeUnit.MILLISECONDS)
+
+		when:
+		release.countDown()
+		submitter.flush(5, TimeUnit.SECONDS)
+
+		then:
+		batches==[["node1:Busy", "node2:Idle"]]
+		submitter.offer(report("node3", NodeReportState.IDLE), 1, TimeUnit.SECONDS)
+
+		cleanup:
+		submitter.close()
+	}
+
+	def "Failures are passed to the handler"() {
+		given:
+		def service = new FailingNodeRMService()
+		def submitter = AsyncReportSubmitter.nodeReports(service, 10, 10, 60000)
+		def failures = Collections.synchronizedList([])
+		submitter.failureHandler = { batch, e -> failures << [batch*.name, e.message] }
+
+		when:
+		submitter.offer(report("node1", NodeReportState.IDLE))
+		submitter.flush(5, TimeUnit.SECONDS)
+
+		then:
+		failures==[[["node1"], "unavailable"]]
+		submitter.failedCount==1
+		submitter.writtenCount==0
+
+		when:
+		service.fail = false
+		submitter.offer(report("node2", NodeReportState.IDLE))
+		submitter.flush(5, TimeUnit.SECONDS)
+
+		then:
+		service.updated*.name==["node2"]
+		submitter.writtenCount==1
+
+		cleanup:
+		submitter.close()
+	}
+
+	def "Checked exceptions and errors do not stop the submitter"() {
+		given:
+		def failures = Collections.synchronizedList([])
+		def written = Collections.synchronizedList([])
+		def submitter = new AsyncReportSubmitter<NodeReport>({ List<NodeReport> batch ->
+			if (batch[0].name=="node1")
+				throw new IOException("unavailable")
+			if (batch[0].name=="node2")
+				throw new AssertionError("broken")
+			written.addAll(batch*.name)
+		}, { it.name }, 10, 1, 60000)
+		submitter.failureHandler = { batch, e -> failures << [batch*.name, e.cause.class] }
+
+		when:
+		submitter.offer(report("node1", NodeReportState.IDLE))
+		submitter.offer(report("node2", NodeReportState.IDLE))
+		submitter.offer(report("node3", NodeReportState.IDLE))
+		def flushed = submitter.flush(5, TimeUnit.SECONDS)
+
+		then:
+		flushed
+		failures==[[["node1"], IOException], [["node2"], AssertionError]]
+		written==["node3"]
+		submitter.failedCount==2
+		submitter.writtenCount==1
+
+		cleanup:
+		submitter.close()
+	}
+
+	def "Close writes pending reports and rejects new reports"() {
+		given:
+		def release = new CountDownLatch(1)
+		def written = Collections.synchronizedList([])
+		def submitter = new AsyncReportSubmitter<NodeReport>({
+			release.await()
+			written.addAll(it*.name)
+		}, { it.name }, 10, 1, 60000)
+		submitter.offerAll([report("node1", NodeReportState.IDLE), report("node2", NodeReportState.IDLE)])
+
+		when:
+		submitter.close()
+		def accepted = submitter.offer(report("node3", NodeReportState.IDLE))
+		release.countDown()
+		submitter.flush(5, TimeUnit.SECONDS)
+
+		then:
+		!accepted
+		written==["node1", "node2"]
+	}
+
+	def "Invalid arguments"() {
+		when:
+		new AsyncReportSubmitter<NodeReport>({}, { it.name }, 0, 1, 1)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [capacity] must be greater than 0"
+
+		when:
+		def submitter = new AsyncReportSubmitter<NodeReport>({}, { it.name }, 1, 1, 60000)
+		submitter.offer(report("node1", NodeReportState.IDLE))
+		submitter.offer(null, 1, TimeUnit.MILLISECONDS)
+
+		then:
+		IllegalArgumentException nullReport = thrown()
+		nullReport.message=="Argument [report] must not be null"
+
+		cleanup:
+		submitter?.close()
+	}
+
+	private static class FailingNodeRMService implements INodeRMService {
+		volatile boolean fail = true
+		List<NodeReport> updated = []
+
+		List<NodeReport> list() {
+			return []
+		}
+
+		void save(List<NodeReport> nodeReports) {
+		}
+
+		void update(List<NodeReport> nodeReports) {
+			if (fail)
+				throw new IllegalStateException("unavailable")
+			updated.addAll(nodeReports)
+		}
+	}
+}
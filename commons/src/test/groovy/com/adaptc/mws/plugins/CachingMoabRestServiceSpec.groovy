@@ -0,0 +1,284 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class CachingMoabRestServiceSpec extends Specification {
+	long now = 1000
+	int count = 0
+
+	private CachingMoabRestService caching(IMoabRestService service, long defaultTimeToLive, int maxEntries=100) {
+		def caching = new CachingMoabRestService(service, defaultTimeToLive, maxEntries)
+		caching.clock = { now }
+		return caching
+	}
+
+	private TestMoabRestService countingService() {
+		return new TestMoabRestService({ method, options, url, data ->
+			TestMoabRestService.response([url: url, count: ++count])
+		})
+	}
+
+	def "Responses are cached by URL and options until they expire"() {
+		given:
+		def service = countingService()
+		def caching = caching(service, 0)
+		caching.setTimeToLive("/rest/policies", 1000)
+		caching.setTimeToLive("/rest/policies/volatile", 0)
+
+		expect:
+		caching.get("/rest/policies").data.count==1
+		caching.get("/rest/policies").data.count==1
+		caching.get([params: [a: 1]], "/rest/policies").data.count==2
+		caching.get([params: [a: 1]], "/rest/policies").data.count==2
+		caching.get("/rest/policies/volatile").data.count==3
+		caching.get("/rest/policies/volatile").data.count==4
+		caching.get("/rest/nodes").data.count==5
+		caching.get("/rest/nodes").data.count==6
+		caching.get("/rest/policies", { [:] }).data.count==7
+		caching.hitCount==2
+		caching.missCount==2
+		caching.size()==2
+
+		when:
+		now += 1000
+
+		then:
+		caching.get("/rest/policies").data.count==8
+		caching.get("/rest/policies").data.count==8
+	}
+
+	def "URL prefixes match whole path segments"() {
+		given:
+		def caching = caching(countingService(), 0)
+		caching.setTimeToLive("/rest/jobs", 1000)
+		caching.setTimeToLive("/rest/jobs/volatile/", 0)
+		def urls = ["/rest/jobs", "/rest/jobs/", "/rest/jobs?fields=name", "/rest/jobs/job.1", "/rest/jobsfoo",
+				"/rest/jobs/volatile", "/rest/jobs/volatile/job.1"]
+		urls.each { caching.get(it) }
+
+		expect:
+		caching.size()==4
+		caching.get("/rest/jobsfoo").data.count==8
+
+		when:
+		caching.get("/rest/nodesfoo")
+		caching.setTimeToLive("/rest/nodes", 1000)
+		caching.get("/rest/nodes")
+		caching.invalidate("/rest/job")
+
+		then:
+		caching.size()==5
+
+		when:
+		caching.put("/rest/jobs/job") { [a: 1] }
+
+		then: "Only /rest/jobs/job.1 and /rest/nodes remain"
+		caching.size()==2
+		caching.get("/rest/jobs/job.1").data.count==4
+
+		when:
+		caching.invalidate("/rest/jobs/")
+
+		then:
+		caching.size()==1
+	}
+
+	def "Least recently used responses are evicted"() {
+		given:
+		def caching = caching(countingService(), 1000, 2)
+
+		when:
+		caching.get("/rest/a")
+		caching.get("/rest/b")
+		caching.get("/rest/a")
+		caching.get("/rest/c")
+
+		then:
+		caching.size()==2
+		caching.get("/rest/a").data.count==1
+		caching.get("/rest/b").data.count==4
+	}
+
+	def "Errors are not cached"() {
+		given:
+		def service = new TestMoabRestService({ method, options, url, data ->
+			TestMoabRestService.response([count: ++count], 500)
+		})
+		def caching = caching(service, 1000)
+
+		expect:
+		caching.get("/rest/a").data.count==1
+		caching.get("/rest/a").data.count==2
+		caching.size()==0
+	}
+
+	def "Modifications invalidate related URLs"() {
+		given:
+		def service = countingService()
+		def caching = caching(service, 1000)
+		["/rest/jobs", "/rest/jobs/job.1", "/rest/jobs/job.2", "/rest/nodes"].each { caching.get(it) }
+
+		when:
+		caching.put("/rest/jobs/job.1") { [a: 1] }
+
+		then:
+		service.requests[-1].method=="PUT"
+		caching.size()==2
+		caching.get("/rest/jobs/job.2").data.count==3
+		caching.get("/rest/nodes").data.count==4
+
+		when:
+		caching.delete("/rest/jobs?force=true")
+		caching.invalidate("/rest/nodes")
+
+		then:
+		caching.size()==0
+	}
+
+	def "Failed modifications invalidate related URLs"() {
+		given:
+		def service = new TestMoabRestService({ method, options, url, data ->
+			if (method=="POST")
+				throw new IllegalStateException("connection reset")
+			TestMoabRestService.response([count: ++count])
+		})
+		def caching = caching(service, 1000)
+		caching.get("/rest/jobs")
+
+		when:
+		caching.post("/rest/jobs") { [a: 1] }
+
+		then:
+		thrown(IllegalStateException)
+		caching.size()==0
+		caching.get("/rest/jobs").data.count==2
+	}
+
+	def "Nested options are copied into the cache key"() {
+		given:
+		def service = countingService()
+		def caching = caching(service, 1000)
+		def params = [a: [1, 2]]
+		def headers = [Accept: "application/json"]
+
+		when:
+		caching.get([params: params, headers: headers], "/rest/jobs")
+		params.a << 3
+		headers.Accept = "text/plain"
+
+		then:
+		caching.get([params: [a: [1, 2]], headers: [Accept: "application/json"]], "/rest/jobs").data.count==1
+		caching.get([params: params, headers: headers], "/rest/jobs").data.count==2
+		caching.size()==2
+	}
+
+	def "Expired responses are revalidated"() {
+		given:
+		def service = new TestMoabRestService({ method, options, url, data ->
+			if (options.headers?."If-None-Match"=="v1")
+				return TestMoabRestService.response(null, CachingMoabRestService.NOT_MODIFIED)
+			def response = TestMoabRestService.response([count: ++count])
+			response.response.setHeader("ETag", "v1")
+			return response
+		})
+		def caching = caching(service, 1000)
+
+		when:
+		def first = caching.get([headers: [Accept: "application/json"]], "/rest/images")
+		now += 1000
+		def second = caching.get([headers: [Accept: "application/json"]], "/rest/images")
+
+		then:
+		second.is(first)
+		service.requests.size()==2
+		service.requests[1].options.headers==[Accept: "application/json", "If-None-Match": "v1"]
+
+		when:
+		now += 999
+
+		then:
+		caching.get([headers: [Accept: "application/json"]], "/rest/images").is(first)
+		service.requests.size()==2
+	}
+
+	def "Concurrent identical requests are combined"() {
+		given:
+		def started = new CountDownLatch(1)
+		def joining = new CountDownLatch(3)
+		def release = new CountDownLatch(1)
+		def service = new TestMoabRestService({ method, options, url, data ->
+			started.countDown()
+			release.await(5, TimeUnit.SECONDS)
+			TestMoabRestService.response([count: ++count])
+		})
+		def caching = caching(service, 1000)
+		def pool = Executors.newFixedThreadPool(4)
+
+		when:
+		def first = pool.submit({ caching.get("/rest/credentials") } as java.util.concurrent.Callable)
+		started.await(5, TimeUnit.SECONDS)
+		def others = (1..3).collect {
+			pool.submit({
+				joining.countDown()
+				caching.get("/rest/credentials")
+			} as java.util.concurrent.Callable)
+		}
+		// Requests arriving after the first completes are served from the cache, so the result does not
+		// depend on whether the others joined the request in progress
+		joining.await(5, TimeUnit.SECONDS)
+		release.countDown()
+		def responses = [first, *others]*.get(5, TimeUnit.SECONDS)
+
+		then:
+		responses*.data*.count==[1, 1, 1, 1]
+		service.requests.size()==1
+
+		cleanup:
+		pool.shutdown()
+	}
+
+	def "Requests after a modification do not join requests started before it"() {
+		given:
+		def started = new CountDownLatch(1)
+		def release = new CountDownLatch(1)
+		def service = new TestMoabRestService({ method, options, url, data ->
+			if (method=="GET" && ++count==1) {
+				started.countDown()
+				release.await(5, TimeUnit.SECONDS)
+				return TestMoabRestService.response([value: "before"])
+			}
+			return TestMoabRestService.response([value: "after"])
+		})
+		def caching = caching(service, 1000)
+		def pool = Executors.newFixedThreadPool(2)
+
+		when:
+		def first = pool.submit({ caching.get("/rest/policies") } as java.util.concurrent.Callable)
+		started.await(5, TimeUnit.SECONDS)
+		caching.put("/rest/policies") { [a: 1] }
+		def second = caching.get("/rest/policies")
+		release.countDown()
+
+		then:
+		second.data.value=="after"
+		first.get(5, TimeUnit.SECONDS).data.value=="before"
+		caching.get("/rest/policies").data.value=="after"
+		service.requests*.method==["GET", "PUT", "GET"]
+
+		cleanup:
+		pool.shutdown()
+	}
+
+	def "Invalid arguments"() {
+		when:
+		new CachingMoabRestService(countingService(), 0, 0)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [maxEntries] must be greater than 0"
+	}
+}
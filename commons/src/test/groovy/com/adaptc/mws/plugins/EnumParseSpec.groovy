@@ -0,0 +1,67 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class EnumParseSpec extends Specification {
+	@Unroll
+	def "Parse #type.simpleName matches a scan of the aliases"() {
+		given:
+		def aliases = type.values().collect { value -> aliasesOf(value).collect { [it, value] } }.sum()
+		def scan = { String string ->
+			aliases.find { it[0].equalsIgnoreCase(string) }?.getAt(1)
+		}
+
+		expect:
+		aliases.each { alias, value ->
+			[alias, alias.toUpperCase(), alias.toLowerCase(), alias.capitalize()].each {
+				assert type.parse(it)==scan(it)
+			}
+		}
+		type.parse("notAValue")==null
+
+		where:
+		type << [NodeReportState, JobReportState, AclReportType, AclReportAffinity, ReportComparisonOperator]
+	}
+
+	def "Parse special cases"() {
+		expect:
+		NodeReportPower.parse(" off ")==NodeReportPower.OFF
+		NodeReportPower.parse("ON")==NodeReportPower.ON
+		NodeReportPower.parse("")==null
+		NodeReportPower.parse(null)==null
+		ModifyMode.parse("DECR")==ModifyMode.REMOVE
+		ModifyMode.parse("remove")==ModifyMode.REMOVE
+		ModifyMode.parse("")==null
+		JobReportFlag.parse("ADVRES:alice.1")==JobReportFlag.ADVRES
+		JobReportFlag.parse("restartable")==JobReportFlag.RESTARTABLE
+		JobReportFlag.parse("notAFlag")==JobReportFlag.NONE
+		NodeReportState.parse(null)==null
+		ReportComparisonOperator.parse(null)==null
+	}
+
+	def "Non-ASCII strings fall back to a scan"() {
+		given:
+		def lookup = new CaseInsensitiveLookup<String>()
+		lookup.put("Kill", "first")
+		lookup.put("KILL", "second")
+		lookup.put("Stra\u00DFe", "third")
+
+		expect:
+		lookup.get("kill")=="first"
+		lookup.get("\u212Aill")=="first"
+		"\u212Aill".equalsIgnoreCase("Kill")
+		lookup.get("STRA\u00DFE")=="third"
+		lookup.get("strasse")==null
+		lookup.get(null)==null
+	}
+
+	private static List<String> aliasesOf(value) {
+		def aliases = [value.name()]
+		["moabString", "moabLabel", "compare1", "compare2", "compare3"].each {
+			if (value.metaClass.hasProperty(value, it) && value."$it"!=null)
+				aliases << value."$it"
+		}
+		return aliases
+	}
+}
@@ -0,0 +1,104 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.atomic.AtomicInteger
+
+@Unroll
+class JobRMServicePagingSpec extends Specification {
+	TestJobRMService service = new TestJobRMService(reports:[
+			new JobReport(name:"job.1", state:JobReportState.RUNNING),
+			new JobReport(name:"job.2", state:JobReportState.COMPLETED),
+			new JobReport(name:"job.3", state:JobReportState.IDLE),
+			new JobReport(name:"job.4", state:JobReportState.REMOVED),
+			new JobReport(name:"job.5", state:JobReportState.HOLD),
+			new JobReport(name:"job.6", state:JobReportState.IDLE),
+	])
+
+	def "List #states from offset #offset with max #max"() {
+		when:
+		def page = service.list(states, offset, max)
+
+		then:
+		page.reports*.name==names
+		page.offset==offset
+		page.nextOffset==nextOffset
+		page.hasMore()==more
+
+		where:
+		states							| offset	| max	|| names						| nextOffset	| more
+		null							| 0			| 10	|| (1..6).collect { "job.$it" }	| 6				| false
+		null							| 0			| 6		|| (1..6).collect { "job.$it" }	| 6				| false
+		null							| 2			| 2		|| ["job.3", "job.4"]			| 4				| true
+		JobReportState.activeStates		| 0			| 2		|| ["job.1", "job.3"]			| 2				| true
+		JobReportState.activeStates		| 2			| 2		|| ["job.5", "job.6"]			| 4				| false
+		JobReportState.activeStates		| 4			| 2		|| []							| 4				| false
+		JobReportState.completedStates	| 0			| 5		|| ["job.2", "job.4"]			| 2				| false
+		[]								| 5			| 5		|| ["job.6"]					| 6				| false
+	}
+
+	def "No job reports"() {
+		given:
+		def emptyService = new TestJobRMService(reports:null)
+
+		when:
+		def page = emptyService.list(JobReportState.activeStates, 0, 10)
+
+		then:
+		page.reports==[]
+		page.offset==0
+		!page.hasMore()
+		!emptyService.listChunks(null, 10).hasNext()
+	}
+
+	def "Invalid page arguments"() {
+		when:
+		service.list(null, offset, max)
+
+		then:
+		thrown(IllegalArgumentException)
+
+		where:
+		offset	| max
+		-1		| 1
+		0		| 0
+	}
+
+	def "List chunks #states with size #chunkSize"() {
+		expect:
+		service.listChunks(states, chunkSize).collect { it*.name }==chunks
+
+		where:
+		states						| chunkSize	|| chunks
+		null						| 4			|| [["job.1", "job.2", "job.3", "job.4"], ["job.5", "job.6"]]
+		JobReportState.activeStates	| 2			|| [["job.1", "job.3"], ["job.5", "job.6"]]
+		[JobReportState.BLOCKED]	| 2			|| []
+	}
+
+	def "List chunks only lists reports once"() {
+		given:
+		def calls = new AtomicInteger()
+		def reports = service.reports
+		def countingService = new TestJobRMService() {
+			List<JobReport> list() {
+				calls.incrementAndGet()
+				return reports
+			}
+		}
+
+		when:
+		def chunks = countingService.listChunks(JobReportState.activeStates, 1).collect { it*.name }
+
+		then:
+		chunks==[["job.1"], ["job.3"], ["job.5"], ["job.6"]]
+		calls.get()==1
+
+		when:
+		countingService.listChunks(null, 0)
+
+		then:
+		thrown(IllegalArgumentException)
+		calls.get()==1
+	}
+}
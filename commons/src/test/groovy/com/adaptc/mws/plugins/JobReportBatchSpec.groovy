@@ -0,0 +1,118 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+class JobReportBatchSpec extends Specification {
+	private static JobReport report(String name, JobReportState state, String user, Long duration) {
+		def report = new JobReport(name)
+		report.state = state
+		report.user = user
+		report.duration = duration
+		return report
+	}
+
+	def "Round trip"() {
+		given:
+		def full = report("job1", JobReportState.RUNNING, "user1", 60)
+		full.group = "group1"
+		full.account = "account1"
+		full.qos = "qos1"
+		full.systemPriority = 10
+		full.durationSuspended = 5
+		full.completionCode = -2
+		full.submitDateMillis(1000)
+		full.startDateMillis(2000)
+		full.flags = [JobReportFlag.GRESONLY, JobReportFlag.SHAREDMEM]
+		full.commandFile = "job.sh"
+		def empty = new JobReport("job2")
+
+		when:
+		def batch = JobReportBatch.of([full, empty])
+		def reports = batch.toReports()
+
+		then:
+		batch.size()==2
+		batch.getName(0)=="job1"
+		batch.getState(0)==JobReportState.RUNNING
+		batch.getState(1)==null
+		batch.getSystemPriority(0)==10
+		batch.getSystemPriority(1)==JobReportBatch.NO_VALUE
+		batch.getCompletionCode(0)==-2
+		batch.getSubmitDateMillis(0)==1000
+		batch.getCompletedDateMillis(0)==ReportDateParser.NO_DATE
+		batch.hasFlag(0, JobReportFlag.GRESONLY)
+		!batch.hasFlag(1, JobReportFlag.GRESONLY)
+		batch.getCredential(JobReportBatch.Credential.QOS, 0)=="qos1"
+		batch.getCredential(JobReportBatch.Credential.USER, 1)==null
+
+		reports*.name==["job1", "job2"]
+		reports[0].state==JobReportState.RUNNING
+		reports[0].user=="user1"
+		reports[0].group=="group1"
+		reports[0].account=="account1"
+		reports[0].qos=="qos1"
+		reports[0].systemPriority==10
+		reports[0].duration==60
+		reports[0].durationSuspended==5
+		reports[0].completionCode==-2
+		reports[0].submitDate==new Date(1000)
+		reports[0].startDate==new Date(2000)
+		reports[0].completedDate==null
+		reports[0].flags==[JobReportFlag.SHAREDMEM, JobReportFlag.GRESONLY]
+		reports[0].commandFile==null
+		reports[1].user==null
+		reports[1].duration==null
+		reports[1].completionCode==null
+		reports[1].flags.isEmpty()
+	}
+
+	def "Aggregates and filters"() {
+		given:
+		def batch = new JobReportBatch(0)
+		(1..40).each {
+			def report = report("job"+it, it%2 ? JobReportState.RUNNING : JobReportState.IDLE, it%4 ? "user1" : "user2",
+					it==1 ? null : 10L)
+			if (it%5==0)
+				report.flags = [JobReportFlag.GRESONLY]
+			batch.add(report)
+		}
+		batch.add(new JobReport("job41"))
+
+		expect:
+		batch.size()==41
+		batch.sumDuration()==39*10
+		batch.countStates()[JobReportState.RUNNING.ordinal()]==20
+		batch.countStates()[JobReportState.IDLE.ordinal()]==20
+		batch.countWithFlag(JobReportFlag.GRESONLY)==8
+		batch.getCredentialValues(JobReportBatch.Credential.USER)==["user1", "user2"]
+		batch.countBy(JobReportBatch.Credential.USER)==[user1: 30, user2: 10]
+		batch.sumDurationBy(JobReportBatch.Credential.USER)==[user1: 290L, user2: 100L]
+		batch.sumDurationBy(JobReportBatch.Credential.QOS).isEmpty()
+		batch.filterByState(JobReportState.IDLE).size()==20
+		batch.filterByState(JobReportState.IDLE, JobReportState.RUNNING).size()==40
+		batch.filterByState().size()==0
+		batch.filterByFlag(JobReportFlag.GRESONLY).getName(0)=="job5"
+		batch.filterBy(JobReportBatch.Credential.USER, "user2").size()==10
+		batch.filterBy(JobReportBatch.Credential.USER, "user2").getName(0)=="job4"
+		batch.filterBy(JobReportBatch.Credential.USER, "user3").size()==0
+		batch.filterBy(JobReportBatch.Credential.USER, null).getName(0)=="job41"
+		batch.filterBy(JobReportBatch.Credential.USER, "user2").filterByState(JobReportState.IDLE)
+				.sumDurationBy(JobReportBatch.Credential.USER)==[user2: 100L]
+		batch.filter { it < 3 }.toReports()*.name==["job1", "job2", "job3"]
+	}
+
+	def "Invalid arguments"() {
+		when:
+		new JobReportBatch(-1)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [capacity] must not be negative"
+
+		when:
+		JobReportBatch.of([new JobReport("job1")]).getName(1)
+
+		then:
+		thrown(IndexOutOfBoundsException)
+	}
+}
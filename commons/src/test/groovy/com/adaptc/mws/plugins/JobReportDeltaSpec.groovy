@@ -0,0 +1,105 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+class JobReportDeltaSpec extends Specification {
+	def "Only state and duration changed"() {
+		given:
+		def previous = createReport()
+		def current = createReport()
+		current.state = JobReportState.RUNNING
+		current.duration = 7200
+
+		when:
+		def delta = JobReportDelta.diff(previous, current)
+
+		then:
+		delta.changedProperties==["state", "duration"] as Set
+		delta.report.name=="job.1"
+		delta.report.state==JobReportState.RUNNING
+		delta.report.duration==7200
+		delta.report.user==null
+		delta.report.flags.isEmpty()
+		delta.report.environmentVariables.isEmpty()
+		delta.report.requirements.isEmpty()
+	}
+
+	def "Requirement changes are detected without creating resources"() {
+		given:
+		def previous = createReport()
+		def current = createReport()
+		current.requirements[0].resourcesPerTask.remove(PluginConstants.RESOURCE_MEMORY)
+		current.requirements[0].resourcesPerTask[PluginConstants.RESOURCE_DISK].total = 1024
+
+		when:
+		def delta = JobReportDelta.diff(previous, current)
+
+		then:
+		delta.changedProperties==["requirements"] as Set
+		delta.report.requirements.is(current.requirements)
+		previous.requirements[0].resourcesPerTask.keySet()==[PluginConstants.RESOURCE_MEMORY] as Set
+		current.requirements[0].resourcesPerTask.keySet()==[PluginConstants.RESOURCE_DISK] as Set
+	}
+
+	def "Removed environment variables"() {
+		given:
+		def service = new TestJobRMService()
+		def previous = createReport()
+		previous.environmentVariables = [VAR1:"val1", VAR2:"val2"]
+		def current = createReport()
+		current.environmentVariables = [VAR2:"val2"]
+
+		when:
+		def delta = JobReportDelta.diff(previous, current)
+
+		then:
+		delta.changedProperties==["environmentVariables"] as Set
+		delta.removedProperties==["environmentVariables"] as Set
+		!delta.sparse
+		delta.report.environmentVariables==[VAR2:"val2"]
+
+		when:
+		service.updateDeltas([delta])
+
+		then:
+		thrown(IllegalArgumentException)
+		service.updated==null
+	}
+
+	def "Update deltas"() {
+		given:
+		def service = new TestJobRMService()
+		def previous = [createReport()]
+		def current = [createReport(), createReport()]
+		current[1].name = "job.2"
+
+		when:
+		service.updateDeltas(JobReportDelta.diff(previous, current))
+
+		then:
+		service.updated*.name==["job.2"]
+	}
+
+	private JobReport createReport() {
+		def report = new JobReport("job.1")
+		report.state = JobReportState.IDLE
+		report.user = "user1"
+		report.duration = 3600
+		report.flags = [JobReportFlag.RESTARTABLE]
+		report.environmentVariables = [PATH:"/bin"]
+		report.requirements.taskCount = 2
+		report.requirements.resourcesPerTask[PluginConstants.RESOURCE_MEMORY].total = 512
+		return report
+	}
+}
+
+class TestJobRMService implements IJobRMService {
+	List<JobReport> reports = []
+	List<JobReport> updated
+
+	List<JobReport> list() { reports }
+	void save(List<JobReport> jobReports) {}
+	void update(List<JobReport> jobReports) {
+		updated = jobReports
+	}
+}
@@ -0,0 +1,145 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+import static com.adaptc.mws.plugins.JobReportFlag.*
+
+class JobReportFlagsSpec extends Specification {
+	def "Behaves as a list without duplicates"() {
+		given:
+		def flags = new JobReportFlags()
+
+		expect:
+		flags.add(RESTARTABLE)
+		flags.add(ARRAYJOB)
+		!flags.add(RESTARTABLE)
+		flags.size()==2
+		flags==[ARRAYJOB, RESTARTABLE]
+		flags[0]==ARRAYJOB
+		flags[1]==RESTARTABLE
+		flags.contains(RESTARTABLE)
+		!flags.contains(COALLOC)
+		!flags.contains("RESTARTABLE")
+
+		when:
+		flags << COALLOC
+		flags << NONE
+
+		then:
+		flags==[NONE, ARRAYJOB, RESTARTABLE, COALLOC]
+		flags.remove(1)==ARRAYJOB
+		flags.remove(COALLOC)
+		!flags.remove(COALLOC)
+		flags==[NONE, RESTARTABLE]
+	}
+
+	def "Positional mutators are not supported"() {
+		given:
+		def flags = new JobReportFlags([NONE, RESTARTABLE])
+
+		when:
+		flags.set(0, RESTARTABLE)
+
+		then:
+		thrown(UnsupportedOperationException)
+		flags==[NONE, RESTARTABLE]
+
+		when:
+		flags[0] = PREEMPTEE
+
+		then:
+		thrown(UnsupportedOperationException)
+		flags==[NONE, RESTARTABLE]
+
+		when:
+		flags.listIterator().with {
+			next()
+			set(COALLOC)
+		}
+
+		then:
+		thrown(UnsupportedOperationException)
+		flags==[NONE, RESTARTABLE]
+
+		when:
+		flags.add(0, COALLOC)
+
+		then:
+		thrown(UnsupportedOperationException)
+		flags==[NONE, RESTARTABLE]
+	}
+
+	def "Sorting never changes the order"() {
+		given:
+		def flags = new JobReportFlags([RESTARTABLE, COALLOC, NONE])
+
+		when:
+		Collections.sort(flags)
+		flags.sort(Comparator.comparing { it.ordinal() })
+
+		then:
+		flags==[NONE, RESTARTABLE, COALLOC]
+
+		when:
+		Collections.sort(flags, Collections.reverseOrder())
+
+		then:
+		thrown(UnsupportedOperationException)
+		flags==[NONE, RESTARTABLE, COALLOC]
+	}
+
+	def "Compact form"() {
+		given:
+		def flags = new JobReportFlags([COALLOC, NONE, INTERACTIVE, COALLOC])
+
+		expect:
+		flags.size()==3
+		flags.toBits()==(1L | 1L << INTERACTIVE.ordinal() | 1L << COALLOC.ordinal())
+		JobReportFlags.fromBits(flags.toBits())==flags
+		JobReportFlags.fromBits(-1L).size()==JobReportFlag.values().length
+		JobReportFlags.fromBits(-1L)==JobReportFlag.values() as List
+	}
+
+	def "Iterator removal"() {
+		given:
+		def flags = new JobReportFlags([NONE, INTERACTIVE, COALLOC])
+
+		when:
+		def iterator = flags.iterator()
+		iterator.next()
+		iterator.next()
+		iterator.remove()
+
+		then:
+		flags==[NONE, COALLOC]
+		iterator.next()==COALLOC
+		!iterator.hasNext()
+
+		when:
+		flags.clear()
+
+		then:
+		flags.isEmpty()
+	}
+
+	def "Job report flags"() {
+		given:
+		def report = new JobReport()
+
+		expect:
+		report.flags instanceof JobReportFlags
+
+		when:
+		report.flags = [RESTARTABLE, RESTARTABLE, ARRAYJOB]
+
+		then:
+		report.flags instanceof JobReportFlags
+		report.flags==[ARRAYJOB, RESTARTABLE]
+
+		when:
+		report.flags = null
+
+		then:
+		report.flags==null
+	}
+}
@@ -0,0 +1,90 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.Executors
+
+@Unroll
+class MoabRestPagerSpec extends Specification {
+	private static TestMoabRestService service(int total, boolean reportTotal=true) {
+		return new TestMoabRestService({ method, options, url, data ->
+			int offset = options.params.offset
+			int max = options.params.max
+			def results = (offset..<Math.min(offset+max, total)).collect { [name: "job"+it] }
+			def body = [resultCount: results.size(), results: results]
+			if (reportTotal)
+				body.totalCount = total
+			TestMoabRestService.response(body)
+		})
+	}
+
+	def "Page through #total results with page size #pageSize and prefetch depth #prefetchDepth"() {
+		given:
+		def executor = prefetchDepth ? Executors.newFixedThreadPool(2) : null
+		def service = service(total, reportTotal)
+		def pager = new MoabRestPager(service, [params: [query: "q"], hooks: true], "/rest/jobs", pageSize,
+				prefetchDepth, executor)
+
+		when:
+		def names = pager.collect { it.name }
+
+		then:
+		names==(0..<total).collect { "job"+it }
+		service.requests.size()==requests
+		service.requests.every { it.url=="/rest/jobs" && it.options.hooks && it.options.params.query=="q" }
+		service.requests*.options*.params*.offset.sort()==(0..<requests).collect { it*pageSize }
+
+		cleanup:
+		executor?.shutdown()
+
+		where:
+		total | pageSize | prefetchDepth | reportTotal || requests
+		0     | 10       | 0             | true        || 1
+		25    | 10       | 0             | true        || 3
+		30    | 10       | 0             | true        || 3
+		30    | 10       | 0             | false       || 4
+		25    | 10       | 2             | true        || 3
+		30    | 10       | 3             | true        || 3
+		100   | 7        | 2             | true        || 15
+	}
+
+	def "Stream and total count"() {
+		given:
+		def pager = new MoabRestPager(service(12), null, "/rest/nodes", 5)
+
+		expect:
+		pager.totalCount==null
+		pager.stream().map { it.name }.skip(10).collect()==["job10", "job11"]
+		pager.totalCount==12
+	}
+
+	def "Failed requests are thrown"() {
+		given:
+		def service = new TestMoabRestService({ method, options, url, data ->
+			options.params.offset==0 ?
+					TestMoabRestService.response([totalCount: 4, results: [[name: "a"], [name: "b"]]]) :
+					TestMoabRestService.response([messages: ["error"]], 500)
+		})
+		def pager = new MoabRestPager(service, [:], "/rest/jobs", 2)
+
+		when:
+		pager.next()
+		pager.next()
+		pager.hasNext()
+
+		then:
+		IllegalStateException e = thrown()
+		e.message=="Request for the page of /rest/jobs at offset 2 failed with status 500"
+		!pager.hasNext()
+	}
+
+	def "Invalid arguments"() {
+		when:
+		new MoabRestPager(service(1), [:], "/rest/jobs", 10, 1, null)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [executor] must not be null if prefetching"
+	}
+}
@@ -23,4 +23,60 @@ class MoabRestResponseSpec extends Specification {
 				[map:[test:null]],
 		]
 	}
+
+	def "Data view #data"() {
+		given:
+		def response = new MoabRestResponse(null, JSONSerializer.toJSON(data), true)
+
+		expect:
+		response.dataView==data
+		response.dataView.is(response.dataView)
+
+		where:
+		data << [
+				[:],
+				[test:true],
+				[test:null],
+				[list:[null]],
+				[map:[test:true]],
+				[map:[test:null]],
+				[list:[[a:1], [b:[null, "c"]]]],
+		]
+	}
+
+	def "Data view is lazy, memoized, and read-only"() {
+		given:
+		def response = new MoabRestResponse(null, JSONSerializer.toJSON([results:[[name:"node1", attrs:[a:null]]], totalCount:1]), true)
+
+		when:
+		def view = response.dataView
+
+		then:
+		view.totalCount==1
+		view.results.is(view.results)
+		view.results[0].is(view.results[0])
+		view.results[0].name=="node1"
+		view.results[0].attrs.containsKey("a")
+		view.results[0].attrs.a==null
+		view.missing==null
+		view.keySet()==["results", "totalCount"] as Set
+
+		when:
+		view.put("test", true)
+
+		then:
+		thrown(UnsupportedOperationException)
+
+		when:
+		view.results.add([:])
+
+		then:
+		thrown(UnsupportedOperationException)
+	}
+
+	def "Data view of null data"() {
+		expect:
+		new MoabRestResponse(null, null, true).dataView==null
+		new MoabRestResponse(null, JSONSerializer.toJSON([1, null]), true).dataView==[1, null]
+	}
 }
@@ -0,0 +1,101 @@
+package com.adaptc.mws.plugins
+
+import net.sf.json.JSONSerializer
+import spock.lang.Specification
+import spock.lang.Unroll
+
+@Unroll
+class MoabRestResultsReaderSpec extends Specification {
+	private static List readAll(MoabRestResultsReader reader) {
+		def results = []
+		while (reader.hasNext())
+			results << reader.next()
+		return results
+	}
+
+	def "Stream results"() {
+		given:
+		def json = '''{"totalCount": 3, "resultCount": 2, "skipped": {"a": [1, "]}", {"b": null}]},
+			"results": [
+				{"name": "job1", "flags": ["A", "B"], "priority": -5, "size": 12345678901, "load": 1.5e2, "ok": true},
+				{"name": "job\\"2\\u00e9", "attributes": {}, "list": [], "none": null}
+			], "trailing": "x"}'''
+		def reader = new MoabRestResultsReader(null, new StringReader(json))
+
+		when:
+		def totalCount = reader.totalCount
+		def results = readAll(reader)
+
+		then:
+		totalCount==3
+		reader.resultCount==2
+		results==[
+				[name: "job1", flags: ["A", "B"], priority: -5, size: 12345678901L, load: 150d, ok: true],
+				[name: "job\"2\u00e9", attributes: [:], list: [], none: null],
+		]
+		!reader.hasNext()
+	}
+
+	def "Counts after the results are read once the results are exhausted"() {
+		given:
+		def reader = new MoabRestResultsReader(null, new StringReader('{"results": [{"a": 1}], "totalCount": 7}'))
+
+		expect:
+		reader.totalCount==null
+		readAll(reader)==[[a: 1]]
+		reader.totalCount==7
+	}
+
+	def "Stream #json"() {
+		given:
+		def reader = new MoabRestResultsReader(null, new StringReader(json))
+
+		expect:
+		readAll(reader)==results
+
+		where:
+		json                            | results
+		'{}'                            | []
+		'{"results": []}'               | []
+		'{"results": null}'             | []
+		'[{"a": 1}, {"b": 2}]'          | [[a: 1], [b: 2]]
+		' [ ] '                         | []
+	}
+
+	def "Invalid JSON #json"() {
+		when:
+		readAll(new MoabRestResultsReader(null, new StringReader(json)))
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message.startsWith("Invalid JSON")
+
+		where:
+		json << ['', '{"results": [{"a": 1}', '{"results": [{"a": 1} {"b": 2}]}', '{"results": [1]}', '{results: []}',
+				 '{"results": [{"a": tru}]}', '{"results": [{"a": "b}]}']
+	}
+
+	def "Default getResults of the service reads the parsed response"() {
+		given:
+		def data = [totalCount: 2, resultCount: 2, results: [[name: "node1"], [name: "node2", attrs: [a: null]]]]
+		def service = new TestMoabRestService({ method, options, url, body ->
+			TestMoabRestService.response(JSONSerializer.toJSON(data))
+		})
+
+		when:
+		def reader = service.getResults("/rest/nodes", fields: "name")
+
+		then:
+		reader.totalCount==2
+		reader.response.success
+		readAll(reader)==data.results
+		service.requests*.url==["/rest/nodes"]
+		service.requests[0].options==[fields: "name"]
+	}
+
+	def "Reader of a response without results"() {
+		expect:
+		!MoabRestResultsReader.of(TestMoabRestService.response(null, 404)).hasNext()
+		!MoabRestResultsReader.of(TestMoabRestService.response([messages: ["error"]], 400)).hasNext()
+	}
+}
@@ -0,0 +1,37 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+class NodeRMServiceChunkSpec extends Specification {
+	def "Node report chunks"() {
+		given:
+		def nodeService = new TestNodeRMService() {
+			List<NodeReport> list() { (1..5).collect { new NodeReport("node$it") } }
+		}
+
+		expect:
+		nodeService.listChunks(2).collect { it*.name }==[["node1", "node2"], ["node3", "node4"], ["node5"]]
+		nodeService.listChunks(5).collect { it*.name }==[(1..5).collect { "node$it" }]
+
+		when:
+		nodeService.listChunks(0)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [chunkSize] must be greater than 0"
+	}
+
+	def "No node report chunks"() {
+		given:
+		def nodeReports = reports
+		def nodeService = new TestNodeRMService() {
+			List<NodeReport> list() { nodeReports }
+		}
+
+		expect:
+		!nodeService.listChunks(10).hasNext()
+
+		where:
+		reports << [null, []]
+	}
+}
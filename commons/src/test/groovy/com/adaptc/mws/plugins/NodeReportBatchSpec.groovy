@@ -0,0 +1,104 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+import static com.adaptc.mws.plugins.PluginConstants.*
+
+class NodeReportBatchSpec extends Specification {
+	private static NodeReport report(String name, NodeReportState state, String partition, Integer processors) {
+		def report = new NodeReport(name)
+		report.state = state
+		report.partition = partition
+		if (processors!=null) {
+			report.resources[RESOURCE_PROCESSORS].total = processors
+			report.resources[RESOURCE_PROCESSORS].available = processors-1
+		}
+		return report
+	}
+
+	def "Round trip"() {
+		given:
+		def full = report("node1", NodeReportState.IDLE, "partition", 8)
+		full.power = NodeReportPower.ON
+		full.resources[RESOURCE_MEMORY].available = 1024
+		full.metrics[METRIC_CPULOAD] = 0.5d
+		full.metrics[METRIC_VM_COUNT] = 2d
+		full.metrics.custom = 1d
+		full.operatingSystem = "linux"
+		def empty = new NodeReport("node2")
+
+		when:
+		def batch = NodeReportBatch.of([full, empty])
+		def reports = batch.toReports()
+
+		then:
+		batch.size()==2
+		batch.getName(0)=="node1"
+		batch.getState(0)==NodeReportState.IDLE
+		batch.getState(1)==null
+		batch.getPower(0)==NodeReportPower.ON
+		batch.getTotal(RESOURCE_PROCESSORS, 0)==8
+		batch.getTotal(RESOURCE_MEMORY, 0)==NodeReportBatch.NO_VALUE
+		batch.getAvailable(RESOURCE_MEMORY, 0)==1024
+		batch.getMetric(METRIC_CPULOAD, 0)==0.5d
+		Double.isNaN(batch.getMetric(METRIC_SPEED, 0))
+
+		reports*.name==["node1", "node2"]
+		reports[0].state==NodeReportState.IDLE
+		reports[0].partition=="partition"
+		reports[0].power==NodeReportPower.ON
+		reports[0].resources==full.resources
+		reports[0].metrics==[(METRIC_CPULOAD): 0.5d, (METRIC_VM_COUNT): 2d]
+		reports[0].operatingSystem==null
+		reports[1].resources.isEmpty()
+		reports[1].metrics.isEmpty()
+		reports[1].state==null
+	}
+
+	def "Aggregates and filters"() {
+		given:
+		def batch = new NodeReportBatch(0)
+		(1..40).each {
+			batch.add(report("node"+it, it%2 ? NodeReportState.IDLE : NodeReportState.BUSY, it%4 ? "p1" : "p2", it==1 ? null : 4))
+		}
+
+		expect:
+		batch.size()==40
+		batch.sumTotal(RESOURCE_PROCESSORS)==39*4
+		batch.sumAvailable(RESOURCE_PROCESSORS)==39*3
+		batch.sumTotal(RESOURCE_DISK)==0
+		batch.countStates()[NodeReportState.IDLE.ordinal()]==20
+		batch.countStates()[NodeReportState.BUSY.ordinal()]==20
+		batch.filterByState(NodeReportState.BUSY).size()==20
+		batch.filterByState(NodeReportState.BUSY, NodeReportState.IDLE).size()==40
+		batch.filterByState().size()==0
+		batch.filterByPartition("p2").size()==10
+		batch.filterByPartition("p2").getName(0)=="node4"
+		batch.filter { it < 3 }.toReports()*.name==["node1", "node2", "node3"]
+	}
+
+	def "Invalid arguments"() {
+		given:
+		def batch = NodeReportBatch.of([new NodeReport("node1")])
+
+		when:
+		batch.getTotal("custom", 0)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [resource] must be one of [processors, memory, disk, swap]"
+
+		when:
+		batch.getMetric("custom", 0)
+
+		then:
+		e = thrown(IllegalArgumentException)
+		e.message=="Argument [metric] must be one of [cpuLoad, speed, cpuUtilization, vmcount]"
+
+		when:
+		batch.getName(1)
+
+		then:
+		thrown(IndexOutOfBoundsException)
+	}
+}
@@ -0,0 +1,172 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+class NodeReportDeltaSpec extends Specification {
+	def "Unchanged reports produce an empty delta"() {
+		when:
+		def delta = NodeReportDelta.diff(createReport(), createReport())
+
+		then:
+		delta.empty
+		delta.name=="node1"
+		delta.report.name=="node1"
+		delta.report.state==null
+		delta.report.resources.isEmpty()
+		delta.report.metrics.isEmpty()
+	}
+
+	def "Changed properties are included"() {
+		given:
+		def previous = createReport()
+		def current = createReport()
+		current.state = NodeReportState.BUSY
+		current.resources[PluginConstants.RESOURCE_MEMORY].available = 512
+		current.metrics.custom = 2d
+		current.features << "feature3"
+
+		when:
+		def delta = NodeReportDelta.diff(previous, current)
+
+		then:
+		delta.changedProperties==["state", "resources", "metrics", "features"] as Set
+		delta.removedProperties.isEmpty()
+		delta.sparse
+		delta.isChanged("state")
+		!delta.isChanged("power")
+		delta.report.state==NodeReportState.BUSY
+		delta.report.power==null
+		delta.report.resources.size()==1
+		delta.report.resources[PluginConstants.RESOURCE_MEMORY].available==512
+		delta.report.metrics==[custom:2d]
+		delta.report.features==["feature1", "feature2", "feature3"]
+		delta.report.aclRules.isEmpty()
+	}
+
+	def "Removed entries include all current entries"() {
+		given:
+		def previous = createReport()
+		def current = createReport()
+		current.variables.remove("var1")
+
+		when:
+		def delta = NodeReportDelta.diff(previous, current)
+
+		then:
+		delta.changedProperties==["variables"] as Set
+		delta.removedProperties==["variables"] as Set
+		!delta.sparse
+		delta.report.variables==[var2:"val2"]
+	}
+
+	def "Deltas with removed entries are not submitted as updates"() {
+		given:
+		def service = new TestNodeRMService()
+		def current = createReport()
+		current.metrics.remove(PluginConstants.METRIC_CPULOAD)
+
+		when:
+		service.updateDeltas(NodeReportDelta.diff([createReport()], [current]))
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [deltas] contains removed entries of [metrics] for node node1, which must be submitted using save"
+		service.updated==null
+	}
+
+	def "Comparisons do not create resource or attribute entries"() {
+		given:
+		def previous = createReport()
+		def current = createReport()
+		current.resources.remove(PluginConstants.RESOURCE_PROCESSORS)
+		current.resources.generic.total = 1
+		current.attributes.remove("attr1")
+		current.attributes.attr2.value = "val2"
+
+		when:
+		NodeReportDelta.diff(previous, current)
+
+		then:
+		previous.resources.keySet()==[PluginConstants.RESOURCE_PROCESSORS, PluginConstants.RESOURCE_MEMORY] as Set
+		current.resources.keySet()==[PluginConstants.RESOURCE_MEMORY, "generic"] as Set
+		previous.attributes.keySet()==["attr1"] as Set
+		current.attributes.keySet()==["attr2"] as Set
+	}
+
+	def "No previous report"() {
+		when:
+		def delta = NodeReportDelta.diff(null, createReport())
+
+		then:
+		!delta.empty
+		delta.report.state==NodeReportState.IDLE
+		delta.report.power==NodeReportPower.ON
+		delta.report.resources.size()==2
+		delta.report.aclRules.size()==1
+	}
+
+	def "Invalid arguments"() {
+		when:
+		NodeReportDelta.diff(createReport(), null)
+
+		then:
+		thrown(IllegalArgumentException)
+
+		when:
+		NodeReportDelta.diff(new NodeReport("node2"), createReport())
+
+		then:
+		thrown(IllegalArgumentException)
+	}
+
+	def "Update deltas"() {
+		given:
+		def service = new TestNodeRMService()
+		def unchanged = createReport()
+		def changed = createReport()
+		changed.name = "node2"
+		def previous = [createReport(), createReport()]
+		previous[1].name = "node2"
+		previous[1].state = NodeReportState.DOWN
+
+		when:
+		service.updateDeltas(NodeReportDelta.diff(previous, [unchanged, changed]))
+
+		then:
+		service.updated.size()==1
+		service.updated[0].name=="node2"
+		service.updated[0].state==NodeReportState.IDLE
+
+		when:
+		service.updated = null
+		service.updateDeltas(NodeReportDelta.diff([unchanged], [unchanged]))
+
+		then:
+		service.updated==null
+	}
+
+	private NodeReport createReport() {
+		def report = new NodeReport("node1")
+		report.timestamp = new Date()
+		report.state = NodeReportState.IDLE
+		report.power = NodeReportPower.ON
+		report.resources[PluginConstants.RESOURCE_PROCESSORS].total = 4
+		report.resources[PluginConstants.RESOURCE_MEMORY].total = 1024
+		report.metrics[PluginConstants.METRIC_CPULOAD] = 0.5d
+		report.variables = [var1:"val1", var2:"val2"]
+		report.attributes.attr1.value = "val1"
+		report.features = ["feature1", "feature2"]
+		report.aclRules << new AclReportRule(type:AclReportType.USER, value:"user1")
+		return report
+	}
+}
+
+class TestNodeRMService implements INodeRMService {
+	List<NodeReport> updated
+
+	List<NodeReport> list() { [] }
+	void save(List<NodeReport> nodeReports) {}
+	void update(List<NodeReport> nodeReports) {
+		updated = nodeReports
+	}
+}
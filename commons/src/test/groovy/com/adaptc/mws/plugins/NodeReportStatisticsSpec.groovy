@@ -0,0 +1,105 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+import static com.adaptc.mws.plugins.PluginConstants.*
+
+class NodeReportStatisticsSpec extends Specification {
+	private static List<NodeReport> reports(int count) {
+		(1..count).collect {
+			def report = new NodeReport("node"+it)
+			report.state = it%2 ? NodeReportState.IDLE : NodeReportState.BUSY
+			report.partition = it%4 ? "p1" : "p2"
+			if (it!=1) {
+				report.resources[RESOURCE_PROCESSORS].total = it
+				report.resources[RESOURCE_PROCESSORS].available = 1
+			}
+			report.metrics[METRIC_CPULOAD] = it/10d
+			if (it%10==0)
+				report.resources.gpu.total = 2
+			return report
+		}
+	}
+
+	def "Statistics of #count reports"() {
+		given:
+		def reports = reports(count)
+
+		when:
+		def statistics = NodeReportStatistics.of(reports)
+		def processors = statistics.getTotal(RESOURCE_PROCESSORS)
+		def load = statistics.getMetric(METRIC_CPULOAD)
+
+		then:
+		statistics.count==count
+		processors.count==count-1
+		processors.sum==(2..count).sum()
+		processors.min==2
+		processors.max==count
+		statistics.getAvailable(RESOURCE_PROCESSORS).sum==count-1
+		statistics.getTotal(RESOURCE_MEMORY).count==0
+		statistics.getTotal("gpu").sum==(count/10 as int)*2
+		statistics.getAvailable("gpu").count==0
+		load.count==count
+		Math.abs(load.average-(count+1)/20d) < 1e-9
+		load.max==count/10d
+		statistics.getStateCount(NodeReportState.IDLE)==count/2
+		statistics.stateCounts==[(NodeReportState.IDLE): count/2, (NodeReportState.BUSY): count/2]
+		statistics.resourceNames==[RESOURCE_PROCESSORS, "gpu"] as Set
+		statistics.metricNames==[METRIC_CPULOAD] as Set
+
+		where:
+		count << [10, 4000]
+	}
+
+	def "Batch statistics match report statistics"() {
+		given:
+		def reports = reports(3000)
+		reports[5].metrics = [(METRIC_SPEED): 2d, custom: 1d]
+
+		when:
+		def fromReports = NodeReportStatistics.of(reports)
+		def fromBatch = NodeReportStatistics.of(NodeReportBatch.of(reports))
+
+		then:
+		fromBatch.count==fromReports.count
+		fromBatch.getTotal(RESOURCE_PROCESSORS).toString()==fromReports.getTotal(RESOURCE_PROCESSORS).toString()
+		fromBatch.getMetric(METRIC_CPULOAD).sum==fromReports.getMetric(METRIC_CPULOAD).sum
+		fromBatch.getMetric(METRIC_SPEED).sum==2d
+		fromReports.getMetric(METRIC_SPEED).sum==2d
+		fromReports.getMetric("custom").count==1
+		fromBatch.getMetric("custom").count==0
+		fromBatch.stateCounts==fromReports.stateCounts
+	}
+
+	def "Group by"() {
+		given:
+		def reports = reports(2000)
+		reports[0].partition = null
+
+		when:
+		def groups = NodeReportStatistics.groupBy(reports) { it.partition }
+		def batch = NodeReportBatch.of(reports)
+		def batchGroups = NodeReportStatistics.groupBy(batch) { batch.getPartition(it) }
+
+		then:
+		groups.keySet()==["p1", "p2", null] as Set
+		groups.p2.count==500
+		groups.p2.getStateCount(NodeReportState.BUSY)==500
+		groups[null].count==1
+		groups.p1.count==1499
+		batchGroups.keySet()==groups.keySet()
+		batchGroups.p2.getTotal(RESOURCE_PROCESSORS).sum==groups.p2.getTotal(RESOURCE_PROCESSORS).sum
+	}
+
+	def "Empty input"() {
+		when:
+		def statistics = NodeReportStatistics.of([])
+
+		then:
+		statistics.count==0
+		statistics.getTotal(RESOURCE_PROCESSORS).count==0
+		statistics.stateCounts.isEmpty()
+		NodeReportStatistics.groupBy(new NodeReportBatch(0)) { it }.isEmpty()
+	}
+}
@@ -35,4 +35,36 @@ class ReportAttributeMapSpec extends Specification {
 		attributeMap.size()==3
 		attributeMap.attribute3.value=="val3"
 	}
+
+	def "Lookups without creating entries"() {
+		given:
+		attributeMap.attribute1.value = "val1"
+
+		expect:
+		attributeMap.getIfPresent("attribute1").value=="val1"
+		attributeMap.getIfPresent("attribute2")==null
+		attributeMap.asReadOnly().attribute1.value=="val1"
+		attributeMap.asReadOnly().attribute2==null
+		attributeMap.asReadOnly()["attribute3"]==null
+		attributeMap.size()==1
+
+		when:
+		attributeMap.asReadOnly().put("attribute2", new ReportAttribute())
+
+		then:
+		thrown(UnsupportedOperationException)
+		attributeMap.size()==1
+	}
+
+	def "Equality does not create entries"() {
+		given:
+		attributeMap.attribute1.value = "val1"
+		def other = new ReportAttributeMap()
+		other.attribute2.value = "val1"
+
+		expect:
+		attributeMap!=other
+		attributeMap.keySet()==["attribute1"] as Set
+		other.keySet()==["attribute2"] as Set
+	}
 }
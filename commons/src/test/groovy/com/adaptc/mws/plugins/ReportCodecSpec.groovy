@@ -0,0 +1,196 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+
+import static com.adaptc.mws.plugins.PluginConstants.*
+
+class ReportCodecSpec extends Specification {
+	def "Node reports round trip"() {
+		given:
+		def full = new NodeReport("node1")
+		full.timestamp = new Date(1325459484000L)
+		full.slaveReport = true
+		full.resources[RESOURCE_PROCESSORS].total = 16
+		full.resources[RESOURCE_PROCESSORS].available = -1
+		full.resources.custom.available = 3
+		full.metrics[METRIC_CPULOAD] = 0.5d
+		full.metrics.custom = null
+		full.features = ["gpu", null, "gpu"]
+		full.messages = ["message"]
+		full.operatingSystem = "linux"
+		full.partition = "partition"
+		full.variables = [var1: "value1", var2: null]
+		full.ipAddress = "10.0.0.1"
+		full.power = NodeReportPower.ON
+		full.state = NodeReportState.IDLE
+		full.subState = "sub"
+		full.architecture = "x86_64"
+		full.attributes.attr.value = "value"
+		full.attributes.attr.displayValue = "Value \u00e9"
+		full.pluginId = "plugin"
+		full.precedence = 5
+		full.timeToLive = new Date(-1000L)
+		full.requestId = "request"
+		full.aclRules = [new AclReportRule(type: AclReportType.USER, value: "alice", requireAll: true,
+				hardPolicyOnly: true, affinity: AclReportAffinity.NEGATIVE), null]
+		def empty = new NodeReport()
+
+		when:
+		def data = ReportEncoder.encodeNodeReports([full, empty])
+		def decoded = ReportDecoder.decodeNodeReports(data)
+
+		then:
+		!data.hasRemaining()
+		decoded.size()==2
+		ReportFingerprint.of(decoded[0])==ReportFingerprint.of(full)
+		ReportFingerprint.of(decoded[1])==ReportFingerprint.of(empty)
+		decoded[0].timestamp==full.timestamp
+		decoded[0].pluginId=="plugin"
+		decoded[0].precedence==5
+		decoded[0].attributes.attr.displayValue=="Value \u00e9"
+		decoded[0].features[0].is(decoded[0].features[2])
+	}
+
+	def "Job reports round trip"() {
+		given:
+		def full = new JobReport("job.1")
+		full.customName = "custom"
+		full.state = JobReportState.RUNNING
+		full.timestamp = new Date(1000L)
+		full.account = "account"
+		full.commandLineArguments = "-v"
+		full.extension = "ext"
+		full.completedDate = new Date(2000L)
+		full.deadlineDate = new Date(3000L)
+		full.environmentVariables = [PATH: "/bin"]
+		full.standardErrorFilePath = "err"
+		full.commandFile = "cmd"
+		full.completionCode = -2
+		full.flags = [JobReportFlag.RESTARTABLE, JobReportFlag.COALLOC]
+		full.group = "group"
+		full.nodesRequested = ["node1", "node2"]
+		full.standardInputFilePath = "in"
+		full.initialWorkingDirectory = "/home"
+		full.requirements.nodeCount = 2
+		full.requirements.features = ["gpu"]
+		full.requirements.resourcesPerTask[RESOURCE_MEMORY].total = 1024
+		full.requirements.add().architecture = "x86_64"
+		full.standardOutputFilePath = "out"
+		full.partitionAccessList = ["partition"]
+		full.systemPriority = Long.MAX_VALUE
+		full.qos = "qos"
+		full.submitDate = new Date(4000L)
+		full.reservationRequested = "res"
+		full.earliestStartDate = new Date(5000L)
+		full.startDate = new Date(6000L)
+		full.durationSuspended = 10
+		full.user = "alice"
+		full.duration = Long.MIN_VALUE
+		full.pluginId = "plugin"
+		full.precedence = 1
+
+		when:
+		def encoder = ReportEncoder.jobReports()
+		encoder.write(full)
+		encoder.write(new JobReport("job.2"))
+		def decoder = new ReportDecoder(encoder.finish())
+
+		then:
+		!decoder.isNodeReports()
+		decoder.hasNext()
+		ReportFingerprint.of(decoder.readJobReport())==ReportFingerprint.of(full)
+		decoder.readJobReport().name=="job.2"
+		!decoder.hasNext()
+
+		when:
+		decoder.readJobReport()
+
+		then:
+		thrown(NoSuchElementException)
+	}
+
+	def "Batches grow beyond the initial capacity"() {
+		given:
+		def reports = (1..500).collect { new NodeReport("node"+it).with { features = ["feature"*100]; it } }
+
+		expect:
+		ReportDecoder.decodeNodeReports(ReportEncoder.encodeNodeReports(reports))*.name==reports*.name
+	}
+
+	def "Invalid usage"() {
+		when:
+		ReportEncoder.nodeReports().write(new JobReport())
+
+		then:
+		IllegalStateException e = thrown()
+		e.message=="This encoder writes node reports"
+
+		when:
+		def encoder = ReportEncoder.nodeReports()
+		encoder.finish()
+		encoder.write(new NodeReport())
+
+		then:
+		e = thrown(IllegalStateException)
+		e.message=="The batch has already been finished"
+
+		when:
+		new ReportDecoder(ReportEncoder.encodeJobReports([])).readNodeReport()
+
+		then:
+		e = thrown(IllegalStateException)
+		e.message=="The batch contains job reports"
+	}
+
+	def "Malformed data"() {
+		given:
+		def data = ReportEncoder.encodeNodeReports([new NodeReport("node1")])
+		def truncated = ByteBuffer.wrap(Arrays.copyOf(data.array(), data.limit()-3))
+
+		when:
+		ReportDecoder.decodeNodeReports(ByteBuffer.wrap([1, 2, 3, 4, 5, 6] as byte[]))
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Invalid report data: the batch header is missing"
+
+		when:
+		ReportDecoder.decodeNodeReports(truncated)
+
+		then:
+		e = thrown(IllegalArgumentException)
+		e.message=="Invalid report data: the batch is incomplete"
+	}
+
+	@Unroll
+	def "Negative #description is rejected"() {
+		given:
+		def negative = [-1, -1, -1, -1, -1, -1, -1, -1, -1, 1]
+		def bytes = new ByteArrayOutputStream()
+		new DataOutputStream(bytes).with {
+			writeInt(ReportEncoder.MAGIC)
+			writeByte(ReportEncoder.VERSION)
+			writeByte(ReportEncoder.TYPE_NODE)
+			writeByte(ReportEncoder.REPORT)
+		}
+		(report + negative + [0, 0, 0, 0]).each { bytes.write(it as int) }
+
+		when:
+		ReportDecoder.decodeNodeReports(ByteBuffer.wrap(bytes.toByteArray()))
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message==message
+
+		where:
+		description				| report					|| message
+		"string reference"		| [1]						|| "Invalid report data: unknown string -3"
+		"string length"			| [1, 1]					|| "Invalid report data: negative size -1"
+		"list size"				| [32]						|| "Invalid report data: negative size -1"
+		"ordinal"				| [0x80, 0x10]				|| "Invalid report data: unknown NodeReportPower -1"
+		"enumeration value"		| [0x80, 0x80, 0x40, 1, 1]	|| "Invalid report data: unknown AclReportType -2"
+	}
+}
@@ -0,0 +1,84 @@
+package com.adaptc.mws.plugins
+
+import org.joda.time.DateTimeZone
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ReportDateParserSpec extends Specification {
+	@Unroll
+	def "Parse '#text'"() {
+		expect:
+		ReportDateParser.parseMillis(text)==expected(text)
+		ReportDateParser.parseMillis(text)==expected(text)
+		ReportDateParser.parse(text)==(expected(text)==ReportDateParser.NO_DATE ? null : new Date(expected(text)))
+
+		where:
+		text << [
+				"2012-01-01 23:11:24 UTC",
+				"2012-02-29 00:00:00 America/Denver",
+				"2011-02-29 00:00:00 UTC",
+				"2012-04-31 00:00:00 UTC",
+				"2012-13-01 00:00:00 UTC",
+				"2012-01-01 24:00:00 UTC",
+				"2012-01-01 23:60:00 UTC",
+				"2012-01-01 23:00:60 UTC",
+				"0000-01-01 00:00:00 UTC",
+				"1600-02-29 12:30:45 Europe/London",
+				"1900-02-29 12:30:45 UTC",
+				"2012-1-1 1:2:3 UTC",
+				"12012-01-01 00:00:00 UTC",
+				"2012-01-01 00:00:00 NotAZone",
+				"2012-01-01 00:00:00  UTC",
+				"2012-01-01 00:00:00 UTC ",
+				"2012-01-01 00:00:00",
+				"2012-01-01T00:00:00 UTC",
+				"2012-0a-01 00:00:00 UTC",
+				// Daylight saving gap and overlap
+				"2012-03-11 02:30:00 America/Denver",
+				"2012-11-04 01:30:00 America/Denver",
+				"",
+				null,
+		]
+	}
+
+	def "All time zones and transitions match the standard formatter"() {
+		given:
+		def texts = []
+		DateTimeZone.availableIDs.each { String id ->
+			def zone = DateTimeZone.forID(id)
+			long transition = zone.nextTransition(1325376000000L)
+			[1325376000000L, transition-1000, transition, transition+3599000, transition+3600000].each {
+				texts << PluginConstants.STANDARD_DATE_TIME_FORMATTER.print(it).replace(" UTC", " "+id)
+			}
+		}
+
+		expect:
+		texts.every { ReportDateParser.parseMillis(it)==expected(it) }
+	}
+
+	def "Report setters"() {
+		given:
+		def nodeReport = new NodeReport("node")
+		def jobReport = new JobReport("job")
+
+		when:
+		nodeReport.setTimestamp("2012-01-01 23:11:24 UTC")
+		jobReport.setSubmitDate("2012-01-01 23:11:24 UTC")
+		jobReport.setStartDate("invalid")
+
+		then:
+		nodeReport.timestamp==new Date(1325459484000L)
+		jobReport.submitDate==new Date(1325459484000L)
+		jobReport.startDate==null
+	}
+
+	private static long expected(String text) {
+		try {
+			return PluginConstants.STANDARD_DATE_TIME_FORMATTER.parseMillis(text)
+		} catch(IllegalArgumentException e) {
+			return ReportDateParser.NO_DATE
+		} catch(NullPointerException e) {
+			return ReportDateParser.NO_DATE
+		}
+	}
+}
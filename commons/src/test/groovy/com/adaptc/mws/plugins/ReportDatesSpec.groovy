@@ -0,0 +1,87 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ReportDatesSpec extends Specification {
+	@Unroll
+	def "#type.simpleName #property stored as milliseconds"() {
+		given:
+		def report = type.newInstance("name")
+		def capitalized = property.capitalize()
+
+		expect:
+		report."get${capitalized}"()==null
+		report."${property}Millis"()==ReportDateParser.NO_DATE
+
+		when:
+		report."set${capitalized}"(new Date(1000L))
+
+		then:
+		report."get${capitalized}"()==new Date(1000L)
+		report."${property}Millis"()==1000L
+
+		when:
+		report."${property}Millis"(2000L)
+
+		then:
+		report."get${capitalized}"()==new Date(2000L)
+
+		when: "A returned date is modified"
+		report."get${capitalized}"().time = 3000L
+
+		then: "The report is unchanged"
+		report."${property}Millis"()==2000L
+
+		when:
+		report."set${capitalized}"((Date)null)
+
+		then:
+		report."get${capitalized}"()==null
+		report."${property}Millis"()==ReportDateParser.NO_DATE
+
+		where:
+		type       | property
+		NodeReport | "timestamp"
+		NodeReport | "timeToLive"
+		JobReport  | "timestamp"
+		JobReport  | "completedDate"
+		JobReport  | "deadlineDate"
+		JobReport  | "submitDate"
+		JobReport  | "earliestStartDate"
+		JobReport  | "startDate"
+	}
+
+	def "String setters"() {
+		given:
+		def report = new JobReport("job")
+
+		when:
+		report.setCompletedDate("2012-01-01 23:11:24 UTC")
+
+		then:
+		report.completedDateMillis()==1325459484000L
+
+		when:
+		report.setCompletedDate("invalid")
+
+		then:
+		report.completedDateMillis()==ReportDateParser.NO_DATE
+		report.completedDate==null
+	}
+
+	@Unroll
+	def "#type.simpleName milliseconds are not bean properties"() {
+		given:
+		def report = type.newInstance("name")
+		report.timestamp = new Date(1000L)
+
+		expect:
+		report.properties.timestamp==new Date(1000L)
+		!report.properties.keySet().any { it.endsWith("Millis") }
+		!report.metaClass.properties*.name.any { it.endsWith("Millis") }
+
+		where:
+		type << [NodeReport, JobReport]
+	}
+}
@@ -0,0 +1,150 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+class ReportFingerprintSpec extends Specification {
+	private static NodeReport nodeReport() {
+		def report = new NodeReport("node1")
+		report.state = NodeReportState.IDLE
+		report.resources[PluginConstants.RESOURCE_PROCESSORS].total = 4
+		report.resources[PluginConstants.RESOURCE_MEMORY].available = 1024
+		report.metrics[PluginConstants.METRIC_CPULOAD] = 0.5d
+		report.features = ["gpu", "fast"]
+		report.variables = [var1: "value1", var2: "value2"]
+		report.attributes.attr.value = "value"
+		report.aclRules << new AclReportRule(type: AclReportType.USER, value: "alice")
+		return report
+	}
+
+	private static JobReport jobReport() {
+		def report = new JobReport("job.1")
+		report.state = JobReportState.RUNNING
+		report.user = "alice"
+		report.flags = [JobReportFlag.RESTARTABLE]
+		report.environmentVariables = [PATH: "/bin"]
+		report.requirements.nodeCount = 2
+		report.requirements.resourcesPerTask[PluginConstants.RESOURCE_PROCESSORS].total = 1
+		report.submitDateMillis(1000L)
+		return report
+	}
+
+	def "Equal node reports have equal fingerprints"() {
+		given:
+		def first = nodeReport()
+		def second = nodeReport()
+		second.timestamp = new Date()
+		second.pluginId = "plugin"
+		second.precedence = 10
+		second.variables = [var2: "value2", var1: "value1"]
+
+		expect:
+		ReportFingerprint.of(first)==ReportFingerprint.of(second)
+		ReportFingerprint.of(first)!=ReportFingerprint.of(new NodeReport("node1"))
+	}
+
+	def "Node report changes change the fingerprint"() {
+		given:
+		def report = nodeReport()
+		def original = ReportFingerprint.of(report)
+
+		when:
+		change(report)
+
+		then:
+		ReportFingerprint.of(report)!=original
+
+		where:
+		change << [
+				{ it.name = "node2" },
+				{ it.state = NodeReportState.BUSY },
+				{ it.resources[PluginConstants.RESOURCE_PROCESSORS].available = 4 },
+				{ it.metrics[PluginConstants.METRIC_CPULOAD] = 0.75d },
+				{ it.features = ["fast", "gpu"] },
+				{ it.variables.var1 = "changed" },
+				{ it.attributes.attr.displayValue = "Value" },
+				{ it.aclRules[0].value = "bob" },
+				{ it.slaveReport = true },
+				{ it.timeToLive = new Date(5000L) },
+				{ it.operatingSystem = "" },
+		]
+	}
+
+	def "Job report fingerprints"() {
+		given:
+		def report = jobReport()
+		def original = ReportFingerprint.of(report)
+
+		expect:
+		ReportFingerprint.of(jobReport())==original
+
+		when:
+		report.requirements.resourcesPerTask[PluginConstants.RESOURCE_PROCESSORS].total = 2
+
+		then:
+		ReportFingerprint.of(report)!=original
+
+		when:
+		report = jobReport()
+		report.flags << JobReportFlag.PREEMPTEE
+
+		then:
+		ReportFingerprint.of(report)!=original
+
+		when:
+		report = jobReport()
+		report.submitDateMillis(2000L)
+
+		then:
+		ReportFingerprint.of(report)!=original
+	}
+
+	def "Fingerprints are stable"() {
+		expect:
+		ReportFingerprint.of(new JobReport("job.1"))==ReportFingerprint.of(new JobReport("job.1"))
+		ReportFingerprint.of(new AclReportRule())==ReportFingerprint.of(new AclReportRule())
+		ReportFingerprint.of(new JobReportRequirement())==ReportFingerprint.of(new JobReportRequirement())
+	}
+
+	def "Change filter"() {
+		given:
+		def filter = ReportChangeFilter.nodeReports()
+		def node1 = nodeReport()
+		def node2 = new NodeReport("node2")
+
+		expect:
+		filter.filter(null)==[]
+		filter.filter([node1, node2])*.name==["node1", "node2"]
+		filter.size()==2
+		filter.filter([nodeReport(), node2])==[]
+		!filter.isChanged(node2)
+
+		when:
+		node2.state = NodeReportState.DOWN
+
+		then:
+		filter.isChanged(node2)
+		filter.filter([node1, node2])*.name==["node2"]
+
+		when:
+		filter.forget("node1")
+
+		then:
+		filter.filter([node1, node2])*.name==["node1"]
+
+		when:
+		filter.clear()
+
+		then:
+		filter.size()==0
+		filter.filter([node1, node2]).size()==2
+	}
+
+	def "Change filter arguments"() {
+		when:
+		new ReportChangeFilter<JobReport>(null, null)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [names] must not be null"
+	}
+}
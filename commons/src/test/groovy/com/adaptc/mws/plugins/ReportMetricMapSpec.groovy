@@ -0,0 +1,131 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+class ReportMetricMapSpec extends Specification {
+	ReportMetricMap metricMap = new ReportMetricMap()
+
+	def "Behaves as a map"() {
+		when:
+		metricMap.custom1 = 1.5d
+		metricMap[PluginConstants.METRIC_CPULOAD] = 0.25d
+		metricMap.put(PluginConstants.METRIC_VM_COUNT, 3d)
+		metricMap.custom2 = null
+
+		then:
+		metricMap.size()==4
+		metricMap==[custom1:1.5d, cpuLoad:0.25d, vmcount:3d, custom2:null]
+		(metricMap.keySet() as List)[0..1]==["cpuLoad", "vmcount"]
+		metricMap.keySet()==["cpuLoad", "vmcount", "custom1", "custom2"] as Set
+		metricMap.containsKey("custom2")
+		!metricMap.containsKey("custom3")
+		!metricMap.containsKey(PluginConstants.METRIC_SPEED)
+		metricMap.custom3==null
+		metricMap.size()==4
+
+		when:
+		def previous = metricMap.put("custom1", 2d)
+
+		then:
+		previous==1.5d
+		metricMap.custom1==2d
+		metricMap.remove("custom1")==2d
+		metricMap.remove("custom1")==null
+		metricMap.remove(PluginConstants.METRIC_CPULOAD)==0.25d
+		metricMap==[vmcount:3d, custom2:null]
+	}
+
+	def "Primitive access"() {
+		when:
+		metricMap.putValue(PluginConstants.METRIC_SPEED, 2400)
+		metricMap.putValue("custom", Double.NaN)
+
+		then:
+		metricMap.getValue(PluginConstants.METRIC_SPEED, 0)==2400d
+		metricMap.getValue(PluginConstants.METRIC_CPULOAD, -1)==-1d
+		Double.isNaN(metricMap.getValue("custom", 0))
+		metricMap.getValue("other", 7)==7d
+		metricMap.speed==2400d
+	}
+
+	def "Grows and reuses removed entries"() {
+		when:
+		(1..100).each { metricMap.putValue("metric$it", it) }
+		(1..100).step(2) { metricMap.remove("metric$it".toString()) }
+		(101..150).each { metricMap.putValue("metric$it", it) }
+
+		then:
+		metricMap.size()==100
+		metricMap.keySet()==(((2..100).step(2) + (101..150)).collect { "metric$it".toString() } as Set)
+		(2..100).step(2).every { metricMap.getValue("metric$it", 0)==it }
+		(101..150).every { metricMap["metric$it".toString()]==it }
+	}
+
+	def "Iterator removal and entry values"() {
+		given:
+		metricMap.cpuLoad = 1d
+		metricMap.custom1 = 2d
+		metricMap.custom2 = 3d
+
+		when:
+		def iterator = metricMap.entrySet().iterator()
+		iterator.next().value = 5d
+		while(iterator.hasNext()) {
+			if (iterator.next().key=="custom1")
+				iterator.remove()
+		}
+
+		then:
+		metricMap==[cpuLoad:5d, custom2:3d]
+
+		when:
+		metricMap.clear()
+
+		then:
+		metricMap.isEmpty()
+		metricMap.entrySet().iterator().hasNext()==false
+	}
+
+	def "Serialization after removals"() {
+		given:
+		metricMap[PluginConstants.METRIC_SPEED] = 2.5d
+		(1..20).each { metricMap["custom$it".toString()] = it as double }
+		(1..20).findAll { it % 3 }.each { metricMap.remove("custom$it".toString()) }
+		metricMap.custom21 = null
+
+		when:
+		def bytes = new ByteArrayOutputStream()
+		new ObjectOutputStream(bytes).withStream { it.writeObject(metricMap) }
+		def copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).withStream { it.readObject() }
+
+		then:
+		copy instanceof ReportMetricMap
+		copy==metricMap
+		copy.size()==8
+		copy.getValue(PluginConstants.METRIC_SPEED, 0)==2.5d
+		copy.custom3==3d
+		!copy.containsKey("custom1")
+		copy.containsKey("custom21")
+
+		when:
+		copy.custom1 = 1d
+
+		then:
+		copy.size()==9
+		copy.custom1==1d
+	}
+
+	def "Null keys are not permitted"() {
+		when:
+		metricMap.put(null, 1d)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [key] must not be null"
+	}
+
+	def "Node report metrics"() {
+		expect:
+		new NodeReport().metrics instanceof ReportMetricMap
+	}
+}
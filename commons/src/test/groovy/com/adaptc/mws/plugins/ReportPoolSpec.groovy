@@ -0,0 +1,126 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+import java.util.function.Supplier
+
+class ReportPoolSpec extends Specification {
+	def "Acquire and release"() {
+		given:
+		def pool = ReportPool.nodeReports(1)
+
+		when:
+		def first = pool.acquire()
+		def second = pool.acquire()
+
+		then:
+		first!=null
+		!first.is(second)
+		pool.size()==0
+
+		when:
+		first.name = "node1"
+		pool.releaseAll([first, second, null])
+
+		then:
+		pool.size()==1
+		first.name==null
+		second.name==null
+
+		when:
+		def reused = pool.acquire()
+
+		then:
+		reused.is(first)
+		pool.size()==0
+	}
+
+	def "Invalid arguments"() {
+		when:
+		new ReportPool<JobReport>(null, 1)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [factory] must not be null"
+
+		when:
+		new ReportPool<JobReport>({ new JobReport() } as Supplier, -1)
+
+		then:
+		e = thrown(IllegalArgumentException)
+		e.message=="Argument [maxSize] must not be negative"
+	}
+
+	def "Reset node report"() {
+		given:
+		def report = new NodeReport("node")
+		report.timestamp = new Date()
+		report.slaveReport = true
+		report.resources[PluginConstants.RESOURCE_PROCESSORS].total = 4
+		report.metrics[PluginConstants.METRIC_CPULOAD] = 1.0d
+		report.features << "feature"
+		report.messages << "message"
+		report.variables.var = "value"
+		report.attributes.attr.value = "value"
+		report.aclRules << new AclReportRule()
+		report.state = NodeReportState.IDLE
+		report.power = NodeReportPower.ON
+		report.operatingSystem = "linux"
+		report.timeToLive = new Date()
+		report.precedence = 1
+		report.features = null
+		def resources = report.resources
+
+		when:
+		report.reset()
+
+		then:
+		report.name==null
+		report.timestamp==null
+		!report.slaveReport
+		report.resources.is(resources)
+		report.resources.isEmpty()
+		report.metrics.isEmpty()
+		report.features==[]
+		report.messages==[]
+		report.variables==[:]
+		report.attributes.isEmpty()
+		report.aclRules==[]
+		report.state==null
+		report.power==null
+		report.operatingSystem==null
+		report.timeToLive==null
+		report.precedence==null
+	}
+
+	def "Reset job report"() {
+		given:
+		def report = new JobReport("job")
+		report.state = JobReportState.RUNNING
+		report.user = "user"
+		report.submitDate = new Date()
+		report.flags << JobReportFlag.RESTARTABLE
+		report.environmentVariables.var = "value"
+		report.requirements.nodeCount = 1
+		report.nodesRequested << "node1"
+		report.partitionAccessList << "partition"
+		report.duration = 10
+		def requirements = report.requirements
+
+		when:
+		report.reset()
+
+		then:
+		report.name==null
+		report.state==null
+		report.user==null
+		report.submitDate==null
+		report.flags.isEmpty()
+		report.environmentVariables==[:]
+		report.requirements.is(requirements)
+		report.requirements.isEmpty()
+		report.nodesRequested==[]
+		report.partitionAccessList==[]
+		report.duration==null
+	}
+}
@@ -0,0 +1,194 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+class ReportResourceMapSpec extends Specification {
+	ReportResourceMap resourceMap
+
+	def setup() {
+		resourceMap = new ReportResourceMap()
+	}
+
+	def "Get entries"() {
+		when:
+		resourceMap.get(PluginConstants.RESOURCE_PROCESSORS).total = 4
+
+		then:
+		resourceMap.size()==1
+		resourceMap.get(PluginConstants.RESOURCE_PROCESSORS).total==4
+
+		when:
+		resourceMap['resource1'].available = 2
+
+		then:
+		resourceMap.size()==2
+		resourceMap['resource1'].available==2
+
+		when:
+		resourceMap.resource2.total = 3
+
+		then:
+		resourceMap.size()==3
+		resourceMap.resource2.total==3
+	}
+
+	def "Lookups without creating entries"() {
+		given:
+		resourceMap.memory.total = 1024
+
+		expect:
+		resourceMap.getIfPresent("memory").total==1024
+		resourceMap.getIfPresent("disk")==null
+		resourceMap.asReadOnly().memory.total==1024
+		resourceMap.asReadOnly().disk==null
+		resourceMap.asReadOnly().entrySet()*.key==["memory"]
+		resourceMap.size()==1
+
+		when:
+		resourceMap.asReadOnly().remove("memory")
+
+		then:
+		thrown(UnsupportedOperationException)
+		resourceMap.size()==1
+	}
+
+	def "Entries are iterated in insertion order"() {
+		when:
+		resourceMap.generic1.total = 1
+		resourceMap.swap.total = 2
+		resourceMap.generic2.total = 3
+		resourceMap.processors.total = 4
+
+		then:
+		resourceMap.size()==4
+		resourceMap.keySet() as List==["generic1", "swap", "generic2", "processors"]
+		resourceMap.collectEntries { k, v -> [k, v.total] }==[generic1:1, swap:2, generic2:3, processors:4]
+	}
+
+	def "Map remains a cloneable LinkedHashMap"() {
+		given:
+		resourceMap.memory.total = 1024
+		resourceMap.generic.total = 1
+
+		when:
+		def clone = resourceMap.clone()
+
+		then:
+		resourceMap instanceof LinkedHashMap
+		clone instanceof ReportResourceMap
+		clone==resourceMap
+		!clone.is(resourceMap)
+		clone.keySet() as List==["memory", "generic"]
+		clone.disk.total==null
+		!resourceMap.containsKey("disk")
+	}
+
+	def "Remove and replace entries"() {
+		given:
+		def memory = new ReportResource(total:1024)
+		def generic = new ReportResource(total:1)
+
+		expect:
+		resourceMap.put("memory", memory)==null
+		resourceMap.put("generic", generic)==null
+		resourceMap.put("memory", generic).is(memory)
+		resourceMap.remove("memory").is(generic)
+		resourceMap.remove("memory")==null
+		resourceMap.remove("disk")==null
+		resourceMap.remove("generic").is(generic)
+		resourceMap.isEmpty()
+
+		when:
+		resourceMap.put("disk", null)
+
+		then:
+		resourceMap.containsKey("disk")
+		resourceMap.size()==1
+		resourceMap.disk==null
+
+		when:
+		resourceMap.clear()
+
+		then:
+		resourceMap.isEmpty()
+		!resourceMap.containsKey("disk")
+	}
+
+	def "Iterator removal and entry values"() {
+		given:
+		resourceMap.processors.total = 1
+		resourceMap.memory.total = 2
+		resourceMap.generic.total = 3
+		def replacement = new ReportResource(total:5)
+
+		when:
+		def iterator = resourceMap.entrySet().iterator()
+		iterator.next().value = replacement
+		iterator.next()
+		iterator.remove()
+		iterator.next()
+		iterator.remove()
+
+		then:
+		!iterator.hasNext()
+		resourceMap.keySet()==["processors"] as Set
+		resourceMap.processors.is(replacement)
+	}
+
+	def "Default map methods do not create entries"() {
+		given:
+		def resource = new ReportResource(total:1)
+
+		expect:
+		resourceMap.getOrDefault("memory", resource).is(resource)
+		resourceMap.replace("memory", resource)==null
+		!resourceMap.remove("memory", resource)
+		resourceMap.isEmpty()
+		resourceMap.putIfAbsent("memory", resource)==null
+		resourceMap.putIfAbsent("memory", new ReportResource()).is(resource)
+		resourceMap.computeIfAbsent("generic", { new ReportResource(total:2) }).total==2
+		resourceMap.computeIfPresent("disk", { k, v -> v })==null
+		resourceMap.keySet()==["memory", "generic"] as Set
+	}
+
+	def "Equality with other maps"() {
+		given:
+		resourceMap.memory.total = 1024
+		resourceMap.generic.available = 2
+
+		expect:
+		resourceMap==[memory:new ReportResource(total:1024), generic:new ReportResource(available:2)]
+		resourceMap.hashCode()==[memory:new ReportResource(total:1024), generic:new ReportResource(available:2)].hashCode()
+		resourceMap!=[memory:new ReportResource(total:1024)]
+	}
+
+	def "Primitive resource values"() {
+		given:
+		def resource = new ReportResource()
+
+		expect:
+		resource.total==null
+		resource.getTotal(-1)==-1
+		resource.getAvailable(0)==0
+
+		when:
+		resource.total = 2048
+		resource.available = 0
+
+		then:
+		resource.total==2048
+		resource.getTotal(-1)==2048
+		resource.available==0
+		resource.getAvailable(-1)==0
+		resource.toString()=="[available:0, total:2048]"
+		resource==new ReportResource(total:2048, available:0)
+		resource!=new ReportResource(total:2048)
+
+		when:
+		resource.total = null
+
+		then:
+		resource.total==null
+		resource.getTotal(-1)==-1
+	}
+}
@@ -0,0 +1,66 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+
+class ReportStringPoolSpec extends Specification {
+	def "Intern"() {
+		given:
+		def pool = new ReportStringPool(16)
+		def first = new String("linux")
+		def second = new String("linux")
+		def longString = "x"*(ReportStringPool.MAX_LENGTH+1)
+
+		expect:
+		pool.intern(null)==null
+		pool.intern(first).is(first)
+		pool.intern(second).is(first)
+		pool.intern(longString).is(longString)
+		!pool.intern(new String(longString)).is(longString)
+
+		when:
+		pool.clear()
+
+		then:
+		pool.intern(second).is(second)
+	}
+
+	def "Intern all"() {
+		given:
+		def pool = new ReportStringPool(16)
+		def feature = new String("gpu")
+		pool.intern(feature)
+		def features = [new String("gpu"), null, "fast"]
+
+		expect:
+		pool.internAll(null)==null
+		pool.internAll(features).is(features)
+		features[0].is(feature)
+		features==["gpu", null, "fast"]
+	}
+
+	def "Invalid capacity"() {
+		when:
+		new ReportStringPool(0)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [capacity] must be between 1 and 1073741824"
+	}
+
+	def "Report setters"() {
+		given:
+		def os = new String("linux")
+		def user = new String("alice")
+		def nodeReport = new NodeReport("node")
+		def jobReport = new JobReport("job")
+
+		when:
+		nodeReport.operatingSystem = os
+		new NodeReport("node2").operatingSystem = new String("linux")
+		jobReport.user = user
+
+		then:
+		ReportStringPool.SHARED.intern(new String("linux")).is(nodeReport.operatingSystem)
+		ReportStringPool.SHARED.intern(new String("alice")).is(jobReport.user)
+	}
+}
@@ -0,0 +1,86 @@
+package com.adaptc.mws.plugins
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ForkJoinPool
+
+class ReportTranslationPipelineSpec extends Specification {
+	@Unroll
+	def "Translate #count records in order"() {
+		given:
+		def threads = ConcurrentHashMap.newKeySet()
+		def pipeline = ReportTranslationPipeline.forEach(10) { String record ->
+			threads << Thread.currentThread()
+			if (record.endsWith("7"))
+				return null
+			return new NodeReport(record)
+		}
+		def records = (1..count).collect { "node"+it }
+
+		when:
+		def reports = pipeline.translate(records)
+
+		then:
+		reports*.name==records.findAll { !it.endsWith("7") }
+		count > 10 || threads==[Thread.currentThread()] as Set
+
+		where:
+		count << [5, 10, 1000]
+	}
+
+	def "Chunk translator"() {
+		given:
+		def pool = new ForkJoinPool(2)
+		def chunks = Collections.synchronizedList([])
+		def pipeline = new ReportTranslationPipeline<Integer, JobReport>({ List<Integer> chunk ->
+			chunks << chunk.size()
+			chunk.collect { new JobReport("job"+it) }
+		}, 3, pool)
+
+		when:
+		def reports = pipeline.translate(new LinkedList(1..10))
+
+		then:
+		reports*.name==(1..10).collect { "job"+it }
+		chunks.sort()==[1, 3, 3, 3]
+		pipeline.translate(null)==[]
+		pipeline.translate([])==[]
+
+		cleanup:
+		pool.shutdown()
+	}
+
+	def "Translator exceptions are thrown"() {
+		given:
+		def pipeline = ReportTranslationPipeline.forEach(2) { Integer record ->
+			if (record==5)
+				throw new IllegalStateException("bad record")
+			return new NodeReport("node"+record)
+		}
+
+		when:
+		pipeline.translate(1..10)
+
+		then:
+		IllegalStateException e = thrown()
+		e.message.endsWith("bad record")
+	}
+
+	def "Invalid arguments"() {
+		when:
+		new ReportTranslationPipeline(null)
+
+		then:
+		IllegalArgumentException e = thrown()
+		e.message=="Argument [translator] must not be null"
+
+		when:
+		new ReportTranslationPipeline({ it }, 0, ForkJoinPool.commonPool())
+
+		then:
+		e = thrown(IllegalArgumentException)
+		e.message=="Argument [chunkSize] must be greater than 0"
+	}
+}
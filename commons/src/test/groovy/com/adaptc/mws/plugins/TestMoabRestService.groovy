@@ -0,0 +1,52 @@
+package com.adaptc.mws.plugins
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * A Moab REST service which records each request and returns the result of a handler closure called with the
+ * method, options, URL, and data closure of the request.
+ */
+class TestMoabRestService implements IMoabRestService {
+	Closure<MoabRestResponse> handler
+	List<Map> requests = new CopyOnWriteArrayList<Map>()
+
+	TestMoabRestService(Closure<MoabRestResponse> handler) {
+		this.handler = handler
+	}
+
+	static MoabRestResponse response(Object data, int status=200) {
+		def response = new org.springframework.mock.web.MockHttpServletResponse()
+		response.status = status
+		return new MoabRestResponse(response, data, status < 400)
+	}
+
+	boolean isAPIVersionSupported(int apiVersion) {
+		return true
+	}
+
+	Date convertDateString(String dateString) {
+		return null
+	}
+
+	private MoabRestResponse request(String method, Map<String, ?> options, String url, Closure<?> data) {
+		requests << [method: method, options: options, url: url, data: data]
+		return handler.call(method, options, url, data)
+	}
+
+	MoabRestResponse get(String url) { request("GET", [:], url, null) }
+	MoabRestResponse get(Map<String, ?> options, String url) { request("GET", options, url, null) }
+	MoabRestResponse get(String url, Closure<?> data) { request("GET", [:], url, data) }
+	MoabRestResponse get(Map<String, ?> options, String url, Closure<?> data) { request("GET", options, url, data) }
+	MoabRestResponse put(String url) { request("PUT", [:], url, null) }
+	MoabRestResponse put(Map<String, ?> options, String url) { request("PUT", options, url, null) }
+	MoabRestResponse put(String url, Closure<?> data) { request("PUT", [:], url, data) }
+	MoabRestResponse put(Map<String, ?> options, String url, Closure<?> data) { request("PUT", options, url, data) }
+	MoabRestResponse post(String url) { request("POST", [:], url, null) }
+	MoabRestResponse post(Map<String, ?> options, String url) { request("POST", options, url, null) }
+	MoabRestResponse post(String url, Closure<?> data) { request("POST", [:], url, data) }
+	MoabRestResponse post(Map<String, ?> options, String url, Closure<?> data) { request("POST", options, url, data) }
+	MoabRestResponse delete(String url) { request("DELETE", [:], url, null) }
+	MoabRestResponse delete(Map<String, ?> options, String url) { request("DELETE", options, url, null) }
+	MoabRestResponse delete(String url, Closure<?> data) { request("DELETE", [:], url, data) }
+	MoabRestResponse delete(Map<String, ?> options, String url, Closure<?> data) { request("DELETE", options, url, data) }
+}